@@ -30,8 +30,11 @@ public class MainActivity extends Activity {
 
     initArcMenu(arcMenu, ITEM_DRAWABLES);
     initArcMenu(arcMenu2, ITEM_DRAWABLES);
+    // Items can be dragged out of the switch button and picked in one gesture
+    arcMenu2.setPropertyAnimationEnabled(true);
 
     RayMenu rayMenu = (RayMenu) findViewById(R.id.ray_menu);
+    rayMenu.setPropertyAnimationEnabled(true);
     final int itemCount = ITEM_DRAWABLES.length;
     for (int i = 0; i < itemCount; i++) {
       ImageView item = new ImageView(this);
@@ -48,6 +51,8 @@ public class MainActivity extends Activity {
     }
 
     final PeacockLayout peacockLayout = (PeacockLayout) findViewById(R.id.peacock);
+    // Press the menu, drag to an item and release to select it
+    peacockLayout.setDragSelectionEnabled(true);
     peacockLayout.setItemListener(new OnClickListener() {
       @Override public void onClick(View v) {
         if (v.getId() == R.id.iv_1) {
@@ -7,7 +7,6 @@ import android.graphics.Point;
 import android.view.View;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.DecelerateInterpolator;
-import android.widget.FrameLayout;
 import com.oguzdev.circularfloatingactionmenu.library.FloatingActionMenu;
 import com.oguzdev.circularfloatingactionmenu.library.animation.MenuAnimationHandler;
 
@@ -41,12 +40,10 @@ public class SlideInAnimationHandler extends MenuAnimationHandler {
 
             menu.getSubActionItems().get(i).view.setAlpha(0);
 
-            FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) menu.getSubActionItems().get(i).view.getLayoutParams();
-            params.setMargins(menu.getSubActionItems().get(i).x, menu.getSubActionItems().get(i).y + DIST_Y, 0, 0);
-            menu.getSubActionItems().get(i).view.setLayoutParams(params);
+            menu.moveItem(menu.getSubActionItems().get(i), menu.getSubActionItems().get(i).x, menu.getSubActionItems().get(i).y + DIST_Y);
 
 //            PropertyValuesHolder pvhX = PropertyValuesHolder.ofFloat(View.TRANSLATION_X, menu.getSubMenuItems().get(i).x/* - center.x + menu.getSubMenuItems().get(i).width / 2*/);
-            PropertyValuesHolder pvhY = PropertyValuesHolder.ofFloat(View.TRANSLATION_Y, -DIST_Y);
+            PropertyValuesHolder pvhY = PropertyValuesHolder.ofFloat(View.TRANSLATION_Y, menu.getSubActionItems().get(i).y - menu.getContainerOffsetY());
 //            PropertyValuesHolder pvhsX = PropertyValuesHolder.ofFloat(View.SCALE_X, 1);
 //            PropertyValuesHolder pvhsY = PropertyValuesHolder.ofFloat(View.SCALE_Y, 1);
             PropertyValuesHolder pvhA = PropertyValuesHolder.ofFloat(View.ALPHA, 1);
@@ -78,7 +75,7 @@ public class SlideInAnimationHandler extends MenuAnimationHandler {
         Animator lastAnimation = null;
         for (int i = 0; i < menu.getSubActionItems().size(); i++) {
 //            PropertyValuesHolder pvhX = PropertyValuesHolder.ofFloat(View.TRANSLATION_X, - (menu.getSubMenuItems().get(i).x - center.x + menu.getSubMenuItems().get(i).width / 2));
-            PropertyValuesHolder pvhY = PropertyValuesHolder.ofFloat(View.TRANSLATION_Y, DIST_Y);
+            PropertyValuesHolder pvhY = PropertyValuesHolder.ofFloat(View.TRANSLATION_Y, menu.getSubActionItems().get(i).view.getTranslationY() + DIST_Y);
 //            PropertyValuesHolder pvhsX = PropertyValuesHolder.ofFloat(View.SCALE_X, 0);
 //            PropertyValuesHolder pvhsY = PropertyValuesHolder.ofFloat(View.SCALE_Y, 0);
             PropertyValuesHolder pvhA = PropertyValuesHolder.ofFloat(View.ALPHA, 0);
@@ -2,6 +2,7 @@ package com.xfdsj.sample;
 
 import android.app.Service;
 import android.content.Intent;
+import android.os.AsyncTask;
 import android.os.Binder;
 import android.os.IBinder;
 import android.view.View;
@@ -23,6 +24,7 @@ public class SystemOverlayMenuService extends Service {
     private FloatingActionMenu topCenterMenu;
 
     private boolean serviceWillBeDismissed;
+    private boolean destroyed;
 
     public SystemOverlayMenuService() {
     }
@@ -58,31 +60,34 @@ public class SystemOverlayMenuService extends Service {
                 .build();
 
         SubActionButton.Builder rLSubBuilder = new SubActionButton.Builder(this);
-        ImageView rlIcon1 = new ImageView(this);
-        ImageView rlIcon2 = new ImageView(this);
-        ImageView rlIcon3 = new ImageView(this);
-        ImageView rlIcon4 = new ImageView(this);
-
-        rlIcon1.setImageDrawable(getResources().getDrawable(R.drawable.ic_action_chat_light));
-        rlIcon2.setImageDrawable(getResources().getDrawable(R.drawable.ic_action_camera_light));
-        rlIcon3.setImageDrawable(getResources().getDrawable(R.drawable.ic_action_video_light));
-        rlIcon4.setImageDrawable(getResources().getDrawable(R.drawable.ic_action_place_light));
 
         // Build the menu with default options: light theme, 90 degrees, 72dp radius.
-        // Set 4 default SubActionButtons
-        SubActionButton rlSub1 = rLSubBuilder.setContentView(rlIcon1).build();
-        SubActionButton rlSub2 = rLSubBuilder.setContentView(rlIcon2).build();
-        SubActionButton rlSub3 = rLSubBuilder.setContentView(rlIcon3).build();
-        SubActionButton rlSub4 = rLSubBuilder.setContentView(rlIcon4).build();
-        rightLowerMenu = new FloatingActionMenu.Builder(this, true)
-                .addSubActionView(rlSub1, rlSub1.getLayoutParams().width, rlSub1.getLayoutParams().height)
-                .addSubActionView(rlSub2, rlSub2.getLayoutParams().width, rlSub2.getLayoutParams().height)
-                .addSubActionView(rlSub3, rlSub3.getLayoutParams().width, rlSub3.getLayoutParams().height)
-                .addSubActionView(rlSub4, rlSub4.getLayoutParams().width, rlSub4.getLayoutParams().height)
+        // Set 4 default SubActionButtons, their icons are decoded off the main thread
+        new FloatingActionMenu.Builder(this, true)
+                .addSubActionIcon(R.drawable.ic_action_chat_light, rLSubBuilder)
+                .addSubActionIcon(R.drawable.ic_action_camera_light, rLSubBuilder)
+                .addSubActionIcon(R.drawable.ic_action_video_light, rLSubBuilder)
+                .addSubActionIcon(R.drawable.ic_action_place_light, rLSubBuilder)
                 .setStartAngle(180)
                 .setEndAngle(270)
+                .setPersistentOverlay(true)
                 .attachTo(rightLowerButton)
-                .build();
+                .buildAsync(AsyncTask.THREAD_POOL_EXECUTOR, new FloatingActionMenu.OnMenuBuiltListener() {
+                    @Override
+                    public void onMenuBuilt(FloatingActionMenu menu) {
+                        if(destroyed) {
+                            menu.detachOverlayContainer();
+                            return;
+                        }
+                        rightLowerMenu = menu;
+                    }
+
+                    @Override
+                    public void onMenuBuildFailed(RuntimeException e) {
+                        // Fail as build() would
+                        throw e;
+                    }
+                });
 
         ////////////////////////////////////////////////////////
 
@@ -168,6 +173,7 @@ public class SystemOverlayMenuService extends Service {
                 .setRadius(redActionMenuRadius)
                 .setStartAngle(0)
                 .setEndAngle(180)
+                .setPersistentOverlay(true)
                 .attachTo(topCenterButton)
                 .build();
 
@@ -198,8 +204,12 @@ public class SystemOverlayMenuService extends Service {
 
     @Override
     public void onDestroy() {
+        destroyed = true;
         if(rightLowerMenu != null && rightLowerMenu.isOpen()) rightLowerMenu.close(false);
         if(topCenterMenu != null && topCenterMenu.isOpen()) topCenterMenu.close(false);
+        // The persistent overlay windows stay added until they are detached
+        if(rightLowerMenu != null) rightLowerMenu.detachOverlayContainer();
+        if(topCenterMenu != null) topCenterMenu.detachOverlayContainer();
         if(rightLowerButton != null) rightLowerButton.detach();
         if(topCenterButton != null) topCenterButton.detach();
 
@@ -19,9 +19,11 @@ package com.capricorn;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Rect;
+import android.os.Build;
 import android.util.AttributeSet;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.WindowManager;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.Animation;
 import android.view.animation.AnimationSet;
@@ -40,7 +42,7 @@ import android.view.animation.Animation.AnimationListener;
  * @author Capricorn
  * 
  */
-public class ArcLayout extends ViewGroup {
+public class ArcLayout extends ViewGroup implements ExpansionScrubber.Target {
     /**
      * children will be set the same size.
      */
@@ -65,6 +67,59 @@ public class ArcLayout extends ViewGroup {
 
     private boolean mExpanded = false;
 
+    /* unit vectors pointing from the layout's center to each child, see ensureChildDirections() */
+    private float[] mChildDirectionX = new float[0];
+
+    private float[] mChildDirectionY = new float[0];
+
+    private float mDirectionsFromDegrees;
+
+    private float mDirectionsToDegrees;
+
+    private int mDirectionsChildCount = -1;
+
+    /* reused for every frame computed during layout and animation binding */
+    private final Rect mChildFrame = new Rect();
+
+    /*
+     * when enabled, children always stay laid out at their expanded frames and the expansion is
+     * drawn by translating, rotating, scaling and hiding them, so toggling never requests a layout
+     */
+    private boolean mPropertyAnimation = false;
+
+    /* whether the expansion fraction follows a finger rather than the animator */
+    private boolean mScrubbing = false;
+
+    private MenuMetricsListener mMetricsListener;
+
+    /* measures the transitions while a metrics listener is set */
+    private TransitionMonitor mTransitionMonitor;
+
+    /* drives the children's properties in property animation mode */
+    private final ChildExpansion mExpansion = new ChildExpansion(new ChildExpansion.Host() {
+
+        @Override
+        public int getChildCount() {
+            return ArcLayout.this.getChildCount();
+        }
+
+        @Override
+        public View getChildAt(int index) {
+            return ArcLayout.this.getChildAt(index);
+        }
+
+        @Override
+        public void computeCollapsedFrame(Rect outFrame) {
+            computeChildFrame(getWidth() / 2, getHeight() / 2, 0, 0, 0, mChildSize, outFrame);
+        }
+
+        @Override
+        public long computeStartOffset(int childCount, boolean expand, int index, long duration,
+                Interpolator interpolator) {
+            return ArcLayout.computeStartOffset(childCount, !expand, index, 0.1f, duration, interpolator);
+        }
+    });
+
     public ArcLayout(Context context) {
         super(context);
     }
@@ -82,34 +137,39 @@ public class ArcLayout extends ViewGroup {
         }
     }
 
-    private static int computeRadius(final float arcDegrees, final int childCount, final int childSize,
-            final int childPadding, final int minRadius) {
-        if (childCount < 2) {
-            return minRadius;
-        }
-
-        final float perDegrees = arcDegrees / (childCount - 1);
-        final float perHalfDegrees = perDegrees / 2;
-        final int perSize = childSize + childPadding;
-
-        final int radius = (int) ((perSize / 2) / Math.sin(Math.toRadians(perHalfDegrees)));
-
-        return Math.max(radius, minRadius);
+    private static void computeChildFrame(final int centerX, final int centerY, final int radius,
+            final float directionX, final float directionY, final int size, final Rect outFrame) {
+        outFrame.set(LayoutGeometry.computeChildStart(centerX, radius, directionX, size),
+                LayoutGeometry.computeChildStart(centerY, radius, directionY, size),
+                LayoutGeometry.computeChildEnd(centerX, radius, directionX, size),
+                LayoutGeometry.computeChildEnd(centerY, radius, directionY, size));
     }
 
-    private static Rect computeChildFrame(final int centerX, final int centerY, final int radius, final float degrees,
-            final int size) {
+    /**
+     * Rebuilds the table of child directions, only if the arc or the number of children has changed
+     * since it was last built.
+     */
+    private void ensureChildDirections(final int childCount) {
+        if (mDirectionsChildCount == childCount && mDirectionsFromDegrees == mFromDegrees
+                && mDirectionsToDegrees == mToDegrees) {
+            return;
+        }
+
+        if (mChildDirectionX.length < childCount) {
+            mChildDirectionX = new float[childCount];
+            mChildDirectionY = new float[childCount];
+        }
 
-        final double childCenterX = centerX + radius * Math.cos(Math.toRadians(degrees));
-        final double childCenterY = centerY + radius * Math.sin(Math.toRadians(degrees));
+        LayoutGeometry.computeDirections(mFromDegrees, mToDegrees, childCount, mChildDirectionX, mChildDirectionY);
 
-        return new Rect((int) (childCenterX - size / 2), (int) (childCenterY - size / 2),
-                (int) (childCenterX + size / 2), (int) (childCenterY + size / 2));
+        mDirectionsFromDegrees = mFromDegrees;
+        mDirectionsToDegrees = mToDegrees;
+        mDirectionsChildCount = childCount;
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        final int radius = mRadius = computeRadius(Math.abs(mToDegrees - mFromDegrees), getChildCount(), mChildSize,
+        final int radius = mRadius = LayoutGeometry.computeRadius(Math.abs(mToDegrees - mFromDegrees), getChildCount(), mChildSize,
                 mChildPadding, MIN_RADIUS);
         final int size = radius * 2 + mChildSize + mChildPadding + mLayoutPadding * 2;
 
@@ -126,17 +186,20 @@ public class ArcLayout extends ViewGroup {
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
         final int centerX = getWidth() / 2;
         final int centerY = getHeight() / 2;
-        final int radius = mExpanded ? mRadius : 0;
+        final int radius = mExpanded || mPropertyAnimation ? mRadius : 0;
 
         final int childCount = getChildCount();
-        final float perDegrees = (mToDegrees - mFromDegrees) / (childCount - 1);
+        ensureChildDirections(childCount);
 
-        float degrees = mFromDegrees;
+        final Rect frame = mChildFrame;
         for (int i = 0; i < childCount; i++) {
-            Rect frame = computeChildFrame(centerX, centerY, radius, degrees, mChildSize);
-            degrees += perDegrees;
+            computeChildFrame(centerX, centerY, radius, mChildDirectionX[i], mChildDirectionY[i], mChildSize, frame);
             getChildAt(i).layout(frame.left, frame.top, frame.right, frame.bottom);
         }
+
+        if (mPropertyAnimation) {
+            mExpansion.apply();
+        }
     }
 
     /**
@@ -144,14 +207,11 @@ public class ArcLayout extends ViewGroup {
      */
     private static long computeStartOffset(final int childCount, final boolean expanded, final int index,
             final float delayPercent, final long duration, Interpolator interpolator) {
-        final float delay = delayPercent * duration;
-        final long viewDelay = (long) (getTransformedIndex(expanded, childCount, index) * delay);
-        final float totalDelay = delay * childCount;
-
-        float normalizedDelay = viewDelay / totalDelay;
-        normalizedDelay = interpolator.getInterpolation(normalizedDelay);
+        final float normalizedDelay = LayoutGeometry.computeNormalizedDelay(childCount,
+                getTransformedIndex(expanded, childCount, index), delayPercent, duration);
 
-        return (long) (normalizedDelay * totalDelay);
+        return LayoutGeometry.computeStartOffset(childCount, interpolator.getInterpolation(normalizedDelay),
+                delayPercent, duration);
     }
 
     private static int getTransformedIndex(final boolean expanded, final int count, final int index) {
@@ -206,8 +266,9 @@ public class ArcLayout extends ViewGroup {
         final int radius = expanded ? 0 : mRadius;
 
         final int childCount = getChildCount();
-        final float perDegrees = (mToDegrees - mFromDegrees) / (childCount - 1);
-        Rect frame = computeChildFrame(centerX, centerY, radius, mFromDegrees + index * perDegrees, mChildSize);
+        ensureChildDirections(childCount);
+        final Rect frame = mChildFrame;
+        computeChildFrame(centerX, centerY, radius, mChildDirectionX[index], mChildDirectionY[index], mChildSize, frame);
 
         final int toXDelta = frame.left - child.getLeft();
         final int toYDelta = frame.top - child.getTop();
@@ -248,10 +309,147 @@ public class ArcLayout extends ViewGroup {
         child.setAnimation(animation);
     }
 
+    /**
+     * Starts an expansion whose fraction follows {@link #scrubTo(float)} rather than an animator, as
+     * when a finger drags the children out of the switch button. Only available in property
+     * animation mode, since view animations cannot be driven by a fraction.
+     * 
+     * @return false if the layout is not shrunk or not in property animation mode
+     */
+    public boolean beginScrub() {
+        if (!mPropertyAnimation || mExpanded || mScrubbing) {
+            return false;
+        }
+
+        mExpansion.cancel();
+        mScrubbing = true;
+        mExpansion.prepare(true, 300);
+
+        if (mTransitionMonitor != null) {
+            mTransitionMonitor.begin(true);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the children to the given expansion fraction. Only transforms are updated, so a call per
+     * touch event costs no layout pass.
+     * 
+     * @param fraction 0 for shrunk, 1 for expanded
+     */
+    public void scrubTo(float fraction) {
+        if (!mScrubbing) {
+            return;
+        }
+
+        mExpansion.scrubTo(fraction);
+    }
+
+    /**
+     * Ends the expansion started by {@link #beginScrub()}, animating the children from where the
+     * finger left them.
+     * 
+     * @param expand true to complete the expansion, false to cancel it
+     */
+    public void endScrub(boolean expand) {
+        if (!mScrubbing) {
+            return;
+        }
+
+        mScrubbing = false;
+        mExpanded = expand;
+        mExpansion.animateTo(expand, 300);
+    }
+
+    public boolean isScrubbing() {
+        return mScrubbing;
+    }
+
+    /**
+     * @return the distance a finger has to travel from the switch button to expand the children
+     */
+    public int getScrubDistance() {
+        return Math.max(mRadius, mChildSize);
+    }
+
     public boolean isExpanded() {
         return mExpanded;
     }
 
+    /**
+     * Sets a listener that receives the measurements of every expansion and shrinkage, such as the
+     * latency of the first frame and the frames that were late. Frames are observed through
+     * Choreographer, so nothing is reported before Jelly Bean.
+     * 
+     * @param listener the listener, or null to stop measuring
+     */
+    public void setMetricsListener(MenuMetricsListener listener) {
+        mMetricsListener = listener;
+        if (listener == null) {
+            if (mTransitionMonitor != null) {
+                mTransitionMonitor.cancel();
+                mTransitionMonitor = null;
+            }
+        } else if (mTransitionMonitor == null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            final WindowManager windowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+            mTransitionMonitor = new TransitionMonitor(new TransitionMonitor.Callback() {
+
+                @Override
+                public boolean isTransitionRunning() {
+                    return isAnimating();
+                }
+
+                @Override
+                public void onTransitionMeasured(TransitionMetrics metrics) {
+                    if (mMetricsListener != null) {
+                        mMetricsListener.onTransitionMeasured(ArcLayout.this, metrics);
+                    }
+                }
+            }, windowManager.getDefaultDisplay().getRefreshRate());
+        }
+    }
+
+    private boolean isAnimating() {
+        if (mPropertyAnimation) {
+            return mScrubbing || mExpansion.isRunning();
+        }
+
+        // view animations are cleared once all of them are over
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            if (getChildAt(i).getAnimation() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Chooses how children are expanded and shrunk. When enabled, children stay laid out at their
+     * expanded frames and are animated through their translation, rotation, scale and visibility,
+     * which needs no layout pass per toggle and keeps touch targets where the children are drawn.
+     * 
+     * @param enabled true to animate with view properties, false for the legacy view animations
+     */
+    public void setPropertyAnimationEnabled(boolean enabled) {
+        if (mPropertyAnimation == enabled) {
+            return;
+        }
+
+        mPropertyAnimation = enabled;
+        mScrubbing = false;
+        mExpansion.setFraction(mExpanded ? 1 : 0);
+        if (!enabled) {
+            mExpansion.clear();
+        }
+
+        requestLayout();
+    }
+
+    public boolean isPropertyAnimationEnabled() {
+        return mPropertyAnimation;
+    }
+
     public void setArc(float fromDegrees, float toDegrees) {
         if (mFromDegrees == fromDegrees && mToDegrees == toDegrees) {
             return;
@@ -283,6 +481,20 @@ public class ArcLayout extends ViewGroup {
      * @param showAnimation
      */
     public void switchState(final boolean showAnimation) {
+        if (mTransitionMonitor != null) {
+            mTransitionMonitor.begin(!mExpanded);
+        }
+
+        if (mPropertyAnimation) {
+            mExpanded = !mExpanded;
+            if (showAnimation) {
+                mExpansion.animateTo(mExpanded, 300);
+            } else {
+                mExpansion.setFraction(mExpanded ? 1 : 0);
+            }
+            return;
+        }
+
         if (showAnimation) {
             final int childCount = getChildCount();
             for (int i = 0; i < childCount; i++) {
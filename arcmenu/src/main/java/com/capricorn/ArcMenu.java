@@ -20,7 +20,6 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
-import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.animation.AlphaAnimation;
@@ -64,18 +63,13 @@ public class ArcMenu extends RelativeLayout {
 
         final ViewGroup controlLayout = (ViewGroup) findViewById(R.id.control_layout);
         controlLayout.setClickable(true);
-        controlLayout.setOnTouchListener(new OnTouchListener() {
+        controlLayout.setOnTouchListener(new ExpansionScrubber(context, mArcLayout, new ExpansionScrubber.Callback() {
 
             @Override
-            public boolean onTouch(View v, MotionEvent event) {
-                if (event.getAction() == MotionEvent.ACTION_DOWN) {
-                    mHintView.startAnimation(createHintSwitchAnimation(mArcLayout.isExpanded()));
-                    mArcLayout.switchState(true);
-                }
-
-                return false;
+            public void onSwitch(boolean expanded) {
+                mHintView.startAnimation(createHintSwitchAnimation(expanded));
             }
-        });
+        }));
 
         mHintView = (ImageView) findViewById(R.id.control_hint);
     }
@@ -96,11 +90,50 @@ public class ArcMenu extends RelativeLayout {
         }
     }
 
+    /**
+     * When enabled, a finger dragged from the switch button also pulls the items out, and releasing
+     * it over an item clicks that item.
+     * 
+     * @see ArcLayout#setPropertyAnimationEnabled(boolean)
+     */
+    public void setPropertyAnimationEnabled(boolean enabled) {
+        mArcLayout.setPropertyAnimationEnabled(enabled);
+    }
+
+    /**
+     * Sets a listener that receives the measurements of every expansion and shrinkage of this menu.
+     * 
+     * @see ArcLayout#setMetricsListener(MenuMetricsListener)
+     * @param listener the listener, or null to stop measuring
+     */
+    public void setMetricsListener(final MenuMetricsListener listener) {
+        mArcLayout.setMetricsListener(listener == null ? null : new MenuMetricsListener() {
+
+            @Override
+            public void onTransitionMeasured(View menu, TransitionMetrics metrics) {
+                listener.onTransitionMeasured(ArcMenu.this, metrics);
+            }
+        });
+    }
+
     public void addItem(View item, OnClickListener listener) {
         mArcLayout.addView(item);
         item.setOnClickListener(getItemClickListener(listener));
     }
 
+    /**
+     * Adds an item showing an icon of a sprite sheet. Items of the same sheet, in this menu or in
+     * any other, share a single decoded bitmap.
+     * 
+     * @param sheet the sheet holding the icon
+     * @param index the index of the icon in the sheet
+     */
+    public void addItem(SpriteSheet sheet, int index, OnClickListener listener) {
+        ImageView item = new ImageView(getContext());
+        item.setImageDrawable(sheet.getIcon(index));
+        addItem(item, listener);
+    }
+
     private OnClickListener getItemClickListener(final OnClickListener listener) {
         return new OnClickListener() {
 
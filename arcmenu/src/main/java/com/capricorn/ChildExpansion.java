@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2012 Capricorn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.capricorn;
+
+import android.animation.ValueAnimator;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.animation.AccelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+import android.view.animation.OvershootInterpolator;
+
+import java.util.Arrays;
+
+/**
+ * The property animation expansion shared by {@link ArcLayout} and {@link RayLayout}. Children
+ * stay laid out at their expanded frames, and one expansion fraction, 0 when shrunk and 1 when
+ * expanded, moves them towards their collapsed frame, turns, scales and hides them. The fraction
+ * is animated, set at once, or follows a finger. Each child starts moving after its own offset,
+ * and a transition reversed while it runs starts every child from where it is drawn.
+ */
+final class ChildExpansion {
+
+    interface Host {
+        int getChildCount();
+
+        View getChildAt(int index);
+
+        /**
+         * @param outFrame receives the frame the children are collapsed to
+         */
+        void computeCollapsedFrame(Rect outFrame);
+
+        /**
+         * @return the delay before the child at index starts moving in a transition in the given
+         *         direction
+         */
+        long computeStartOffset(int childCount, boolean expand, int index, long duration,
+                Interpolator interpolator);
+    }
+
+    private final Host mHost;
+
+    private final Interpolator mExpandInterpolator = new OvershootInterpolator(1.5f);
+
+    private final Interpolator mShrinkInterpolator = new AccelerateInterpolator();
+
+    /* reused for every frame the children are collapsed to */
+    private final Rect mCollapsedFrame = new Rect();
+
+    private float mFraction = 0;
+
+    /* whether the current, or last, transition is an expansion */
+    private boolean mExpanding = false;
+
+    /* the rotation of a collapsed child, kept when a running transition is reversed */
+    private float mCollapsedRotation = 720;
+
+    private long mDuration;
+
+    /* duration of the whole transition, including the start offset of the last child */
+    private long mTimeline;
+
+    private long[] mStartOffsets = new long[0];
+
+    /* the fraction the current transition started at, and how far each child was expanded then */
+    private float mFromFraction = 0;
+
+    private float[] mFromExpansions = new float[0];
+
+    private ValueAnimator mAnimator;
+
+    ChildExpansion(Host host) {
+        mHost = host;
+    }
+
+    float getFraction() {
+        return mFraction;
+    }
+
+    boolean isRunning() {
+        return mAnimator != null && mAnimator.isStarted();
+    }
+
+    /**
+     * Computes the start offset of every child for a transition in the given direction, without
+     * moving any of them. A transition that is still running is taken over from where each child
+     * is, so reversing it never makes a child jump.
+     */
+    void prepare(final boolean expand, final long duration) {
+        final int childCount = mHost.getChildCount();
+        // where every child is drawn now, a child that was never prepared is where the fraction says
+        final float[] fromExpansions = mFromExpansions.length < childCount ? new float[childCount]
+                : mFromExpansions;
+        for (int i = 0; i < childCount; i++) {
+            fromExpansions[i] = computeChildExpansion(i);
+        }
+        mFromExpansions = fromExpansions;
+        if (mStartOffsets.length < childCount) {
+            mStartOffsets = new long[childCount];
+        }
+        if (mFraction == 0 || mFraction == 1) {
+            // collapsed children turn towards the switch button in the direction they started from
+            mCollapsedRotation = expand ? -720 : 720;
+        }
+        mFromFraction = mFraction;
+
+        final Interpolator interpolator = expand ? mExpandInterpolator : mShrinkInterpolator;
+        long lastStartOffset = 0;
+        for (int i = 0; i < childCount; i++) {
+            mStartOffsets[i] = mHost.computeStartOffset(childCount, expand, i, duration, interpolator);
+            lastStartOffset = Math.max(lastStartOffset, mStartOffsets[i]);
+        }
+
+        mExpanding = expand;
+        mDuration = duration;
+        mTimeline = lastStartOffset + duration;
+    }
+
+    /**
+     * Animates the children from where they are to the given state.
+     */
+    void animateTo(final boolean expand, final long duration) {
+        prepare(expand, duration);
+
+        if (mAnimator == null) {
+            mAnimator = ValueAnimator.ofFloat(0, 1);
+            mAnimator.setInterpolator(new LinearInterpolator());
+            mAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    mFraction = (Float) animation.getAnimatedValue();
+                    apply();
+                }
+            });
+        }
+
+        final float target = expand ? 1 : 0;
+        mAnimator.cancel();
+        mAnimator.setFloatValues(mFraction, target);
+        mAnimator.setDuration((long) (mTimeline * Math.abs(target - mFromFraction)));
+        mAnimator.start();
+    }
+
+    /**
+     * Moves the children along the prepared transition, as a finger does.
+     */
+    void scrubTo(final float fraction) {
+        mFraction = Math.max(0, Math.min(1, fraction));
+        apply();
+    }
+
+    /**
+     * Stops any transition and puts every child at the given fraction at once.
+     */
+    void setFraction(final float fraction) {
+        cancel();
+
+        mFraction = fraction;
+        mFromFraction = fraction;
+        Arrays.fill(mFromExpansions, fraction);
+        apply();
+    }
+
+    void cancel() {
+        if (mAnimator != null) {
+            mAnimator.cancel();
+        }
+    }
+
+    /**
+     * Moves every child from its expanded frame towards the collapsed frame according to the
+     * current fraction. Only view properties are touched, so no layout is requested.
+     */
+    void apply() {
+        final Rect collapsedFrame = mCollapsedFrame;
+        mHost.computeCollapsedFrame(collapsedFrame);
+
+        final int childCount = mHost.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            final View child = mHost.getChildAt(i);
+            final float expansion = computeChildExpansion(i);
+            final float remaining = 1 - expansion;
+            final float scale = Math.max(0, Math.min(1, expansion));
+
+            child.setTranslationX((collapsedFrame.left - child.getLeft()) * remaining);
+            child.setTranslationY((collapsedFrame.top - child.getTop()) * remaining);
+            child.setRotation(mCollapsedRotation * remaining);
+            child.setScaleX(scale);
+            child.setScaleY(scale);
+            child.setVisibility(remaining == 1 ? View.INVISIBLE : View.VISIBLE);
+        }
+    }
+
+    /**
+     * Gives the children back the properties they have without any expansion.
+     */
+    void clear() {
+        final int childCount = mHost.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            final View child = mHost.getChildAt(i);
+            child.setTranslationX(0);
+            child.setTranslationY(0);
+            child.setRotation(0);
+            child.setScaleX(1);
+            child.setScaleY(1);
+            child.setVisibility(View.VISIBLE);
+        }
+    }
+
+    /**
+     * @return how far the child at index is expanded at the current fraction, taking its start
+     *         offset, the interpolator of the current direction and where it started from into
+     *         account
+     */
+    float computeChildExpansion(final int index) {
+        final float target = mExpanding ? 1 : 0;
+        if (mFraction == target || mFromFraction == target || index >= mStartOffsets.length) {
+            return mFraction;
+        }
+
+        final float elapsed = (mFraction - mFromFraction) / (target - mFromFraction) * mTimeline;
+        final float progress = Math.max(0, Math.min(1, (elapsed - mStartOffsets[index]) / (float) mDuration));
+        final float interpolated = mExpanding ? mExpandInterpolator.getInterpolation(progress)
+                : mShrinkInterpolator.getInterpolation(progress);
+
+        return mFromExpansions[index] + (target - mFromExpansions[index]) * interpolated;
+    }
+}
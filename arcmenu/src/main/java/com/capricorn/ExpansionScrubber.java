@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2012 Capricorn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.capricorn;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+
+/**
+ * Lets a finger pressed on the switch button drag the children of a menu out. The expansion
+ * fraction follows the distance from the press, and on release the velocity of the finger away
+ * from, or back to, the button decides whether the expansion completes or is cancelled. Releasing
+ * over a child clicks it, so an item is picked in one gesture. A tap toggles the menu as before.
+ */
+class ExpansionScrubber implements View.OnTouchListener {
+
+    /**
+     * A layout whose expansion can follow a finger.
+     */
+    interface Target {
+        boolean isExpanded();
+
+        void switchState(boolean showAnimation);
+
+        boolean beginScrub();
+
+        void scrubTo(float fraction);
+
+        void endScrub(boolean expand);
+
+        int getScrubDistance();
+
+        int getChildCount();
+
+        View getChildAt(int index);
+
+        void getLocationOnScreen(int[] location);
+    }
+
+    interface Callback {
+        /**
+         * Called when the menu starts to switch, or when a dragged expansion is cancelled.
+         *
+         * @param expanded whether the menu was expanded before the switch
+         */
+        void onSwitch(boolean expanded);
+    }
+
+    private final Target mTarget;
+
+    private final Callback mCallback;
+
+    private final int mTouchSlop;
+
+    private final int mMinimumFlingVelocity;
+
+    private final int mMaximumFlingVelocity;
+
+    /* reused for every hit test */
+    private final int[] mLocation = new int[2];
+
+    private VelocityTracker mVelocityTracker;
+
+    private boolean mScrubbing = false;
+
+    /* whether the finger went past the touch slop since it was pressed */
+    private boolean mDragged = false;
+
+    private float mDownX;
+
+    private float mDownY;
+
+    private float mFraction;
+
+    ExpansionScrubber(Context context, Target target, Callback callback) {
+        mTarget = target;
+        mCallback = callback;
+
+        final ViewConfiguration configuration = ViewConfiguration.get(context);
+        mTouchSlop = configuration.getScaledTouchSlop();
+        mMinimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        mMaximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+    }
+
+    @Override
+    public boolean onTouch(View v, MotionEvent event) {
+        switch (event.getActionMasked()) {
+        case MotionEvent.ACTION_DOWN:
+            if (mTarget.isExpanded() || !mTarget.beginScrub()) {
+                // Shrinking, or view animations, which cannot follow the finger
+                mCallback.onSwitch(mTarget.isExpanded());
+                mTarget.switchState(true);
+                return false;
+            }
+
+            mScrubbing = true;
+            mDragged = false;
+            mFraction = 0;
+            mDownX = event.getRawX();
+            mDownY = event.getRawY();
+            if (mVelocityTracker == null) {
+                mVelocityTracker = VelocityTracker.obtain();
+            }
+            mVelocityTracker.addMovement(event);
+            mCallback.onSwitch(false);
+            return false;
+
+        case MotionEvent.ACTION_MOVE:
+            if (!mScrubbing) {
+                return false;
+            }
+
+            mVelocityTracker.addMovement(event);
+            final float distance = distanceFromDown(event);
+            if (!mDragged && distance > mTouchSlop) {
+                mDragged = true;
+            }
+            if (mDragged) {
+                mFraction = Math.min(1, distance / mTarget.getScrubDistance());
+                mTarget.scrubTo(mFraction);
+            }
+            return true;
+
+        case MotionEvent.ACTION_UP:
+            if (!mScrubbing) {
+                return false;
+            }
+
+            mVelocityTracker.addMovement(event);
+            final boolean expand = !mDragged || shouldComplete(event);
+            final View item = expand && mDragged ? findChildAt(event.getRawX(), event.getRawY()) : null;
+            endScrub(expand);
+            // the view pressed itself on the down it was passed, and does not see this up
+            v.setPressed(false);
+            if (item != null) {
+                item.performClick();
+            }
+            return true;
+
+        case MotionEvent.ACTION_CANCEL:
+            if (mScrubbing) {
+                endScrub(false);
+            }
+            v.setPressed(false);
+            return false;
+
+        default:
+            return mScrubbing;
+        }
+    }
+
+    private float distanceFromDown(MotionEvent event) {
+        final float dx = event.getRawX() - mDownX;
+        final float dy = event.getRawY() - mDownY;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * A fling away from the button completes the expansion and a fling back cancels it. A slower
+     * release completes it once the children are at least half way out.
+     */
+    private boolean shouldComplete(MotionEvent event) {
+        mVelocityTracker.computeCurrentVelocity(1000, mMaximumFlingVelocity);
+
+        final float dx = event.getRawX() - mDownX;
+        final float dy = event.getRawY() - mDownY;
+        final float distance = (float) Math.sqrt(dx * dx + dy * dy);
+        if (distance > 0) {
+            // the velocity along the line from the press to the finger
+            final float velocity = (mVelocityTracker.getXVelocity() * dx + mVelocityTracker.getYVelocity() * dy)
+                    / distance;
+            if (Math.abs(velocity) > mMinimumFlingVelocity) {
+                return velocity > 0;
+            }
+        }
+        return mFraction >= 0.5f;
+    }
+
+    private void endScrub(boolean expand) {
+        mScrubbing = false;
+        mVelocityTracker.recycle();
+        mVelocityTracker = null;
+
+        mTarget.endScrub(expand);
+        if (!expand) {
+            mCallback.onSwitch(true);
+        }
+    }
+
+    /**
+     * @return the visible child whose expanded frame contains the given point on screen, or null
+     */
+    private View findChildAt(float rawX, float rawY) {
+        mTarget.getLocationOnScreen(mLocation);
+        final float x = rawX - mLocation[0];
+        final float y = rawY - mLocation[1];
+
+        // children stay laid out at their expanded frames while their expansion is animated
+        final int childCount = mTarget.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            final View child = mTarget.getChildAt(i);
+            if (child.getVisibility() == View.VISIBLE && x >= child.getLeft() && x < child.getRight()
+                    && y >= child.getTop() && y < child.getBottom()) {
+                return child;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2012 Capricorn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.capricorn;
+
+/**
+ * The measuring and positioning math of {@link ArcLayout} and {@link RayLayout}.
+ * It is plain Java, without any Android dependency, so it can be benchmarked on any JVM.
+ */
+final class LayoutGeometry {
+
+    private LayoutGeometry() {
+    }
+
+    /**
+     * @return the smallest radius that keeps children of the given size apart on an arc
+     */
+    static int computeRadius(final float arcDegrees, final int childCount, final int childSize,
+            final int childPadding, final int minRadius) {
+        if (childCount < 2) {
+            return minRadius;
+        }
+
+        final float perDegrees = arcDegrees / (childCount - 1);
+        final float perHalfDegrees = perDegrees / 2;
+        final int perSize = childSize + childPadding;
+
+        final int radius = (int) ((perSize / 2) / Math.sin(Math.toRadians(perHalfDegrees)));
+
+        return Math.max(radius, minRadius);
+    }
+
+    /**
+     * Fills the tables with the unit vectors pointing from the center of an arc to each child.
+     */
+    static void computeDirections(final float fromDegrees, final float toDegrees, final int childCount,
+            final float[] outX, final float[] outY) {
+        final float perDegrees = (toDegrees - fromDegrees) / (childCount - 1);
+
+        float degrees = fromDegrees;
+        for (int i = 0; i < childCount; i++) {
+            final double radians = Math.toRadians(degrees);
+            outX[i] = (float) Math.cos(radians);
+            outY[i] = (float) Math.sin(radians);
+            degrees += perDegrees;
+        }
+    }
+
+    /**
+     * @return the left (or top) edge of a child placed on an arc, along one axis
+     */
+    static int computeChildStart(final int center, final int radius, final float direction, final int size) {
+        return (int) (center + radius * (double) direction - size / 2);
+    }
+
+    /**
+     * @return the right (or bottom) edge of a child placed on an arc, along one axis
+     */
+    static int computeChildEnd(final int center, final int radius, final float direction, final int size) {
+        return (int) (center + radius * (double) direction + size / 2);
+    }
+
+    /**
+     * @return the gap between children laid out in a row
+     */
+    static int computeChildGap(final float width, final int childCount, final int childSize, final int minGap) {
+        return Math.max((int) (width / childCount - childSize), minGap);
+    }
+
+    /**
+     * @return the left edge of a child laid out in a row, or centered in the holder when collapsed
+     */
+    static int computeRowChildLeft(final boolean expanded, final int paddingLeft, final int childIndex,
+            final int gap, final int size) {
+        return expanded ? (paddingLeft + childIndex * (gap + size) + gap) : ((paddingLeft - size) / 2);
+    }
+
+    /**
+     * The first half of the start offset computation, which refers to
+     * {@code LayoutAnimationController#getDelayForView(View)}.
+     *
+     * @param transformedIndex the order in which the child starts
+     * @return the delay of the child relative to the total delay, before interpolation
+     */
+    static float computeNormalizedDelay(final int childCount, final int transformedIndex,
+            final float delayPercent, final long duration) {
+        final float delay = delayPercent * duration;
+        final long viewDelay = (long) (transformedIndex * delay);
+        final float totalDelay = delay * childCount;
+
+        return viewDelay / totalDelay;
+    }
+
+    /**
+     * The second half of the start offset computation.
+     *
+     * @param interpolatedDelay the normalized delay, once interpolated
+     * @return the start offset of the child, in milliseconds
+     */
+    static long computeStartOffset(final int childCount, final float interpolatedDelay,
+            final float delayPercent, final long duration) {
+        final float totalDelay = delayPercent * duration * childCount;
+
+        return (long) (interpolatedDelay * totalDelay);
+    }
+}
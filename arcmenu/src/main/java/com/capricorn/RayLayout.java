@@ -3,9 +3,14 @@ package com.capricorn;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Rect;
+import android.os.Build;
 import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.WindowManager;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.Animation;
 import android.view.animation.AnimationSet;
@@ -14,8 +19,11 @@ import android.view.animation.LinearInterpolator;
 import android.view.animation.OvershootInterpolator;
 import android.view.animation.RotateAnimation;
 import android.view.animation.Animation.AnimationListener;
+import android.widget.OverScroller;
 
-public class RayLayout extends ViewGroup {
+import java.util.ArrayList;
+
+public class RayLayout extends ViewGroup implements ExpansionScrubber.Target {
 
 	/**
 	 * children will be set the same size.
@@ -30,6 +38,74 @@ public class RayLayout extends ViewGroup {
 
 	private boolean mExpanded = false;
 
+	/* reused for every frame computed during layout and animation binding */
+	private final Rect mChildFrame = new Rect();
+
+	/*
+	 * when enabled, children always stay laid out at their expanded frames and the expansion is
+	 * drawn by translating, rotating, scaling and hiding them, so toggling never requests a layout
+	 */
+	private boolean mPropertyAnimation = false;
+
+	/* whether the expansion fraction follows a finger rather than the animator */
+	private boolean mScrubbing = false;
+
+	private MenuMetricsListener mMetricsListener;
+
+	/* measures the transitions while a metrics listener is set */
+	private TransitionMonitor mTransitionMonitor;
+
+	/* drives the children's properties in property animation mode */
+	private final ChildExpansion mExpansion = new ChildExpansion(new ChildExpansion.Host() {
+
+		@Override
+		public int getChildCount() {
+			return RayLayout.this.getChildCount();
+		}
+
+		@Override
+		public View getChildAt(int index) {
+			return RayLayout.this.getChildAt(index);
+		}
+
+		@Override
+		public void computeCollapsedFrame(Rect outFrame) {
+			computeItemFrame(false, 0, outFrame);
+		}
+
+		@Override
+		public long computeStartOffset(int childCount, boolean expand, int index, long duration,
+				Interpolator interpolator) {
+			return RayLayout.computeStartOffset(childCount, !expand, index, 0.1f, duration, interpolator);
+		}
+	});
+
+	/*
+	 * when enabled, the row scrolls horizontally once its items do not fit, and only the items in
+	 * the viewport, plus a margin, are attached as children
+	 */
+	private boolean mOverflow = false;
+
+	/* every item in overflow mode, attached or not, in order */
+	private final ArrayList<View> mOverflowItems = new ArrayList<View>();
+
+	/* the item index of the first attached child in overflow mode */
+	private int mFirstAttached = 0;
+
+	private OverScroller mScroller;
+
+	private VelocityTracker mVelocityTracker;
+
+	private boolean mIsBeingDragged = false;
+
+	private float mLastMotionX;
+
+	private int mTouchSlop;
+
+	private int mMinimumFlingVelocity;
+
+	private int mMaximumFlingVelocity;
+
 	public RayLayout(Context context) {
 		super(context);
 	}
@@ -49,15 +125,11 @@ public class RayLayout extends ViewGroup {
 		}
 	}
 
-	private static int computeChildGap(final float width, final int childCount, final int childSize, final int minGap) {
-		return Math.max((int) (width / childCount - childSize), minGap);
-	}
+	private static void computeChildFrame(final boolean expanded, final int paddingLeft, final int childIndex,
+			final int gap, final int size, final Rect outFrame) {
+		final int left = LayoutGeometry.computeRowChildLeft(expanded, paddingLeft, childIndex, gap, size);
 
-	private static Rect computeChildFrame(final boolean expanded, final int paddingLeft, final int childIndex,
-			final int gap, final int size) {
-		final int left = expanded ? (paddingLeft + childIndex * (gap + size) + gap) : ((paddingLeft - size) / 2);
-
-		return new Rect(left, 0, left + size, size);
+		outFrame.set(left, 0, left + size, size);
 	}
 
 	@Override
@@ -65,34 +137,70 @@ public class RayLayout extends ViewGroup {
 		return mChildSize;
 	}
 
+	/**
+	 * Computes the frame of the child at index, kept under the switch button when collapsed
+	 * whatever the row is scrolled to.
+	 */
+	private void computeItemFrame(final boolean expanded, final int childIndex, final Rect outFrame) {
+		computeChildFrame(expanded, mLeftHolderWidth, getItemIndex(childIndex), mChildGap, mChildSize, outFrame);
+		if (!expanded) {
+			outFrame.offset(getScrollX(), 0);
+		}
+	}
+
+	/**
+	 * @return the number of items, attached or not
+	 */
+	private int getItemCount() {
+		return mOverflow ? mOverflowItems.size() : getChildCount();
+	}
+
+	private int getItemIndex(final int childIndex) {
+		return mOverflow ? mFirstAttached + childIndex : childIndex;
+	}
+
 	@Override
 	protected int getSuggestedMinimumWidth() {
-		return mLeftHolderWidth + mChildSize * getChildCount();
+		return mLeftHolderWidth + mChildSize * (mOverflow ? 1 : getChildCount());
 	}
 
 	@Override
 	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
 		super.onMeasure(widthMeasureSpec, MeasureSpec.makeMeasureSpec(getSuggestedMinimumHeight(), MeasureSpec.EXACTLY));
 
-		final int count = getChildCount();
-		mChildGap = computeChildGap(getMeasuredWidth() - mLeftHolderWidth, count, mChildSize, 0);
+		// in overflow mode the gap stops shrinking at a quarter of a child, and the row scrolls instead
+		mChildGap = LayoutGeometry.computeChildGap(getMeasuredWidth() - mLeftHolderWidth, getItemCount(), mChildSize,
+				mOverflow ? mChildSize / 4 : 0);
 
+		final int count = getChildCount();
 		for (int i = 0; i < count; i++) {
-			getChildAt(i).measure(MeasureSpec.makeMeasureSpec(mChildSize, MeasureSpec.EXACTLY),
-					MeasureSpec.makeMeasureSpec(mChildSize, MeasureSpec.EXACTLY));
+			measureItem(getChildAt(i));
 		}
 	}
 
+	private void measureItem(final View child) {
+		child.measure(MeasureSpec.makeMeasureSpec(mChildSize, MeasureSpec.EXACTLY),
+				MeasureSpec.makeMeasureSpec(mChildSize, MeasureSpec.EXACTLY));
+	}
+
 	@Override
 	protected void onLayout(boolean changed, int l, int t, int r, int b) {
-		final int paddingLeft = mLeftHolderWidth;
+		if (mOverflow) {
+			scrollTo(getScrollX(), 0);
+			updateAttachedItems();
+		}
+
 		final int childCount = getChildCount();
 
+		final Rect frame = mChildFrame;
 		for (int i = 0; i < childCount; i++) {
-			Rect frame = computeChildFrame(mExpanded, paddingLeft, i, mChildGap, mChildSize);
+			computeItemFrame(mExpanded || mPropertyAnimation, i, frame);
 			getChildAt(i).layout(frame.left, frame.top, frame.right, frame.bottom);
 		}
 
+		if (mPropertyAnimation) {
+			mExpansion.apply();
+		}
 	}
 
 	/**
@@ -100,14 +208,11 @@ public class RayLayout extends ViewGroup {
 	 */
 	private static long computeStartOffset(final int childCount, final boolean expanded, final int index,
 			final float delayPercent, final long duration, Interpolator interpolator) {
-		final float delay = delayPercent * duration;
-		final long viewDelay = (long) (getTransformedIndex(expanded, childCount, index) * delay);
-		final float totalDelay = delay * childCount;
+		final float normalizedDelay = LayoutGeometry.computeNormalizedDelay(childCount,
+				getTransformedIndex(expanded, childCount, index), delayPercent, duration);
 
-		float normalizedDelay = viewDelay / totalDelay;
-		normalizedDelay = interpolator.getInterpolation(normalizedDelay);
-
-		return (long) (normalizedDelay * totalDelay);
+		return LayoutGeometry.computeStartOffset(childCount, interpolator.getInterpolation(normalizedDelay),
+				delayPercent, duration);
 	}
 
 	private static int getTransformedIndex(final boolean expanded, final int count, final int index) {
@@ -154,7 +259,8 @@ public class RayLayout extends ViewGroup {
 	private void bindChildAnimation(final View child, final int index, final long duration) {
 		final boolean expanded = mExpanded;
 		final int childCount = getChildCount();
-		Rect frame = computeChildFrame(!expanded, mLeftHolderWidth, index, mChildGap, mChildSize);
+		final Rect frame = mChildFrame;
+		computeItemFrame(!expanded, index, frame);
 
 		final int toXDelta = frame.left - child.getLeft();
 		final int toYDelta = frame.top - child.getTop();
@@ -195,10 +301,153 @@ public class RayLayout extends ViewGroup {
 		child.setAnimation(animation);
 	}
 
+	/**
+	 * Starts an expansion whose fraction follows {@link #scrubTo(float)} rather than an animator, as
+	 * when a finger drags the children out of the switch button. Only available in property
+	 * animation mode, since view animations cannot be driven by a fraction.
+	 * 
+	 * @return false if the layout is not shrunk or not in property animation mode
+	 */
+	public boolean beginScrub() {
+		if (!mPropertyAnimation || mExpanded || mScrubbing) {
+			return false;
+		}
+
+		if (mOverflow) {
+			// the row always expands from its first items
+			scrollTo(0, 0);
+		}
+
+		mExpansion.cancel();
+		mScrubbing = true;
+		mExpansion.prepare(true, 300);
+
+		if (mTransitionMonitor != null) {
+			mTransitionMonitor.begin(true);
+		}
+		return true;
+	}
+
+	/**
+	 * Moves the children to the given expansion fraction. Only transforms are updated, so a call per
+	 * touch event costs no layout pass.
+	 * 
+	 * @param fraction 0 for shrunk, 1 for expanded
+	 */
+	public void scrubTo(float fraction) {
+		if (!mScrubbing) {
+			return;
+		}
+
+		mExpansion.scrubTo(fraction);
+	}
+
+	/**
+	 * Ends the expansion started by {@link #beginScrub()}, animating the children from where the
+	 * finger left them.
+	 * 
+	 * @param expand true to complete the expansion, false to cancel it
+	 */
+	public void endScrub(boolean expand) {
+		if (!mScrubbing) {
+			return;
+		}
+
+		mScrubbing = false;
+		mExpanded = expand;
+		mExpansion.animateTo(expand, 300);
+	}
+
+	public boolean isScrubbing() {
+		return mScrubbing;
+	}
+
+	/**
+	 * @return the distance a finger has to travel from the switch button to expand the children,
+	 *		 half of the row
+	 */
+	public int getScrubDistance() {
+		return Math.max((mChildGap + mChildSize) * getChildCount() / 2, mChildSize);
+	}
+
 	public boolean isExpanded() {
 		return mExpanded;
 	}
 
+	/**
+	 * Sets a listener that receives the measurements of every expansion and shrinkage, such as the
+	 * latency of the first frame and the frames that were late. Frames are observed through
+	 * Choreographer, so nothing is reported before Jelly Bean.
+	 * 
+	 * @param listener the listener, or null to stop measuring
+	 */
+	public void setMetricsListener(MenuMetricsListener listener) {
+		mMetricsListener = listener;
+		if (listener == null) {
+			if (mTransitionMonitor != null) {
+				mTransitionMonitor.cancel();
+				mTransitionMonitor = null;
+			}
+		} else if (mTransitionMonitor == null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			final WindowManager windowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+			mTransitionMonitor = new TransitionMonitor(new TransitionMonitor.Callback() {
+
+				@Override
+				public boolean isTransitionRunning() {
+					return isAnimating();
+				}
+
+				@Override
+				public void onTransitionMeasured(TransitionMetrics metrics) {
+					if (mMetricsListener != null) {
+						mMetricsListener.onTransitionMeasured(RayLayout.this, metrics);
+					}
+				}
+			}, windowManager.getDefaultDisplay().getRefreshRate());
+		}
+	}
+
+	private boolean isAnimating() {
+		if (mPropertyAnimation) {
+			return mScrubbing || mExpansion.isRunning();
+		}
+
+		// view animations are cleared once all of them are over
+		final int childCount = getChildCount();
+		for (int i = 0; i < childCount; i++) {
+			if (getChildAt(i).getAnimation() != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Chooses how children are expanded and shrunk. When enabled, children stay laid out at their
+	 * expanded frames and are animated through their translation, rotation, scale and visibility,
+	 * which needs no layout pass per toggle and keeps touch targets where the children are drawn.
+	 * 
+	 * @param enabled true to animate with view properties, false for the legacy view animations
+	 */
+	public void setPropertyAnimationEnabled(boolean enabled) {
+		if (mPropertyAnimation == enabled) {
+			return;
+		}
+
+		mPropertyAnimation = enabled;
+		mScrubbing = false;
+		mExpansion.setFraction(mExpanded ? 1 : 0);
+		if (!enabled) {
+			mExpansion.clear();
+		}
+
+		requestLayout();
+	}
+
+	public boolean isPropertyAnimationEnabled() {
+		return mPropertyAnimation;
+	}
+
 	public void setChildSize(int size) {
 		if (mChildSize == size || size < 0) {
 			return;
@@ -209,12 +458,360 @@ public class RayLayout extends ViewGroup {
 		requestLayout();
 	}
 
+	/**
+	 * Chooses what happens once the items do not fit in the row. When enabled, the gap between items
+	 * stops shrinking at a quarter of an item and the expanded row scrolls horizontally instead.
+	 * Only the items in the viewport, plus one item on each side, are attached as children: the
+	 * others are not measured, laid out, drawn or animated, and are attached again, without a layout
+	 * pass, as they scroll in. Items are still added with {@link #addView(View)} and removed with
+	 * {@link #removeView(View)}.
+	 * 
+	 * @param enabled true to scroll the items that do not fit, false to squeeze them in the row
+	 */
+	public void setOverflowEnabled(boolean enabled) {
+		if (mOverflow == enabled) {
+			return;
+		}
+
+		if (enabled) {
+			mOverflowItems.clear();
+			final int childCount = getChildCount();
+			for (int i = 0; i < childCount; i++) {
+				mOverflowItems.add(getChildAt(i));
+			}
+			mFirstAttached = 0;
+			if (mScroller == null) {
+				final ViewConfiguration configuration = ViewConfiguration.get(getContext());
+				mScroller = new OverScroller(getContext());
+				mTouchSlop = configuration.getScaledTouchSlop();
+				mMinimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+				mMaximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+			}
+			mOverflow = true;
+		} else {
+			mOverflow = false;
+			mScroller.abortAnimation();
+			scrollTo(0, 0);
+			removeAllViewsInLayout();
+			for (int i = 0; i < mOverflowItems.size(); i++) {
+				addViewInLayout(mOverflowItems.get(i), -1, getItemLayoutParams(mOverflowItems.get(i)), true);
+			}
+			mOverflowItems.clear();
+		}
+
+		requestLayout();
+		invalidate();
+	}
+
+	public boolean isOverflowEnabled() {
+		return mOverflow;
+	}
+
+	@Override
+	public void addView(View child, int index, LayoutParams params) {
+		if (!mOverflow) {
+			super.addView(child, index, params);
+			return;
+		}
+
+		// the item is attached by the next layout if it is in the viewport
+		child.setLayoutParams(params);
+		mOverflowItems.add(index < 0 ? mOverflowItems.size() : Math.min(index, mOverflowItems.size()), child);
+		if (index >= 0 && index < mFirstAttached + getChildCount()) {
+			// the attached range moves with the items after the new one
+			removeAllViewsInLayout();
+			mFirstAttached = 0;
+		}
+		requestLayout();
+	}
+
+	@Override
+	public void removeView(View view) {
+		if (!mOverflow) {
+			super.removeView(view);
+			return;
+		}
+
+		final int index = mOverflowItems.indexOf(view);
+		if (index >= 0) {
+			removeItems(index, 1);
+		}
+	}
+
+	@Override
+	public void removeViewAt(int index) {
+		if (!mOverflow) {
+			super.removeViewAt(index);
+			return;
+		}
+
+		removeItems(index, 1);
+	}
+
+	@Override
+	public void removeViews(int start, int count) {
+		if (!mOverflow) {
+			super.removeViews(start, count);
+			return;
+		}
+
+		removeItems(start, count);
+	}
+
+	@Override
+	public void removeAllViews() {
+		if (!mOverflow) {
+			super.removeAllViews();
+			return;
+		}
+
+		removeItems(0, mOverflowItems.size());
+	}
+
+	/**
+	 * Removes items of an overflowing row, whether they are attached or not.
+	 */
+	private void removeItems(final int start, final int count) {
+		mOverflowItems.subList(start, start + count).clear();
+		if (start < mFirstAttached + getChildCount()) {
+			// the attached range moves with the items after the removed ones
+			removeAllViewsInLayout();
+			mFirstAttached = 0;
+		}
+		// the row may have become shorter than its scroll
+		scrollTo(getScrollX(), getScrollY());
+		requestLayout();
+		invalidate();
+	}
+
+	private LayoutParams getItemLayoutParams(final View item) {
+		final LayoutParams params = item.getLayoutParams();
+		return params != null ? params : generateDefaultLayoutParams();
+	}
+
+	/**
+	 * @return how far the row can scroll, 0 when the items fit
+	 */
+	private int getMaxScrollX() {
+		final int count = getItemCount();
+		final int contentWidth = mLeftHolderWidth + count * (mChildGap + mChildSize);
+		if (contentWidth <= getWidth()) {
+			return 0;
+		}
+		// an overflowing row ends with a gap after its last item
+		return contentWidth + mChildGap - getWidth();
+	}
+
+	@Override
+	public void scrollTo(int x, int y) {
+		super.scrollTo(mOverflow ? Math.max(0, Math.min(x, getMaxScrollX())) : x, y);
+	}
+
+	@Override
+	protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+		super.onScrollChanged(l, t, oldl, oldt);
+
+		if (mOverflow && updateAttachedItems() && mPropertyAnimation) {
+			mExpansion.apply();
+		}
+	}
+
+	/**
+	 * Attaches the items that scrolled into the viewport, plus a margin of one item on each side,
+	 * and removes the others. New children are measured and laid out right away, so scrolling
+	 * never requests a layout.
+	 * 
+	 * @return whether any child was attached or removed
+	 */
+	private boolean updateAttachedItems() {
+		final int count = mOverflowItems.size();
+		final int step = mChildGap + mChildSize;
+		if (step <= 0 || getWidth() == 0) {
+			return false;
+		}
+
+		// the left edge of the item i is mLeftHolderWidth + i * step + mChildGap
+		final int viewportLeft = getScrollX() - step;
+		final int viewportRight = getScrollX() + getWidth() + step;
+		final int first = Math.max(0,
+				(int) Math.floor((viewportLeft - mLeftHolderWidth - mChildGap - mChildSize) / (float) step) + 1);
+		final int last = Math.min(count,
+				(int) Math.ceil((viewportRight - mLeftHolderWidth - mChildGap) / (float) step));
+
+		boolean changed = false;
+		while (getChildCount() > 0 && (mFirstAttached < first || mFirstAttached >= last)) {
+			detachItem(0);
+			mFirstAttached++;
+			changed = true;
+		}
+		while (getChildCount() > 0 && mFirstAttached + getChildCount() > last) {
+			detachItem(getChildCount() - 1);
+			changed = true;
+		}
+		if (getChildCount() == 0) {
+			mFirstAttached = first;
+		}
+		while (mFirstAttached > first) {
+			mFirstAttached--;
+			attachItem(0);
+			changed = true;
+		}
+		while (mFirstAttached + getChildCount() < last) {
+			attachItem(getChildCount());
+			changed = true;
+		}
+		return changed;
+	}
+
+	private void detachItem(final int childIndex) {
+		final View child = getChildAt(childIndex);
+		// a running view animation would keep drawing it as a disappearing child
+		child.clearAnimation();
+		removeViewInLayout(child);
+		if (mTransitionMonitor != null) {
+			mTransitionMonitor.onViewDetached();
+		}
+	}
+
+	private void attachItem(final int childIndex) {
+		final View item = mOverflowItems.get(mFirstAttached + childIndex);
+		addViewInLayout(item, childIndex, getItemLayoutParams(item), true);
+		if (mTransitionMonitor != null) {
+			mTransitionMonitor.onViewAttached();
+		}
+		measureItem(item);
+
+		final Rect frame = mChildFrame;
+		computeItemFrame(mExpanded || mPropertyAnimation, childIndex, frame);
+		item.layout(frame.left, frame.top, frame.right, frame.bottom);
+	}
+
+	@Override
+	public boolean onInterceptTouchEvent(MotionEvent ev) {
+		if (!mOverflow || !mExpanded || getMaxScrollX() == 0) {
+			return false;
+		}
+
+		switch (ev.getActionMasked()) {
+		case MotionEvent.ACTION_DOWN:
+			mLastMotionX = ev.getX();
+			// a touch stops a fling, and keeps scrolling the row
+			mIsBeingDragged = !mScroller.isFinished();
+			mScroller.abortAnimation();
+			break;
+
+		case MotionEvent.ACTION_MOVE:
+			if (Math.abs(ev.getX() - mLastMotionX) > mTouchSlop) {
+				mIsBeingDragged = true;
+				mLastMotionX = ev.getX();
+			}
+			break;
+
+		case MotionEvent.ACTION_UP:
+		case MotionEvent.ACTION_CANCEL:
+			mIsBeingDragged = false;
+			break;
+		}
+
+		if (mIsBeingDragged) {
+			trackMovement(ev);
+		}
+		return mIsBeingDragged;
+	}
+
+	@Override
+	public boolean onTouchEvent(MotionEvent ev) {
+		if (!mOverflow || !mExpanded) {
+			return super.onTouchEvent(ev);
+		}
+
+		trackMovement(ev);
+		switch (ev.getActionMasked()) {
+		case MotionEvent.ACTION_DOWN:
+			mLastMotionX = ev.getX();
+			mScroller.abortAnimation();
+			mIsBeingDragged = getMaxScrollX() > 0;
+			return mIsBeingDragged;
+
+		case MotionEvent.ACTION_MOVE:
+			if (mIsBeingDragged) {
+				scrollBy((int) (mLastMotionX - ev.getX()), 0);
+				mLastMotionX = ev.getX();
+			}
+			return true;
+
+		case MotionEvent.ACTION_UP:
+			if (mIsBeingDragged) {
+				mVelocityTracker.computeCurrentVelocity(1000, mMaximumFlingVelocity);
+				final int velocity = (int) mVelocityTracker.getXVelocity();
+				if (Math.abs(velocity) > mMinimumFlingVelocity) {
+					mScroller.fling(getScrollX(), 0, -velocity, 0, 0, getMaxScrollX(), 0, 0);
+					invalidate();
+				}
+			}
+			endDrag();
+			return true;
+
+		case MotionEvent.ACTION_CANCEL:
+			endDrag();
+			return true;
+
+		default:
+			return true;
+		}
+	}
+
+	private void trackMovement(MotionEvent ev) {
+		if (mVelocityTracker == null) {
+			mVelocityTracker = VelocityTracker.obtain();
+		}
+		mVelocityTracker.addMovement(ev);
+	}
+
+	private void endDrag() {
+		mIsBeingDragged = false;
+		if (mVelocityTracker != null) {
+			mVelocityTracker.recycle();
+			mVelocityTracker = null;
+		}
+	}
+
+	@Override
+	public void computeScroll() {
+		if (mScroller != null && mScroller.computeScrollOffset()) {
+			scrollTo(mScroller.getCurrX(), 0);
+			invalidate();
+		}
+	}
+
 	/**
 	 * switch between expansion and shrinkage
 	 * 
 	 * @param showAnimation
 	 */
 	public void switchState(final boolean showAnimation) {
+		if (mOverflow && !mExpanded) {
+			// the row always expands from its first items
+			if (mScroller != null) {
+				mScroller.abortAnimation();
+			}
+			scrollTo(0, 0);
+		}
+
+		if (mTransitionMonitor != null) {
+			mTransitionMonitor.begin(!mExpanded);
+		}
+
+		if (mPropertyAnimation) {
+			mExpanded = !mExpanded;
+			if (showAnimation) {
+				mExpansion.animateTo(mExpanded, 300);
+			} else {
+				mExpansion.setFraction(mExpanded ? 1 : 0);
+			}
+			return;
+		}
+
 		if (showAnimation) {
 			final int childCount = getChildCount();
 			for (int i = 0; i < childCount; i++) {
@@ -3,7 +3,6 @@ package com.capricorn;
 import android.content.Context;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
-import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.animation.AlphaAnimation;
@@ -42,27 +41,68 @@ public class RayMenu extends RelativeLayout {
 
 		final ViewGroup controlLayout = (ViewGroup) findViewById(R.id.control_layout);
 		controlLayout.setClickable(true);
-		controlLayout.setOnTouchListener(new OnTouchListener() {
+		controlLayout.setOnTouchListener(new ExpansionScrubber(context, mRayLayout, new ExpansionScrubber.Callback() {
 
 			@Override
-			public boolean onTouch(View v, MotionEvent event) {
-				if (event.getAction() == MotionEvent.ACTION_DOWN) {
-					mHintView.startAnimation(createHintSwitchAnimation(mRayLayout.isExpanded()));
-					mRayLayout.switchState(true);
-				}
-
-				return false;
+			public void onSwitch(boolean expanded) {
+				mHintView.startAnimation(createHintSwitchAnimation(expanded));
 			}
-		});
+		}));
 
 		mHintView = (ImageView) findViewById(R.id.control_hint);
 	}
 
+	/**
+	 * When enabled, a finger dragged from the switch button also pulls the items out, and releasing
+	 * it over an item clicks that item.
+	 * 
+	 * @see RayLayout#setPropertyAnimationEnabled(boolean)
+	 */
+	public void setPropertyAnimationEnabled(boolean enabled) {
+		mRayLayout.setPropertyAnimationEnabled(enabled);
+	}
+
+	/**
+	 * @see RayLayout#setOverflowEnabled(boolean)
+	 */
+	public void setOverflowEnabled(boolean enabled) {
+		mRayLayout.setOverflowEnabled(enabled);
+	}
+
+	/**
+	 * Sets a listener that receives the measurements of every expansion and shrinkage of this menu.
+	 * 
+	 * @see RayLayout#setMetricsListener(MenuMetricsListener)
+	 * @param listener the listener, or null to stop measuring
+	 */
+	public void setMetricsListener(final MenuMetricsListener listener) {
+		mRayLayout.setMetricsListener(listener == null ? null : new MenuMetricsListener() {
+
+			@Override
+			public void onTransitionMeasured(View menu, TransitionMetrics metrics) {
+				listener.onTransitionMeasured(RayMenu.this, metrics);
+			}
+		});
+	}
+
 	public void addItem(View item, OnClickListener listener) {
 		mRayLayout.addView(item);
 		item.setOnClickListener(getItemClickListener(listener));
 	}
 
+	/**
+	 * Adds an item showing an icon of a sprite sheet. Items of the same sheet, in this menu or in
+	 * any other, share a single decoded bitmap.
+	 * 
+	 * @param sheet the sheet holding the icon
+	 * @param index the index of the icon in the sheet
+	 */
+	public void addItem(SpriteSheet sheet, int index, OnClickListener listener) {
+		ImageView item = new ImageView(getContext());
+		item.setImageDrawable(sheet.getIcon(index));
+		addItem(item, listener);
+	}
+
 	private OnClickListener getItemClickListener(final OnClickListener listener) {
 		return new OnClickListener() {
 
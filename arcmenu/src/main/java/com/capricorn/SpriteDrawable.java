@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2012 Capricorn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.capricorn;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Draws a single cell of a {@link SpriteSheet}, scaled to its bounds.
+ */
+class SpriteDrawable extends Drawable {
+
+    private final Bitmap mBitmap;
+
+    /* the cell of the sheet, in the pixels of the bitmap */
+    private final Rect mSource;
+
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG);
+
+    SpriteDrawable(Bitmap bitmap, Rect source) {
+        mBitmap = bitmap;
+        mSource = source;
+    }
+
+    /**
+     * @return the bitmap of the sheet this icon is drawn from
+     */
+    Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    /**
+     * @return the cell of the sheet, in the pixels of the bitmap
+     */
+    Rect getSource() {
+        return mSource;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        canvas.drawBitmap(mBitmap, mSource, getBounds(), mPaint);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return mSource.width();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return mSource.height();
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (mPaint.getAlpha() != alpha) {
+            mPaint.setAlpha(alpha);
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2012 Capricorn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.capricorn;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * A bitmap holding the icons of menu items in a grid of equally sized cells, read from left to
+ * right and top to bottom. A sheet is decoded once and shared by every menu that uses it, as long
+ * as one of its icons is alive, and each item draws its icon from its cell, so a menu costs one
+ * decode and one texture upload per sheet rather than one per item.
+ * Sheets are meant to be used from the main thread.
+ */
+public class SpriteSheet {
+
+    /* decoded sheets by drawable resource, kept while one of their icons is referenced */
+    private static final SparseArray<WeakReference<Bitmap>> sBitmaps = new SparseArray<WeakReference<Bitmap>>();
+
+    private final Bitmap mBitmap;
+
+    private final int mColumns;
+
+    private final int mCellWidth;
+
+    private final int mCellHeight;
+
+    private final int mCount;
+
+    private SpriteSheet(Bitmap bitmap, int columns, int rows) {
+        mBitmap = bitmap;
+        mColumns = columns;
+        mCellWidth = bitmap.getWidth() / columns;
+        mCellHeight = bitmap.getHeight() / rows;
+        mCount = columns * rows;
+    }
+
+    /**
+     * @param drawableRes a bitmap resource
+     * @param columns the number of icons in a row of the sheet
+     * @param rows the number of icons in a column of the sheet
+     * @return the sheet, sharing the bitmap decoded for any previous sheet of the same resource
+     */
+    public static SpriteSheet get(Context context, int drawableRes, int columns, int rows) {
+        if (columns <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("A sprite sheet needs at least one column and one row");
+        }
+
+        final WeakReference<Bitmap> reference = sBitmaps.get(drawableRes);
+        Bitmap bitmap = reference == null ? null : reference.get();
+        if (bitmap == null || bitmap.isRecycled()) {
+            final Resources resources = context.getResources();
+            bitmap = BitmapFactory.decodeResource(resources, drawableRes);
+            if (bitmap == null) {
+                throw new IllegalArgumentException("Resource " + resources.getResourceName(drawableRes)
+                        + " is not a bitmap");
+            }
+            sBitmaps.put(drawableRes, new WeakReference<Bitmap>(bitmap));
+        }
+
+        return new SpriteSheet(bitmap, columns, rows);
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @param index the index of the cell, from left to right and top to bottom
+     * @return a new drawable drawing the icon of the cell, sharing the bitmap of the sheet
+     */
+    public Drawable getIcon(int index) {
+        if (index < 0 || index >= mCount) {
+            throw new IndexOutOfBoundsException("Icon " + index + " is not in a sheet of " + mCount);
+        }
+
+        final int left = index % mColumns * mCellWidth;
+        final int top = index / mColumns * mCellHeight;
+        return new SpriteDrawable(mBitmap, new Rect(left, top, left + mCellWidth, top + mCellHeight));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2012 Capricorn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.capricorn;
+
+/**
+ * The measurements of a single menu transition, reported once the transition is over.
+ */
+public class TransitionMetrics {
+
+    /** Whether the transition opened the menu, false if it closed it */
+    public final boolean opening;
+
+    /** Whether another transition took over before this one was over */
+    public final boolean interrupted;
+
+    /**
+     * Time from the request, usually a click, to the start of the first frame of the transition,
+     * -1 if it was interrupted before its first frame
+     */
+    public final long firstFrameLatencyNanos;
+
+    /** Time from the request to the start of the frame in which the transition was over */
+    public final long durationNanos;
+
+    /** Frames rendered during the transition */
+    public final int frames;
+
+    /** Frames that started more than one and a half frame interval after the previous one */
+    public final int framesOverBudget;
+
+    /** Views added to the view hierarchy by the transition */
+    public final int viewsAttached;
+
+    /** Views removed from the view hierarchy by the transition */
+    public final int viewsDetached;
+
+    public TransitionMetrics(boolean opening, boolean interrupted, long firstFrameLatencyNanos,
+            long durationNanos, int frames, int framesOverBudget, int viewsAttached,
+            int viewsDetached) {
+        this.opening = opening;
+        this.interrupted = interrupted;
+        this.firstFrameLatencyNanos = firstFrameLatencyNanos;
+        this.durationNanos = durationNanos;
+        this.frames = frames;
+        this.framesOverBudget = framesOverBudget;
+        this.viewsAttached = viewsAttached;
+        this.viewsDetached = viewsDetached;
+    }
+
+    @Override
+    public String toString() {
+        return "TransitionMetrics{opening=" + opening
+                + ", interrupted=" + interrupted
+                + ", firstFrameLatencyNanos=" + firstFrameLatencyNanos
+                + ", durationNanos=" + durationNanos
+                + ", frames=" + frames
+                + ", framesOverBudget=" + framesOverBudget
+                + ", viewsAttached=" + viewsAttached
+                + ", viewsDetached=" + viewsDetached
+                + '}';
+    }
+}
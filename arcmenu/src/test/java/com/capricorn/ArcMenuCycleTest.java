@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2012 Capricorn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.capricorn;
+
+import android.app.Activity;
+import android.view.View;
+import android.widget.ImageView;
+import com.xfdsj.testing.CycleProbe;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Performance regression guard for the expansion and shrinkage cycles of {@link ArcMenu}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ArcMenuCycleTest {
+
+    private static final int ITEM_COUNT = 5;
+
+    private static final int WARM_UP_CYCLES = 3;
+
+    private static final int CYCLES = 10;
+
+    /** Allowed over an idle looper, about 350 bytes per frame of a cycle */
+    private static final long MAX_ALLOCATED_BYTES_OVER_IDLE = 64 * 1024;
+
+    private ArcMenu menu;
+
+    private ArcLayout arcLayout;
+
+    private CycleProbe probe;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        menu = new ArcMenu(activity);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            ImageView item = new ImageView(activity);
+            item.setImageResource(R.drawable.composer_button);
+            menu.addItem(item, null);
+        }
+        activity.setContentView(menu);
+        arcLayout = (ArcLayout) menu.findViewById(R.id.item_layout);
+        probe = new CycleProbe(activity);
+    }
+
+    /** Items are moved through their properties, no layout pass is needed */
+    @Test
+    public void propertyAnimationCycle() throws Exception {
+        menu.setPropertyAnimationEnabled(true);
+        final View controlLayout = menu.findViewById(R.id.control_layout);
+        final Runnable tap = new Runnable() {
+
+            @Override
+            public void run() {
+                CycleProbe.tap(controlLayout);
+            }
+        };
+        List<CycleProbe.Cycle> cycles = probe.repeat(WARM_UP_CYCLES, CYCLES, tap, tap);
+        probe.assertWithinBudget(cycles, MAX_ALLOCATED_BYTES_OVER_IDLE, 0);
+        assertFalse(arcLayout.isExpanded());
+    }
+
+    /** Without animation, the legacy mode lays the items out again on every switch */
+    @Test
+    public void legacySwitchCycle() throws Exception {
+        final Runnable switchState = new Runnable() {
+
+            @Override
+            public void run() {
+                arcLayout.switchState(false);
+            }
+        };
+        List<CycleProbe.Cycle> cycles = probe.repeat(WARM_UP_CYCLES, CYCLES, switchState, switchState);
+        probe.assertWithinBudget(cycles, MAX_ALLOCATED_BYTES_OVER_IDLE, 2);
+        assertFalse(arcLayout.isExpanded());
+    }
+}
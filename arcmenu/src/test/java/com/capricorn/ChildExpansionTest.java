@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2012 Capricorn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.capricorn;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.view.animation.Interpolator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the property animation expansion of {@link ArcLayout} and {@link RayLayout} children.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ChildExpansionTest {
+
+    private static final int CHILD_COUNT = 4;
+
+    private static final float EPSILON = 1e-5f;
+
+    private final View[] children = new View[CHILD_COUNT];
+
+    private ChildExpansion expansion;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < CHILD_COUNT; i++) {
+            children[i] = new View(RuntimeEnvironment.application);
+            children[i].layout(100 * i, 0, 100 * i + 50, 50);
+        }
+        expansion = new ChildExpansion(new ChildExpansion.Host() {
+
+            @Override
+            public int getChildCount() {
+                return CHILD_COUNT;
+            }
+
+            @Override
+            public View getChildAt(int index) {
+                return children[index];
+            }
+
+            @Override
+            public void computeCollapsedFrame(Rect outFrame) {
+                outFrame.set(0, 0, 50, 50);
+            }
+
+            @Override
+            public long computeStartOffset(int childCount, boolean expand, int index, long duration,
+                    Interpolator interpolator) {
+                return 30 * (expand ? index : childCount - 1 - index);
+            }
+        });
+    }
+
+    /** A transition reversed half way starts every child from where it is drawn */
+    @Test
+    public void reversingKeepsEveryChildInPlace() {
+        expansion.prepare(true, 300);
+        expansion.scrubTo(0.5f);
+        final float[] before = new float[CHILD_COUNT];
+        final float[] rotations = new float[CHILD_COUNT];
+        for (int i = 0; i < CHILD_COUNT; i++) {
+            before[i] = expansion.computeChildExpansion(i);
+            rotations[i] = children[i].getRotation();
+        }
+        // the children are staggered, they are not all at the same expansion
+        assertTrue(before[0] != before[CHILD_COUNT - 1]);
+
+        expansion.prepare(false, 300);
+        expansion.apply();
+        for (int i = 0; i < CHILD_COUNT; i++) {
+            assertEquals(before[i], expansion.computeChildExpansion(i), EPSILON);
+            assertEquals(rotations[i], children[i].getRotation(), EPSILON);
+        }
+
+        expansion.scrubTo(0.25f);
+        for (int i = 0; i < CHILD_COUNT; i++) {
+            assertTrue(expansion.computeChildExpansion(i) <= before[i] + EPSILON);
+        }
+
+        expansion.scrubTo(0);
+        for (int i = 0; i < CHILD_COUNT; i++) {
+            assertEquals(0, expansion.computeChildExpansion(i), EPSILON);
+            assertEquals(View.INVISIBLE, children[i].getVisibility());
+        }
+    }
+
+    /** Children grow from nothing at the switch button to their full size */
+    @Test
+    public void scaleFollowsTheExpansion() {
+        expansion.setFraction(0);
+        for (View child : children) {
+            assertEquals(0, child.getScaleX(), EPSILON);
+            assertEquals(View.INVISIBLE, child.getVisibility());
+        }
+
+        expansion.setFraction(1);
+        for (View child : children) {
+            assertEquals(1, child.getScaleX(), EPSILON);
+            assertEquals(1, child.getScaleY(), EPSILON);
+            assertEquals(0, child.getTranslationX(), EPSILON);
+            assertEquals(View.VISIBLE, child.getVisibility());
+        }
+
+        expansion.setFraction(0);
+        expansion.clear();
+        for (View child : children) {
+            assertEquals(1, child.getScaleX(), EPSILON);
+            assertEquals(0, child.getRotation(), EPSILON);
+            assertEquals(View.VISIBLE, child.getVisibility());
+        }
+    }
+}
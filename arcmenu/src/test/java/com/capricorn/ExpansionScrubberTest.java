@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2012 Capricorn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.capricorn;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.widget.ImageView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the switch button of an {@link ArcMenu} does not stay pressed after a gesture
+ * taken over by its {@link ExpansionScrubber}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ExpansionScrubberTest {
+
+    private static final int ITEM_COUNT = 3;
+
+    private static final float DOWN_X = 10;
+
+    private static final float DOWN_Y = 10;
+
+    private ArcLayout arcLayout;
+
+    private View controlLayout;
+
+    private long downTime;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        ArcMenu menu = new ArcMenu(activity);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            ImageView item = new ImageView(activity);
+            item.setImageResource(R.drawable.composer_button);
+            menu.addItem(item, null);
+        }
+        menu.setPropertyAnimationEnabled(true);
+        activity.setContentView(menu);
+        arcLayout = (ArcLayout) menu.findViewById(R.id.item_layout);
+        controlLayout = menu.findViewById(R.id.control_layout);
+    }
+
+    @Test
+    public void tapReleasesTheButton() {
+        press();
+        touch(MotionEvent.ACTION_UP, DOWN_X, DOWN_Y);
+        assertFalse(controlLayout.isPressed());
+        assertTrue(arcLayout.isExpanded());
+    }
+
+    /** The scrubber consumes the moves and the up of a drag, the button never sees its release */
+    @Test
+    public void dragReleasesTheButton() {
+        press();
+        final float distance = arcLayout.getScrubDistance();
+        touch(MotionEvent.ACTION_MOVE, DOWN_X + distance / 2, DOWN_Y);
+        touch(MotionEvent.ACTION_MOVE, DOWN_X + distance, DOWN_Y);
+        touch(MotionEvent.ACTION_UP, DOWN_X + distance, DOWN_Y);
+        assertFalse(controlLayout.isPressed());
+    }
+
+    @Test
+    public void cancelReleasesTheButton() {
+        press();
+        touch(MotionEvent.ACTION_MOVE, DOWN_X + arcLayout.getScrubDistance(), DOWN_Y);
+        touch(MotionEvent.ACTION_CANCEL, DOWN_X + arcLayout.getScrubDistance(), DOWN_Y);
+        assertFalse(controlLayout.isPressed());
+        assertFalse(arcLayout.isExpanded());
+    }
+
+    /** Puts a finger down on the button, which shows itself pressed as it does without a scrubber */
+    private void press() {
+        downTime = SystemClock.uptimeMillis();
+        touch(MotionEvent.ACTION_DOWN, DOWN_X, DOWN_Y);
+        ShadowLooper.idleMainLooper(ViewConfiguration.getTapTimeout());
+        assertTrue(controlLayout.isPressed());
+    }
+
+    private void touch(int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+        controlLayout.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2012 Capricorn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.capricorn;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks which items of an overflowing {@link RayLayout} are attached as children. With items of
+ * 40 pixels in a row of 300, the gap stops at a quarter of an item, 10 pixels, so the item i spans
+ * 50 * i + 10 to 50 * i + 50, and the row scrolls up to 20 * 50 + 10 - 300 = 710 pixels. The
+ * viewport is attached with a margin of one item on each side.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class RayLayoutOverflowTest {
+
+    private static final int ITEM_COUNT = 20;
+
+    private static final int CHILD_SIZE = 40;
+
+    private static final int WIDTH = 300;
+
+    private static final int MAX_SCROLL_X = 710;
+
+    private final List<View> items = new ArrayList<View>();
+
+    private RayLayout layout;
+
+    @Before
+    public void setUp() {
+        layout = new RayLayout(RuntimeEnvironment.application);
+        layout.setChildSize(CHILD_SIZE);
+        layout.setOverflowEnabled(true);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            View item = new View(RuntimeEnvironment.application);
+            items.add(item);
+            layout.addView(item);
+        }
+        relayout();
+    }
+
+    @Test
+    public void onlyTheViewportIsAttached() {
+        // 0 to 350 with the margin
+        assertAttached(0, 7);
+    }
+
+    /** Scrolling attaches and removes children in place, without a layout pass */
+    @Test
+    public void scrollingMovesTheAttachedRange() {
+        layout.scrollTo(400, 0);
+        // 350 to 750 with the margin
+        assertAttached(7, 15);
+        assertFalse(layout.isLayoutRequested());
+
+        layout.scrollTo(Integer.MAX_VALUE, 0);
+        assertEquals(MAX_SCROLL_X, layout.getScrollX());
+        assertAttached(13, ITEM_COUNT);
+
+        layout.scrollTo(0, 0);
+        assertAttached(0, 7);
+        assertFalse(layout.isLayoutRequested());
+    }
+
+    /** An item added before the attached range shifts the items after it */
+    @Test
+    public void addingAnItemShiftsTheAttachedRange() {
+        layout.scrollTo(400, 0);
+        View item = new View(RuntimeEnvironment.application);
+        items.add(0, item);
+        layout.addView(item, 0);
+        relayout();
+
+        assertEquals(400, layout.getScrollX());
+        assertAttached(7, 15);
+        assertNull(item.getParent());
+    }
+
+    @Test
+    public void removingAnAttachedItemDetachesIt() {
+        layout.scrollTo(400, 0);
+        View item = items.remove(8);
+        layout.removeView(item);
+        assertNull(item.getParent());
+        relayout();
+
+        assertEquals(400, layout.getScrollX());
+        assertAttached(7, 15);
+    }
+
+    /** The attached children stay as they are when an item out of the viewport is removed */
+    @Test
+    public void removingADetachedItemKeepsTheChildren() {
+        layout.removeView(items.remove(ITEM_COUNT - 2));
+        assertAttached(0, 7);
+    }
+
+    /** A row whose items fit again does not scroll */
+    @Test
+    public void rowThatFitsDoesNotScroll() {
+        layout.scrollTo(400, 0);
+        layout.removeViews(0, ITEM_COUNT - 5);
+        items.subList(0, ITEM_COUNT - 5).clear();
+        assertEquals(0, layout.getScrollX());
+        relayout();
+
+        assertAttached(0, items.size());
+        layout.scrollTo(100, 0);
+        assertEquals(0, layout.getScrollX());
+    }
+
+    private void relayout() {
+        layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        layout.layout(0, 0, WIDTH, layout.getMeasuredHeight());
+    }
+
+    /**
+     * Checks that the children are the items from first, inclusive, to last, exclusive, in order.
+     */
+    private void assertAttached(int first, int last) {
+        assertEquals(last - first, layout.getChildCount());
+        for (int i = first; i < last; i++) {
+            assertSame("item " + i, items.get(i), layout.getChildAt(i - first));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2012 Capricorn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.capricorn;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.widget.ImageView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the cells and the shared decode of a {@link SpriteSheet}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class SpriteSheetTest {
+
+    /** Any bitmap resource, cut into a grid of 2 by 2 icons */
+    private static final int SHEET = R.drawable.composer_button_normal;
+
+    private static final int COLUMNS = 2;
+
+    private static final int ROWS = 2;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void sheetsOfOneResourceShareOneDecode() {
+        SpriteSheet first = SpriteSheet.get(context, SHEET, COLUMNS, ROWS);
+        SpriteSheet second = SpriteSheet.get(context, SHEET, 1, 1);
+
+        SpriteDrawable icon = (SpriteDrawable) first.getIcon(0);
+        SpriteDrawable other = (SpriteDrawable) first.getIcon(0);
+        assertNotSame(icon, other);
+        assertSame(icon.getBitmap(), other.getBitmap());
+        assertSame(icon.getBitmap(), ((SpriteDrawable) second.getIcon(0)).getBitmap());
+    }
+
+    /** Cells are read from left to right and top to bottom */
+    @Test
+    public void iconsAreCutFromTheirCells() {
+        SpriteSheet sheet = SpriteSheet.get(context, SHEET, COLUMNS, ROWS);
+        assertEquals(COLUMNS * ROWS, sheet.getCount());
+
+        Bitmap bitmap = ((SpriteDrawable) sheet.getIcon(0)).getBitmap();
+        int cellWidth = bitmap.getWidth() / COLUMNS;
+        int cellHeight = bitmap.getHeight() / ROWS;
+        assertEquals(new Rect(0, 0, cellWidth, cellHeight), ((SpriteDrawable) sheet.getIcon(0)).getSource());
+        assertEquals(new Rect(cellWidth, 0, 2 * cellWidth, cellHeight),
+                ((SpriteDrawable) sheet.getIcon(1)).getSource());
+        assertEquals(new Rect(0, cellHeight, cellWidth, 2 * cellHeight),
+                ((SpriteDrawable) sheet.getIcon(2)).getSource());
+
+        SpriteDrawable last = (SpriteDrawable) sheet.getIcon(3);
+        assertEquals(new Rect(cellWidth, cellHeight, 2 * cellWidth, 2 * cellHeight), last.getSource());
+        assertEquals(cellWidth, last.getIntrinsicWidth());
+        assertEquals(cellHeight, last.getIntrinsicHeight());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void iconOutOfTheSheetIsRejected() {
+        SpriteSheet.get(context, SHEET, COLUMNS, ROWS).getIcon(COLUMNS * ROWS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyGridIsRejected() {
+        SpriteSheet.get(context, SHEET, 0, ROWS);
+    }
+
+    /** Each item of a menu is still a view, drawing its icon from the shared sheet */
+    @Test
+    public void menusAddItemsFromTheSheet() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        SpriteSheet sheet = SpriteSheet.get(activity, SHEET, COLUMNS, ROWS);
+        ArcMenu arcMenu = new ArcMenu(activity);
+        RayMenu rayMenu = new RayMenu(activity);
+        for (int i = 0; i < sheet.getCount(); i++) {
+            arcMenu.addItem(sheet, i, null);
+            rayMenu.addItem(sheet, i, null);
+        }
+
+        ArcLayout arcLayout = (ArcLayout) arcMenu.findViewById(R.id.item_layout);
+        assertEquals(sheet.getCount(), arcLayout.getChildCount());
+        SpriteDrawable icon = (SpriteDrawable) ((ImageView) arcLayout.getChildAt(2)).getDrawable();
+        assertEquals(((SpriteDrawable) sheet.getIcon(2)).getSource(), icon.getSource());
+        assertTrue(((ImageView) ((RayLayout) rayMenu.findViewById(R.id.item_layout)).getChildAt(0))
+                .getDrawable() instanceof SpriteDrawable);
+    }
+}
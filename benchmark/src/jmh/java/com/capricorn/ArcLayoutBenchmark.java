@@ -0,0 +1,73 @@
+package com.capricorn;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the math of one measure and layout pass of {@code ArcLayout}, and the stagger of one
+ * expansion, for a whole menu.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArcLayoutBenchmark {
+
+  private static final float FROM_DEGREES = 270.0f;
+  private static final float TO_DEGREES = 360.0f;
+  private static final int CHILD_SIZE = 48;
+  private static final int CHILD_PADDING = 5;
+  private static final int MIN_RADIUS = 100;
+  private static final long DURATION = 300;
+
+  @Param({ "3", "8", "32", "128", "500" }) public int childCount;
+
+  /** Same table as the one cached by ArcLayout */
+  private float[] directionX;
+  private float[] directionY;
+
+  @Setup public void setUp() {
+    directionX = new float[childCount];
+    directionY = new float[childCount];
+    LayoutGeometry.computeDirections(FROM_DEGREES, TO_DEGREES, childCount, directionX, directionY);
+  }
+
+  @Benchmark public float computeDirections() {
+    LayoutGeometry.computeDirections(FROM_DEGREES, TO_DEGREES, childCount, directionX, directionY);
+    return directionX[childCount - 1] + directionY[childCount - 1];
+  }
+
+  @Benchmark public int computeRadius() {
+    return LayoutGeometry.computeRadius(Math.abs(TO_DEGREES - FROM_DEGREES), childCount,
+        CHILD_SIZE, CHILD_PADDING, MIN_RADIUS);
+  }
+
+  @Benchmark public int computeChildFrames() {
+    final int radius = LayoutGeometry.computeRadius(Math.abs(TO_DEGREES - FROM_DEGREES),
+        childCount, CHILD_SIZE, CHILD_PADDING, MIN_RADIUS);
+    final int center = radius + CHILD_SIZE;
+    int checksum = 0;
+    for (int i = 0; i < childCount; i++) {
+      checksum += LayoutGeometry.computeChildStart(center, radius, directionX[i], CHILD_SIZE);
+      checksum += LayoutGeometry.computeChildStart(center, radius, directionY[i], CHILD_SIZE);
+      checksum += LayoutGeometry.computeChildEnd(center, radius, directionX[i], CHILD_SIZE);
+      checksum += LayoutGeometry.computeChildEnd(center, radius, directionY[i], CHILD_SIZE);
+    }
+    return checksum;
+  }
+
+  @Benchmark public long computeStartOffsets() {
+    long checksum = 0;
+    for (int i = 0; i < childCount; i++) {
+      final float normalizedDelay =
+          LayoutGeometry.computeNormalizedDelay(childCount, childCount - 1 - i, 0.1f, DURATION);
+      checksum += LayoutGeometry.computeStartOffset(childCount,
+          Interpolations.overshoot(normalizedDelay, 1.5f), 0.1f, DURATION);
+    }
+    return checksum;
+  }
+}
@@ -0,0 +1,22 @@
+package com.capricorn;
+
+/**
+ * Plain Java copies of the Android interpolators used to stagger the children, so the start
+ * offsets can be computed off device. Shared by the benchmarks of every library.
+ */
+public final class Interpolations {
+
+  private Interpolations() {
+  }
+
+  /** Same as {@code new AccelerateInterpolator()} */
+  public static float accelerate(float input) {
+    return input * input;
+  }
+
+  /** Same as {@code new OvershootInterpolator(tension)} */
+  public static float overshoot(float input, float tension) {
+    input -= 1.0f;
+    return input * input * ((tension + 1) * input + tension) + 1.0f;
+  }
+}
@@ -0,0 +1,51 @@
+package com.capricorn;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the math of one measure and layout pass of {@code RayLayout}, and the stagger of one
+ * expansion, for a whole menu.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RayLayoutBenchmark {
+
+  private static final int WIDTH = 1080;
+  private static final int LEFT_HOLDER_WIDTH = 144;
+  private static final int CHILD_SIZE = 48;
+  private static final long DURATION = 300;
+
+  @Param({ "3", "8", "32", "128", "500" }) public int childCount;
+
+  @Benchmark public int computeChildGap() {
+    return LayoutGeometry.computeChildGap(WIDTH - LEFT_HOLDER_WIDTH, childCount, CHILD_SIZE, 0);
+  }
+
+  @Benchmark public int computeChildFrames() {
+    final int gap =
+        LayoutGeometry.computeChildGap(WIDTH - LEFT_HOLDER_WIDTH, childCount, CHILD_SIZE, 0);
+    int checksum = 0;
+    for (int i = 0; i < childCount; i++) {
+      checksum +=
+          LayoutGeometry.computeRowChildLeft(true, LEFT_HOLDER_WIDTH, i, gap, CHILD_SIZE);
+    }
+    return checksum;
+  }
+
+  @Benchmark public long computeStartOffsets() {
+    long checksum = 0;
+    for (int i = 0; i < childCount; i++) {
+      final float normalizedDelay =
+          LayoutGeometry.computeNormalizedDelay(childCount, childCount - 1 - i, 0.1f, DURATION);
+      checksum += LayoutGeometry.computeStartOffset(childCount,
+          Interpolations.accelerate(normalizedDelay), 0.1f, DURATION);
+    }
+    return checksum;
+  }
+}
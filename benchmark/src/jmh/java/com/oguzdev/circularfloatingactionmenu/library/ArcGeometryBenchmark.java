@@ -0,0 +1,45 @@
+package com.oguzdev.circularfloatingactionmenu.library;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the arc position computation behind {@code FloatingActionMenu.calculateItemPositions()}
+ * when the cached offsets can be reused.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArcGeometryBenchmark {
+
+  private static final float START_ANGLE = 180.0f;
+  private static final float END_ANGLE = 360.0f;
+  private static final int RADIUS = 250;
+  private static final int CENTER_X = 540;
+  private static final int CENTER_Y = 960;
+  private static final int ITEM_SIZE = 92;
+
+  @Param({ "3", "8", "32", "128", "500" }) public int itemCount;
+
+  private final ArcGeometry circularGeometry = new ArcGeometry();
+
+  @Setup public void setUp() {
+    circularGeometry.update(START_ANGLE, END_ANGLE, RADIUS, itemCount);
+  }
+
+  /** FloatingActionMenu.calculateItemPositions() when the arc is unchanged */
+  @Benchmark public int circularItemPositionsCached() {
+    circularGeometry.update(START_ANGLE, END_ANGLE, RADIUS, itemCount);
+    int checksum = 0;
+    for (int i = 0; i < itemCount; i++) {
+      checksum += (int) (CENTER_X + circularGeometry.getOffsetX(i)) - ITEM_SIZE / 2;
+      checksum += (int) (CENTER_Y + circularGeometry.getOffsetY(i)) - ITEM_SIZE / 2;
+    }
+    return checksum;
+  }
+}
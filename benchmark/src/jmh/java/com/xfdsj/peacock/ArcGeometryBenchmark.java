@@ -0,0 +1,72 @@
+package com.xfdsj.peacock;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the arc position computation behind {@code PeacockMenu.calculateItemPositions()},
+ * both when the geometry has to be solved and when the cached offsets can be reused.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArcGeometryBenchmark {
+
+  private static final float START_ANGLE = 180.0f;
+  private static final float END_ANGLE = 360.0f;
+  private static final int RADIUS = 250;
+  private static final int CENTER_X = 540;
+  private static final int CENTER_Y = 960;
+  private static final int ITEM_SIZE = 92;
+
+  @Param({ "3", "8", "32", "128", "500" }) public int itemCount;
+
+  private float[] offsetX;
+  private float[] offsetY;
+  private final ArcGeometry peacockGeometry = new ArcGeometry();
+  /** Alternates the radius so that every call has to solve the arc again */
+  private int radiusToggle;
+
+  @Setup public void setUp() {
+    offsetX = new float[itemCount];
+    offsetY = new float[itemCount];
+    peacockGeometry.update(START_ANGLE, END_ANGLE, RADIUS, itemCount);
+  }
+
+  @Benchmark public float solve() {
+    ArcGeometry.solve(START_ANGLE, END_ANGLE, RADIUS, itemCount, offsetX, offsetY);
+    return offsetX[itemCount - 1] + offsetY[itemCount - 1];
+  }
+
+  @Benchmark public float solveFullCircle() {
+    ArcGeometry.solve(START_ANGLE, START_ANGLE + 360, RADIUS, itemCount, offsetX, offsetY);
+    return offsetX[itemCount - 1] + offsetY[itemCount - 1];
+  }
+
+  /** PeacockMenu.calculateItemPositions() when the radius changed since the last call */
+  @Benchmark public int peacockItemPositionsSolved() {
+    radiusToggle ^= 1;
+    peacockGeometry.update(START_ANGLE, END_ANGLE, RADIUS + radiusToggle, itemCount);
+    return peacockItemPositions();
+  }
+
+  /** PeacockMenu.calculateItemPositions() when the arc is unchanged */
+  @Benchmark public int peacockItemPositionsCached() {
+    peacockGeometry.update(START_ANGLE, END_ANGLE, RADIUS, itemCount);
+    return peacockItemPositions();
+  }
+
+  private int peacockItemPositions() {
+    int checksum = 0;
+    for (int i = 0; i < itemCount; i++) {
+      checksum += (int) (CENTER_X + peacockGeometry.getOffsetX(i)) - ITEM_SIZE / 2;
+      checksum += (int) (CENTER_Y + peacockGeometry.getOffsetY(i)) - ITEM_SIZE / 2;
+    }
+    return checksum;
+  }
+}
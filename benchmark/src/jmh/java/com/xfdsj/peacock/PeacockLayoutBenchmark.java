@@ -0,0 +1,97 @@
+package com.xfdsj.peacock;
+
+import com.capricorn.Interpolations;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the math of one measure and layout pass of {@code PeacockLayout}, the stagger of one
+ * expansion and the lookup of the item under a finger, for a whole menu. It runs the peacock
+ * copy of {@link LayoutGeometry}, which is compiled apart from the one of {@code ArcLayout}.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PeacockLayoutBenchmark {
+
+  /** The default arc and menu size of PeacockLayout */
+  private static final float START_ANGLE = 270.0f;
+  private static final float END_ANGLE = 360.0f;
+  private static final int MENU_SIZE = 92;
+  private static final int SUB_MENU_SIZE = (int) (MENU_SIZE * 0.618);
+  private static final int CHILD_PADDING = 5;
+  private static final int MIN_RADIUS = MENU_SIZE / 2 + SUB_MENU_SIZE;
+  private static final long DURATION = 300;
+
+  @Param({ "3", "8", "32", "128", "500" }) public int childCount;
+
+  /** Same table as the one cached by PeacockLayout */
+  private float[] directionX;
+  private float[] directionY;
+  private int radius;
+  /** A point of the ring for every child, as a finger dragging over the menu */
+  private float[] fingerX;
+  private float[] fingerY;
+
+  @Setup public void setUp() {
+    directionX = new float[childCount];
+    directionY = new float[childCount];
+    final float perDegrees = (END_ANGLE - START_ANGLE) / (childCount - 1);
+    for (int i = 0; i < childCount; i++) {
+      final double radians = Math.toRadians(START_ANGLE + perDegrees * i);
+      directionX[i] = (float) Math.cos(radians);
+      directionY[i] = (float) Math.sin(radians);
+    }
+    radius = computeRadius();
+    fingerX = new float[childCount];
+    fingerY = new float[childCount];
+    for (int i = 0; i < childCount; i++) {
+      fingerX[i] = directionX[i] * radius + 1;
+      fingerY[i] = directionY[i] * radius - 1;
+    }
+  }
+
+  @Benchmark public int computeRadius() {
+    return LayoutGeometry.computeRadius(Math.abs(END_ANGLE - START_ANGLE), childCount,
+        SUB_MENU_SIZE, CHILD_PADDING, MIN_RADIUS);
+  }
+
+  @Benchmark public int computeChildFrames() {
+    final int radius = computeRadius();
+    final int center = radius + SUB_MENU_SIZE;
+    int checksum = 0;
+    for (int i = 0; i < childCount; i++) {
+      checksum += LayoutGeometry.computeChildStart(center, radius, directionX[i], SUB_MENU_SIZE);
+      checksum += LayoutGeometry.computeChildStart(center, radius, directionY[i], SUB_MENU_SIZE);
+      checksum += LayoutGeometry.computeChildEnd(center, radius, directionX[i], SUB_MENU_SIZE);
+      checksum += LayoutGeometry.computeChildEnd(center, radius, directionY[i], SUB_MENU_SIZE);
+    }
+    return checksum;
+  }
+
+  @Benchmark public long computeStartOffsets() {
+    long checksum = 0;
+    for (int i = 0; i < childCount; i++) {
+      final float normalizedDelay =
+          LayoutGeometry.computeNormalizedDelay(childCount, childCount - 1 - i, 0.1f, DURATION);
+      checksum += LayoutGeometry.computeStartOffset(childCount,
+          Interpolations.overshoot(normalizedDelay, 1.5f), 0.1f, DURATION);
+    }
+    return checksum;
+  }
+
+  /** One lookup per child, as many as a drag over the whole arc can ask for */
+  @Benchmark public int findChildIndex() {
+    int checksum = 0;
+    for (int i = 0; i < childCount; i++) {
+      checksum += LayoutGeometry.findChildIndex(fingerX[i], fingerY[i], START_ANGLE, END_ANGLE,
+          childCount, MENU_SIZE / 2, radius + SUB_MENU_SIZE);
+    }
+    return checksum;
+  }
+}
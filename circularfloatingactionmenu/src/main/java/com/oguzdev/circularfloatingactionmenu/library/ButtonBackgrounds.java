@@ -0,0 +1,100 @@
+/*
+ *   Copyright 2014 Oguz Bilgener
+ */
+package com.oguzdev.circularfloatingactionmenu.library;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.PorterDuff;
+import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+
+/**
+ * Hands out the backgrounds of {@link SubActionButton} and {@link FloatingActionButton}.
+ * Buttons of the same theme share a single {@link Drawable.ConstantState} whatever their size,
+ * as a drawable is drawn at the bounds of its button,
+ * so that hundreds of buttons do not load and hold hundreds of copies of the same background.
+ * A drawable is only mutated when its button asks for a tint.
+ * Buttons may be built on a background thread, see {@link FloatingActionMenu.Builder#buildAsync}.
+ */
+class ButtonBackgrounds {
+
+    /** The tint of a button that keeps the colors of its background */
+    static final int NO_TINT = 0;
+
+    /** States of the theme backgrounds by resource id, loaded with the configuration below */
+    private static final SparseArray<Drawable.ConstantState> themedStates = new SparseArray<Drawable.ConstantState>();
+    private static final Configuration themedConfiguration = new Configuration();
+    /** Only part of the configuration from Jelly Bean MR1 on */
+    private static int themedDensityDpi;
+
+    private ButtonBackgrounds() {
+    }
+
+    /**
+     * @param resId the background drawable of the theme
+     * @param tint a color drawn over the background, or {@link #NO_TINT}
+     * @return a background that shares its state with the buttons of the same theme, unless tinted
+     */
+    static Drawable getThemed(Context context, int resId, int tint) {
+        Resources resources = context.getResources();
+        Drawable.ConstantState state;
+        synchronized(themedStates) {
+            if(!isThemedFor(resources)) {
+                // Another density or configuration resolves the resources to other drawables
+                themedStates.clear();
+                themedConfiguration.setTo(resources.getConfiguration());
+                themedDensityDpi = resources.getDisplayMetrics().densityDpi;
+            }
+            state = themedStates.get(resId);
+        }
+        if(state == null) {
+            Drawable drawable = resources.getDrawable(resId);
+            state = drawable.getConstantState();
+            if(state == null) {
+                // Cannot be shared
+                return tint(drawable, tint);
+            }
+            synchronized(themedStates) {
+                // Unless the configuration changed in the meantime
+                if(isThemedFor(resources)) {
+                    themedStates.put(resId, state);
+                }
+            }
+        }
+        return tint(state.newDrawable(resources), tint);
+    }
+
+    /**
+     * Must be called with the lock of themedStates held.
+     * @return whether the cached states were loaded with the configuration of the given resources
+     */
+    private static boolean isThemedFor(Resources resources) {
+        return themedConfiguration.equals(resources.getConfiguration())
+                && themedDensityDpi == resources.getDisplayMetrics().densityDpi;
+    }
+
+    /**
+     * @param drawable a custom background given to a builder, possibly to many buttons of any size
+     * @param tint a color drawn over the background, or {@link #NO_TINT}
+     * @return a new drawable sharing the state of the given one, unless tinted
+     */
+    static Drawable getCustom(Context context, Drawable drawable, int tint) {
+        Drawable.ConstantState state = drawable.getConstantState();
+        if(state != null) {
+            drawable = state.newDrawable(context.getResources());
+        }
+        return tint(drawable, tint);
+    }
+
+    private static Drawable tint(Drawable drawable, int tint) {
+        if(tint == NO_TINT) {
+            return drawable;
+        }
+        // Only a tinted button gets a state of its own
+        Drawable mutated = drawable.mutate();
+        mutated.setColorFilter(tint, PorterDuff.Mode.SRC_ATOP);
+        return mutated;
+    }
+}
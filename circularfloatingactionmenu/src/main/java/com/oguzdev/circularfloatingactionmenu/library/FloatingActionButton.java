@@ -50,6 +50,18 @@ public class FloatingActionButton extends FrameLayout {
                                 Drawable backgroundDrawable, int position, View contentView,
                                 LayoutParams contentParams,
                                 boolean systemOverlay) {
+        this(context, layoutParams, theme, backgroundDrawable, ButtonBackgrounds.NO_TINT, position,
+                contentView, contentParams, systemOverlay);
+    }
+
+    /**
+     * @param backgroundTint a color drawn over the background, or 0 to keep it as it is
+     * @see #FloatingActionButton(Context, ViewGroup.LayoutParams, int, Drawable, int, View, LayoutParams, boolean)
+     */
+    public FloatingActionButton(Context context, ViewGroup.LayoutParams layoutParams, int theme,
+                                Drawable backgroundDrawable, int backgroundTint, int position,
+                                View contentView, LayoutParams contentParams,
+                                boolean systemOverlay) {
         super(context);
         this.systemOverlay = systemOverlay;
 
@@ -62,10 +74,15 @@ public class FloatingActionButton extends FrameLayout {
 
         // If no custom backgroundDrawable is specified, use the background drawable of the theme.
         if(backgroundDrawable == null) {
+            int resId;
             if(theme == THEME_LIGHT)
-                backgroundDrawable = context.getResources().getDrawable(R.drawable.button_action_selector);
+                resId = R.drawable.button_action_selector;
             else
-                backgroundDrawable = context.getResources().getDrawable(R.drawable.button_action_dark_selector);
+                resId = R.drawable.button_action_dark_selector;
+            backgroundDrawable = ButtonBackgrounds.getThemed(context, resId, backgroundTint);
+        }
+        else {
+            backgroundDrawable = ButtonBackgrounds.getCustom(context, backgroundDrawable, backgroundTint);
         }
         setBackgroundResource(backgroundDrawable);
         if(contentView != null) {
@@ -228,6 +245,7 @@ public class FloatingActionButton extends FrameLayout {
         private ViewGroup.LayoutParams layoutParams;
         private int theme;
         private Drawable backgroundDrawable;
+        private int backgroundTint;
         private int position;
         private View contentView;
         private LayoutParams contentParams;
@@ -266,6 +284,15 @@ public class FloatingActionButton extends FrameLayout {
             return setBackgroundDrawable(context.getResources().getDrawable(drawableId));
         }
 
+        /**
+         * Draws a color over the background of the button.
+         * @param color the tint, or 0 to keep the background as it is
+         */
+        public Builder setBackgroundTint(int color) {
+            this.backgroundTint = color;
+            return this;
+        }
+
         public Builder setPosition(int position) {
             this.position = position;
             return this;
@@ -291,6 +318,7 @@ public class FloatingActionButton extends FrameLayout {
                                            layoutParams,
                                            theme,
                                            backgroundDrawable,
+                                           backgroundTint,
                                            position,
                                            contentView,
                                            contentParams,
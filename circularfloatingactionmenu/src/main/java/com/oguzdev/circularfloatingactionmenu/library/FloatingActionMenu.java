@@ -4,28 +4,34 @@
 package com.oguzdev.circularfloatingactionmenu.library;
 
 import android.app.Activity;
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks;
 import android.content.Context;
-import android.graphics.Path;
-import android.graphics.PathMeasure;
+import android.content.res.Configuration;
 import android.graphics.PixelFormat;
 import android.graphics.Point;
 import android.graphics.Rect;
-import android.graphics.RectF;
-import android.hardware.SensorManager;
-import android.view.Display;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.Gravity;
 import android.view.LayoutInflater;
-import android.view.OrientationEventListener;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.view.WindowManager;
+import android.widget.Adapter;
 import android.widget.FrameLayout;
+import android.widget.ImageView;
 
 import com.oguzdev.circularfloatingactionmenu.library.animation.DefaultAnimationHandler;
 import com.oguzdev.circularfloatingactionmenu.library.animation.MenuAnimationHandler;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Provides the main structure of the menu.
@@ -43,10 +49,34 @@ public class FloatingActionMenu {
     private int radius;
     /** List of menu items */
     private List<Item> subActionItems;
+    /** Binds the sub action items to an adapter in the virtualized mode, null otherwise */
+    private RadialWindow radialWindow;
+    /** Cached positions of the menu items relative to the center of mainActionView */
+    private final ArcGeometry arcGeometry = new ArcGeometry();
+    /** Cached center of mainActionView, valid until the layout, a scroll or the orientation changes */
+    private final Point actionViewCenter = new Point();
+    private boolean actionViewCenterValid;
+    /** Invalidates the cached center on a layout or a scroll of the window of mainActionView */
+    private final ActionViewObserver actionViewObserver = new ActionViewObserver();
+    /** Translation of mainActionView when its center was cached, it moves without a layout pass */
+    private float actionViewCenterTranslationX;
+    private float actionViewCenterTranslationY;
+    /** Buffers of the center computation */
+    private final int[] locationBuffer = new int[2];
+    private final Rect frameBuffer = new Rect();
+    private final Point screenSizeBuffer = new Point();
+    /** The center passed to the animation handler */
+    private final Point center = new Point();
+    /** Cached height of the status bar, -1 until it is looked up */
+    private int statusBarHeight = -1;
     /** Reference to the preferred {@link MenuAnimationHandler} object */
     private MenuAnimationHandler animationHandler;
     /** Reference to a listener that listens open/close actions */
     private MenuStateChangeListener stateChangeListener;
+    /** Reference to a listener that receives the measurements of each transition */
+    private MenuMetricsListener metricsListener;
+    /** Measures the transitions while a metrics listener is set */
+    private TransitionMonitor transitionMonitor;
     /** whether the openings and closings should be animated or not */
     private boolean animated;
     /** whether the menu is currently open or not */
@@ -55,8 +85,21 @@ public class FloatingActionMenu {
     private boolean systemOverlay;
     /** a simple layout to contain all the sub action views in the system overlay mode */
     private FrameLayout overlayContainer;
-
-    private OrientationEventListener orientationListener;
+    /** window parameters of the overlay container, updated in place */
+    private WindowManager.LayoutParams overlayParams;
+    /** whether the overlay container window stays added while the menu is closed */
+    private boolean persistentOverlay;
+    /** the layer that contains all the sub action views of the Activity, when not in system overlay mode */
+    private MenuHostLayer hostLayer;
+
+    /** the last known rotation of the display, in the system overlay mode */
+    private int lastRotation;
+    /** whether a display or configuration listener is registered to detect rotations */
+    private boolean rotationListenerArmed;
+    /** detects rotations from Jelly Bean MR1 on */
+    private DisplayRotationListener displayRotationListener;
+    /** detects rotations before Jelly Bean MR1 */
+    private ConfigurationRotationListener configurationRotationListener;
 
     /**
      * Constructor that takes the parameters collected using {@link Builder}
@@ -95,6 +138,13 @@ public class FloatingActionMenu {
         this.mainActionView.setClickable(true);
         this.mainActionView.setOnClickListener(new ActionViewClickListener());
 
+        // The action view moves with any layout or scroll of its window, which is only watched
+        // while the action view is attached
+        this.mainActionView.addOnAttachStateChangeListener(actionViewObserver);
+        if(mainActionView.getWindowToken() != null) {
+            actionViewObserver.register();
+        }
+
         // Do not forget to set the menu as self to our customizable animation handler
         if(animationHandler != null) {
             animationHandler.setMenu(this);
@@ -102,6 +152,8 @@ public class FloatingActionMenu {
 
         if(systemOverlay) {
             overlayContainer = new FrameLayout(mainActionView.getContext());
+            overlayParams = getDefaultSystemWindowParams();
+            overlayContainer.setLayoutParams(overlayParams);
         }
         else {
             overlayContainer = null; // beware NullPointerExceptions!
@@ -114,34 +166,13 @@ public class FloatingActionMenu {
                     throw new RuntimeException("Sub action views cannot be added without " +
                             "definite width and height.");
                 }
-                // Figure out the size by temporarily adding it to the Activity content view hierarchy
-                // and ask the size from the system
-                addViewToCurrentContainer(item.view);
-                // Make item view invisible, just in case
-                item.view.setAlpha(0);
-                // Wait for the right time
-                item.view.post(new ItemViewQueueListener(item));
             }
         }
+        // Figure out their sizes right away, without adding them to the view hierarchy
+        measureUnsizedItems();
 
         if(systemOverlay) {
-            orientationListener = new OrientationEventListener(mainActionView.getContext(), SensorManager.SENSOR_DELAY_UI) {
-                private int lastState = -1;
-
-                public void onOrientationChanged(int orientation) {
-
-                    Display display = getWindowManager().getDefaultDisplay();
-                    if(display.getRotation() != lastState) {
-                        lastState = display.getRotation();
-
-                        //
-                        if(isOpen()) {
-                            close(false);
-                        }
-                    }
-                }
-            };
-            orientationListener.enable();
+            lastRotation = getWindowManager().getDefaultDisplay().getRotation();
         }
     }
 
@@ -150,68 +181,63 @@ public class FloatingActionMenu {
      * @param animated if true, this action is executed by the current {@link MenuAnimationHandler}
      */
     public void open(boolean animated) {
+        if(systemOverlay) {
+            // Rotations are not watched while the menu is closed
+            checkRotation();
+        }
+        if(radialWindow != null && radialWindow.isDirty()
+                && !(animationHandler != null && animationHandler.isAnimating())) {
+            radialWindow.bind(subActionItems, getCurrentContainer());
+        }
+
+        // Removing the overlay container stops observing the action view, observe it again
+        actionViewObserver.register();
 
         // Get the center of the action view from the following function for efficiency
         // populate destination x,y coordinates of Items
         Point center = calculateItemPositions();
 
-        WindowManager.LayoutParams overlayParams = null;
+        if(animated && animationHandler != null
+                && animationHandler.isAnimating() && !animationHandler.isInterruptible()) {
+            // Do not proceed if there is an animation currently going on.
+            return;
+        }
+        if(transitionMonitor != null) {
+            transitionMonitor.begin(true);
+        }
 
         if(systemOverlay) {
             // If this is a system overlay menu, use the overlay container and place it behind
             // the main action button so that all the views will be added into it.
             attachOverlayContainer();
-
-            overlayParams = (WindowManager.LayoutParams) overlayContainer.getLayoutParams();
+            // The menu is closed if the screen rotates while it is open
+            armRotationListener();
         }
 
         if(animated && animationHandler != null) {
             // If animations are enabled and we have a MenuAnimationHandler, let it do the heavy work
-            if(animationHandler.isAnimating()) {
-                // Do not proceed if there is an animation currently going on.
-                return;
-            }
-
             for (int i = 0; i < subActionItems.size(); i++) {
-                // It is required that these Item views are not currently added to any parent
-                // Because they are supposed to be added to the Activity content view,
-                // just before the animation starts
-                if (subActionItems.get(i).view.getParent() != null) {
-                    throw new RuntimeException("All of the sub action items have to be independent from a parent.");
+                Item item = subActionItems.get(i);
+                if(item.view.getParent() != null && item.view.getVisibility() == View.VISIBLE) {
+                    // Still closing, the handler reverses it from where the item is
+                    continue;
                 }
-
                 // Initially, place all items right at the center of the main action view
                 // Because they are supposed to start animating from that point.
-                final FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(subActionItems.get(i).width, subActionItems.get(i).height, Gravity.TOP | Gravity.LEFT);
-
-                if(systemOverlay) {
-                    params.setMargins(center.x - overlayParams.x - subActionItems.get(i).width / 2, center.y - overlayParams.y - subActionItems.get(i).height / 2, 0, 0);
-                }
-                else {
-                    params.setMargins(center.x - subActionItems.get(i).width / 2, center.y - subActionItems.get(i).height / 2, 0, 0);
-                }
-                addViewToCurrentContainer(subActionItems.get(i).view, params);
+                showItem(item, center.x - item.width / 2, center.y - item.height / 2);
             }
             // Tell the current MenuAnimationHandler to animate from the center
             animationHandler.animateMenuOpening(center);
         }
         else {
+            if(animationHandler != null) {
+                // A running transition must not keep animating the items placed below
+                animationHandler.cancelAnimation();
+            }
             // If animations are disabled, just place each of the items to their calculated destination positions.
             for (int i = 0; i < subActionItems.size(); i++) {
-                // This is currently done by giving them large margins
-
-                final FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(subActionItems.get(i).width, subActionItems.get(i).height, Gravity.TOP | Gravity.LEFT);
-                if(systemOverlay) {
-                    params.setMargins(subActionItems.get(i).x - overlayParams.x, subActionItems.get(i).y - overlayParams.y, 0, 0);
-                    subActionItems.get(i).view.setLayoutParams(params);
-                }
-                else {
-                    params.setMargins(subActionItems.get(i).x, subActionItems.get(i).y, 0, 0);
-                    subActionItems.get(i).view.setLayoutParams(params);
-                    // Because they are placed into the main content view of the Activity,
-                    // which is itself a FrameLayout
-                }
-                addViewToCurrentContainer(subActionItems.get(i).view, params);
+                Item item = subActionItems.get(i);
+                showItem(item, item.x, item.y);
             }
         }
         // do not forget to specify that the menu is open.
@@ -229,19 +255,37 @@ public class FloatingActionMenu {
      */
     public void close(boolean animated) {
         // If animations are enabled and we have a MenuAnimationHandler, let it do the heavy work
+        if(animated && animationHandler != null
+                && animationHandler.isAnimating() && !animationHandler.isInterruptible()) {
+            // Do not proceed if there is an animation currently going on.
+            return;
+        }
+        if(systemOverlay) {
+            disarmRotationListener();
+        }
         if(animated && animationHandler != null) {
-            if(animationHandler.isAnimating()) {
-                // Do not proceed if there is an animation currently going on.
-                return;
+            if(transitionMonitor != null) {
+                transitionMonitor.begin(false);
             }
-            animationHandler.animateMenuClosing(getActionViewCenter());
+            // An interruptible handler reverses a running opening from where it is
+            getActionViewCenter(center);
+            animationHandler.animateMenuClosing(center);
         }
         else {
-            // If animations are disabled, just detach each of the Item views from the Activity content view.
+            if(transitionMonitor != null) {
+                transitionMonitor.begin(false);
+            }
+            if(animationHandler != null) {
+                // A running transition must not keep animating the items hidden below
+                animationHandler.cancelAnimation();
+            }
+            // If animations are disabled, just hide each of the Item views.
             for (int i = 0; i < subActionItems.size(); i++) {
-                removeViewFromCurrentContainer(subActionItems.get(i).view);
+                hideItem(subActionItems.get(i));
+            }
+            if(systemOverlay) {
+                hideOverlayContainer();
             }
-            detachOverlayContainer();
         }
         // do not forget to specify that the menu is now closed.
         open = false;
@@ -282,6 +326,64 @@ public class FloatingActionMenu {
         return overlayContainer;
     }
 
+    /**
+     * Compares the rotation of the display with the last known one.
+     * A rotation moves the main action view and may change the status bar height,
+     * an open menu is closed right away.
+     */
+    private void checkRotation() {
+        int rotation = getWindowManager().getDefaultDisplay().getRotation();
+        if(rotation == lastRotation) {
+            return;
+        }
+        lastRotation = rotation;
+        invalidateActionViewCenter();
+        statusBarHeight = -1;
+        if(isOpen()) {
+            close(false);
+        }
+    }
+
+    /**
+     * Starts listening to display or configuration changes, which are only delivered when
+     * something changes, unlike the orientation sensor.
+     */
+    private void armRotationListener() {
+        if(rotationListenerArmed) {
+            return;
+        }
+        Context context = mainActionView.getContext();
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            if(displayRotationListener == null) {
+                displayRotationListener = new DisplayRotationListener();
+            }
+            DisplayManager displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+            displayManager.registerDisplayListener(displayRotationListener, null);
+        }
+        else {
+            if(configurationRotationListener == null) {
+                configurationRotationListener = new ConfigurationRotationListener();
+            }
+            context.getApplicationContext().registerComponentCallbacks(configurationRotationListener);
+        }
+        rotationListenerArmed = true;
+    }
+
+    private void disarmRotationListener() {
+        if(!rotationListenerArmed) {
+            return;
+        }
+        Context context = mainActionView.getContext();
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            DisplayManager displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+            displayManager.unregisterDisplayListener(displayRotationListener);
+        }
+        else {
+            context.getApplicationContext().unregisterComponentCallbacks(configurationRotationListener);
+        }
+        rotationListenerArmed = false;
+    }
+
     /**
      * Recalculates the positions of each sub action item on demand.
      */
@@ -290,15 +392,15 @@ public class FloatingActionMenu {
         if(!isOpen()) {
             return;
         }
+        // The action view has probably moved
+        invalidateActionViewCenter();
         // recalculate x,y coordinates of Items
         calculateItemPositions();
 
-        // Simply update layout params for each item
+        // Simply move each item, this does not need a layout pass
         for (int i = 0; i < subActionItems.size(); i++) {
-            // This is currently done by giving them large margins
-            final FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(subActionItems.get(i).width, subActionItems.get(i).height, Gravity.TOP | Gravity.LEFT);
-            params.setMargins(subActionItems.get(i).x, subActionItems.get(i).y, 0, 0);
-            subActionItems.get(i).view.setLayoutParams(params);
+            Item item = subActionItems.get(i);
+            moveItem(item, item.x, item.y);
         }
     }
 
@@ -306,10 +408,10 @@ public class FloatingActionMenu {
      * Gets the coordinates of the main action view
      * This method should only be called after the main layout of the Activity is drawn,
      * such as when a user clicks the action button.
-     * @return a Point containing x and y coordinates of the top left corner of action view
+     * @param out receives the x and y coordinates of the top left corner of action view
      */
-    private Point getActionViewCoordinates() {
-        int[] coords = new int[2];
+    private void getActionViewCoordinates(Point out) {
+        int[] coords = locationBuffer;
         // This method returns a x and y values that can be larger than the dimensions of the device screen.
         mainActionView.getLocationOnScreen(coords);
 
@@ -318,12 +420,13 @@ public class FloatingActionMenu {
             coords[1] -= getStatusBarHeight();
         }
         else {
-            Rect activityFrame = new Rect();
+            Rect activityFrame = frameBuffer;
             getActivityContentView().getWindowVisibleDisplayFrame(activityFrame);
-            coords[0] -= (getScreenSize().x - getActivityContentView().getMeasuredWidth());
+            getWindowManager().getDefaultDisplay().getSize(screenSizeBuffer);
+            coords[0] -= (screenSizeBuffer.x - getActivityContentView().getMeasuredWidth());
             coords[1] -= (activityFrame.height() + activityFrame.top - getActivityContentView().getMeasuredHeight());
         }
-        return new Point(coords[0], coords[1]);
+        out.set(coords[0], coords[1]);
     }
 
     /**
@@ -331,43 +434,56 @@ public class FloatingActionMenu {
      * @return the action view center point
      */
     public Point getActionViewCenter() {
-        Point point = getActionViewCoordinates();
-        point.x += mainActionView.getMeasuredWidth() / 2;
-        point.y += mainActionView.getMeasuredHeight() / 2;
+        Point point = new Point();
+        getActionViewCenter(point);
         return point;
     }
 
+    /**
+     * Gets the center point of the main action view without allocating.
+     * It is only queried again after a layout, a scroll or an orientation change, or when
+     * the action view has been translated.
+     * @param out receives the action view center point
+     */
+    public void getActionViewCenter(Point out) {
+        if(!actionViewCenterValid || !actionViewObserver.registered
+                || actionViewCenterTranslationX != mainActionView.getTranslationX()
+                || actionViewCenterTranslationY != mainActionView.getTranslationY()) {
+            getActionViewCoordinates(actionViewCenter);
+            actionViewCenter.x += mainActionView.getMeasuredWidth() / 2;
+            actionViewCenter.y += mainActionView.getMeasuredHeight() / 2;
+            actionViewCenterTranslationX = mainActionView.getTranslationX();
+            actionViewCenterTranslationY = mainActionView.getTranslationY();
+            actionViewCenterValid = true;
+        }
+        out.set(actionViewCenter.x, actionViewCenter.y);
+    }
+
+    /**
+     * Makes the next center query measure the action view again.
+     * Layouts, scrolls and orientation changes already invalidate it, call it when the action view
+     * moves in any other way.
+     */
+    public void invalidateActionViewCenter() {
+        actionViewCenterValid = false;
+    }
+
     /**
      * Calculates the desired positions of all items.
      * @return getActionViewCenter()
      */
     private Point calculateItemPositions() {
-        // Create an arc that starts from startAngle and ends at endAngle
-        // in an area that is as large as 4*radius^2
-        final Point center = getActionViewCenter();
-        RectF area = new RectF(center.x - radius, center.y - radius, center.x + radius, center.y + radius);
+        getActionViewCenter(center);
+        // Only recomputed when the angles, the radius or the number of items change.
+        // A virtualized menu keeps its slots in place when the last page is not full.
+        int slotCount = radialWindow != null ? radialWindow.getWindowSize() : subActionItems.size();
+        arcGeometry.update(startAngle, endAngle, radius, slotCount);
 
-        Path orbit = new Path();
-        orbit.addArc(area, startAngle, endAngle - startAngle);
-
-        PathMeasure measure = new PathMeasure(orbit, false);
-
-        // Prevent overlapping when it is a full circle
-        int divisor;
-        if(Math.abs(endAngle - startAngle) >= 360 || subActionItems.size() <= 1) {
-            divisor = subActionItems.size();
-        }
-        else {
-            divisor = subActionItems.size() -1;
-        }
-
-        // Measure this path, in order to find points that have the same distance between each other
         for(int i=0; i<subActionItems.size(); i++) {
-            float[] coords = new float[] {0f, 0f};
-            measure.getPosTan((i) * measure.getLength() / divisor, coords, null);
+            final Item item = subActionItems.get(i);
             // get the x and y values of these points and set them to each of sub action items.
-            subActionItems.get(i).x = (int) coords[0] - subActionItems.get(i).width / 2;
-            subActionItems.get(i).y = (int) coords[1] - subActionItems.get(i).height / 2;
+            item.x = (int) (center.x + arcGeometry.getOffsetX(i)) - item.width / 2;
+            item.y = (int) (center.y + arcGeometry.getOffsetY(i)) - item.height / 2;
         }
         return center;
     }
@@ -386,6 +502,91 @@ public class FloatingActionMenu {
         return subActionItems;
     }
 
+    /**
+     * Switches the menu to the virtualized mode: instead of a fixed list of sub action items,
+     * the menu shows a window of a few slots on its arc, bound to the items of the adapter.
+     * Only the views of the slots are requested from the adapter, recycling the views of the previous
+     * binding by view type, so the cost of an opening does not depend on the number of items.
+     * The rest of the items are revealed with {@link #setFirstVisiblePosition(int)},
+     * {@link #pageForward()} and {@link #pageBackward()}.
+     * The menu is closed first if it is open.
+     * @param adapter the items of the menu, or null to leave the virtualized mode without any item
+     * @param windowSize the number of slots on the arc
+     * @param itemWidth the width of every item view
+     * @param itemHeight the height of every item view
+     */
+    public void setAdapter(Adapter adapter, int windowSize, int itemWidth, int itemHeight) {
+        if(open) {
+            close(false);
+        }
+        if(radialWindow != null) {
+            radialWindow.release();
+            radialWindow = null;
+        }
+        subActionItems = new ArrayList<Item>();
+        if(adapter != null) {
+            radialWindow = new RadialWindow(this, adapter, windowSize, itemWidth, itemHeight);
+        }
+    }
+
+    /**
+     * @return the adapter position shown in the first slot of a virtualized menu, 0 otherwise
+     */
+    public int getFirstVisiblePosition() {
+        return radialWindow != null ? radialWindow.getFirstPosition() : 0;
+    }
+
+    /**
+     * Rotates the window of a virtualized menu through the adapter, so that its first slot shows
+     * the item at the given position. An open menu shows the new items right away.
+     * @return false if the menu is not virtualized, if the window already starts there,
+     * or if a transition is running
+     */
+    public boolean setFirstVisiblePosition(int position) {
+        if(radialWindow == null || (animationHandler != null && animationHandler.isAnimating())) {
+            return false;
+        }
+        if(!radialWindow.setFirstPosition(position)) {
+            return false;
+        }
+        onWindowChanged();
+        return true;
+    }
+
+    /**
+     * Shows the next window of items of a virtualized menu.
+     * @return false if there is no next window, see {@link #setFirstVisiblePosition(int)}
+     */
+    public boolean pageForward() {
+        return radialWindow != null
+                && setFirstVisiblePosition(radialWindow.getFirstPosition() + radialWindow.getWindowSize());
+    }
+
+    /**
+     * Shows the previous window of items of a virtualized menu.
+     * @return false if there is no previous window, see {@link #setFirstVisiblePosition(int)}
+     */
+    public boolean pageBackward() {
+        return radialWindow != null
+                && setFirstVisiblePosition(radialWindow.getFirstPosition() - radialWindow.getWindowSize());
+    }
+
+    /**
+     * Binds the window of a virtualized menu again. An open menu shows its new items in place,
+     * unless a transition is running: they are then bound on the next opening.
+     */
+    void onWindowChanged() {
+        if(!open || (animationHandler != null && animationHandler.isAnimating())) {
+            return;
+        }
+        radialWindow.bind(subActionItems, getCurrentContainer());
+        calculateItemPositions();
+        for (int i = 0; i < subActionItems.size(); i++) {
+            Item item = subActionItems.get(i);
+            showItem(item, item.x, item.y);
+        }
+    }
+
     /**
      * Finds and returns the main content view from the Activity context.
      * @return the main content view
@@ -407,36 +608,160 @@ public class FloatingActionMenu {
         return (WindowManager) mainActionView.getContext().getSystemService(Context.WINDOW_SERVICE);
     }
 
+    /**
+     * Measures every item added without a definite size, off-screen and in a single pass,
+     * the way the host layer would measure it once attached.
+     */
+    private void measureUnsizedItems() {
+        int parentWidthSpec = 0;
+        int parentHeightSpec = 0;
+        boolean parentSpecsReady = false;
+        for (int i = 0; i < subActionItems.size(); i++) {
+            Item item = subActionItems.get(i);
+            if(item.width != 0 && item.height != 0) {
+                continue;
+            }
+            if(!parentSpecsReady) {
+                // The host layer fills the content view, which may not be laid out yet
+                View contentView = getActivityContentView();
+                int parentWidth = contentView.getMeasuredWidth();
+                int parentHeight = contentView.getMeasuredHeight();
+                if(parentWidth == 0 || parentHeight == 0) {
+                    parentWidth = contentView.getResources().getDisplayMetrics().widthPixels;
+                    parentHeight = contentView.getResources().getDisplayMetrics().heightPixels;
+                }
+                parentWidthSpec = View.MeasureSpec.makeMeasureSpec(parentWidth, View.MeasureSpec.EXACTLY);
+                parentHeightSpec = View.MeasureSpec.makeMeasureSpec(parentHeight, View.MeasureSpec.EXACTLY);
+                parentSpecsReady = true;
+            }
+
+            ViewGroup.LayoutParams layoutParams = item.view.getLayoutParams();
+            // FrameLayout fills itself with children that come without layout params
+            int childWidth = layoutParams != null ? layoutParams.width : ViewGroup.LayoutParams.MATCH_PARENT;
+            int childHeight = layoutParams != null ? layoutParams.height : ViewGroup.LayoutParams.MATCH_PARENT;
+            int horizontalMargins = 0;
+            int verticalMargins = 0;
+            if(layoutParams instanceof ViewGroup.MarginLayoutParams) {
+                ViewGroup.MarginLayoutParams margins = (ViewGroup.MarginLayoutParams) layoutParams;
+                horizontalMargins = margins.leftMargin + margins.rightMargin;
+                verticalMargins = margins.topMargin + margins.bottomMargin;
+            }
+            item.view.measure(ViewGroup.getChildMeasureSpec(parentWidthSpec, horizontalMargins, childWidth),
+                    ViewGroup.getChildMeasureSpec(parentHeightSpec, verticalMargins, childHeight));
+            item.width = item.view.getMeasuredWidth();
+            item.height = item.view.getMeasuredHeight();
+        }
+    }
+
     private void addViewToCurrentContainer(View view, ViewGroup.LayoutParams layoutParams) {
+        try {
+            if(layoutParams != null) {
+                FrameLayout.LayoutParams lp = (FrameLayout.LayoutParams) layoutParams;
+                getCurrentContainer().addView(view, lp);
+            }
+            else {
+                getCurrentContainer().addView(view);
+            }
+        }
+        catch(ClassCastException e) {
+            throw new ClassCastException("layoutParams must be an instance of " +
+                    "FrameLayout.LayoutParams.");
+        }
+    }
+
+    /**
+     * @return the container the sub action views are shown in: the overlay container in the
+     * system overlay mode, otherwise the host layer of the Activity
+     */
+    public ViewGroup getCurrentContainer() {
         if(systemOverlay) {
-            overlayContainer.addView(view, layoutParams);
+            return overlayContainer;
         }
-        else {
-            try {
-                if(layoutParams != null) {
-                    FrameLayout.LayoutParams lp = (FrameLayout.LayoutParams) layoutParams;
-                    ((ViewGroup) getActivityContentView()).addView(view, lp);
-                }
-                else {
-                    ((ViewGroup) getActivityContentView()).addView(view);
-                }
-            }
-            catch(ClassCastException e) {
-                throw new ClassCastException("layoutParams must be an instance of " +
-                        "FrameLayout.LayoutParams.");
+        if(hostLayer == null) {
+            hostLayer = MenuHostLayer.obtain((ViewGroup) getActivityContentView());
+        }
+        return hostLayer;
+    }
+
+    /**
+     * @return the horizontal position of the current container, in the coordinates of the menu
+     */
+    public int getContainerOffsetX() {
+        if(systemOverlay) {
+            return overlayParams.x;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the vertical position of the current container, in the coordinates of the menu
+     */
+    public int getContainerOffsetY() {
+        if(systemOverlay) {
+            return overlayParams.y;
+        }
+        return 0;
+    }
+
+    /**
+     * Places the item view at the given position through translation, without a layout pass.
+     * @param x the left position of the item, in the coordinates of the menu
+     * @param y the top position of the item, in the coordinates of the menu
+     */
+    public void moveItem(Item item, int x, int y) {
+        item.view.setTranslationX(x - getContainerOffsetX());
+        item.view.setTranslationY(y - getContainerOffsetY());
+    }
+
+    /**
+     * Shows the item view at the given position.
+     * The view is attached to the current container the first time, later calls do not change the layout.
+     */
+    public void showItem(Item item, int x, int y) {
+        if(MenuHostLayer.attach(getCurrentContainer(), item.view, item.width, item.height)
+                && transitionMonitor != null) {
+            transitionMonitor.onViewAttached();
+        }
+        moveItem(item, x, y);
+        item.view.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Hides the item view. It stays attached to the current container, ready for the next opening.
+     */
+    public void hideItem(Item item) {
+        item.view.setVisibility(View.INVISIBLE);
+    }
+
+    /**
+     * @return whether any of the sub action item views is currently shown
+     */
+    public boolean hasVisibleItems() {
+        for (int i = 0; i < subActionItems.size(); i++) {
+            if(subActionItems.get(i).view.getVisibility() == View.VISIBLE) {
+                return true;
             }
         }
+        return false;
     }
 
+    /**
+     * Adds the overlay container window around the items, or makes it fit them and receive touches
+     * again if it is already added. The window is only updated when its bounds or flags change.
+     */
     public void attachOverlayContainer() {
         try {
-            WindowManager.LayoutParams overlayParams = calculateOverlayContainerParams();
-
-            overlayContainer.setLayoutParams(overlayParams);
+            boolean changed = updateOverlayContainerParams();
             if(overlayContainer.getParent() == null) {
                 getWindowManager().addView(overlayContainer, overlayParams);
+                if(transitionMonitor != null) {
+                    transitionMonitor.onViewAttached();
+                }
+                getWindowManager().updateViewLayout(mainActionView, mainActionView.getLayoutParams());
+            }
+            else if(changed) {
+                getWindowManager().updateViewLayout(overlayContainer, overlayParams);
             }
-            getWindowManager().updateViewLayout(mainActionView, mainActionView.getLayoutParams());
         }
         catch(SecurityException e) {
             throw new SecurityException("Your application must have SYSTEM_ALERT_WINDOW " +
@@ -444,9 +769,12 @@ public class FloatingActionMenu {
         }
     }
 
-    private WindowManager.LayoutParams calculateOverlayContainerParams() {
+    /**
+     * Makes the overlay container parameters fit the items and receive touches.
+     * @return whether any of the parameters has changed
+     */
+    private boolean updateOverlayContainerParams() {
         // calculate the minimum viable size of overlayContainer
-        WindowManager.LayoutParams overlayParams = getDefaultSystemWindowParams();
         int left = 9999, right = 0, top = 9999, bottom = 0;
         for(int i=0; i < subActionItems.size(); i++) {
             int lm = subActionItems.get(i).x;
@@ -465,24 +793,78 @@ public class FloatingActionMenu {
                 bottom = tm + subActionItems.get(i).height;
             }
         }
+        int flags = overlayParams.flags & ~WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+        if(overlayParams.width == right - left && overlayParams.height == bottom - top
+                && overlayParams.x == left && overlayParams.y == top && overlayParams.flags == flags) {
+            return false;
+        }
         overlayParams.width = right - left;
         overlayParams.height = bottom - top;
         overlayParams.x = left;
         overlayParams.y = top;
-        overlayParams.gravity = Gravity.TOP | Gravity.LEFT;
-        return overlayParams;
+        overlayParams.flags = flags;
+        return true;
+    }
+
+    /**
+     * Called once all the items are hidden. Removes the overlay container window,
+     * or only lets touches go through it if the overlay is persistent.
+     */
+    public void hideOverlayContainer() {
+        if(!persistentOverlay) {
+            detachOverlayContainer();
+            return;
+        }
+        if(overlayContainer.getParent() != null
+                && (overlayParams.flags & WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE) == 0) {
+            overlayParams.flags |= WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+            getWindowManager().updateViewLayout(overlayContainer, overlayParams);
+        }
     }
 
+    /**
+     * Removes the overlay container window, if it is added.
+     * A persistent overlay has to be detached this way once the menu is not needed anymore.
+     */
     public void detachOverlayContainer() {
+        if(overlayContainer.getParent() == null) {
+            return;
+        }
         getWindowManager().removeView(overlayContainer);
+        if(transitionMonitor != null) {
+            transitionMonitor.onViewDetached();
+        }
+        actionViewObserver.unregister();
+    }
+
+    /**
+     * In the system overlay mode, chooses whether the overlay container window stays added while
+     * the menu is closed. Adding and removing a window are expensive, a persistent window is only
+     * resized when the items move and made untouchable while the menu is closed.
+     * It must then be removed with {@link #detachOverlayContainer()} once the menu is not needed anymore.
+     * @param persistentOverlay true to keep the overlay container window
+     */
+    public void setPersistentOverlay(boolean persistentOverlay) {
+        this.persistentOverlay = persistentOverlay;
+        if(!persistentOverlay && systemOverlay && !hasVisibleItems()) {
+            detachOverlayContainer();
+        }
+    }
+
+    public boolean isPersistentOverlay() {
+        return persistentOverlay;
     }
 
     public int getStatusBarHeight() {
+        if(statusBarHeight >= 0) {
+            return statusBarHeight;
+        }
         int result = 0;
         int resourceId = mainActionView.getContext().getResources().getIdentifier("status_bar_height", "dimen", "android");
         if (resourceId > 0) {
             result = mainActionView.getContext().getResources().getDimensionPixelSize(resourceId);
         }
+        statusBarHeight = result;
         return result;
     }
 
@@ -491,26 +873,45 @@ public class FloatingActionMenu {
     }
 
     public void removeViewFromCurrentContainer(View view) {
-        if(systemOverlay) {
-            overlayContainer.removeView(view);
-        }
-        else {
-            ((ViewGroup)getActivityContentView()).removeView(view);
+        if(view.getParent() == getCurrentContainer() && transitionMonitor != null) {
+            transitionMonitor.onViewDetached();
         }
+        getCurrentContainer().removeView(view);
+    }
+
+    public void setStateChangeListener(MenuStateChangeListener listener) {
+        this.stateChangeListener = listener;
     }
 
     /**
-     * Retrieves the screen size from the Activity context
-     * @return the screen size as a Point object
+     * Sets a listener that receives the measurements of every transition of this menu, such as the
+     * latency of its first frame and the frames that were late. Frames are observed through
+     * Choreographer, so nothing is reported before Jelly Bean.
+     * @param listener the listener, or null to stop measuring
      */
-    private Point getScreenSize() {
-        Point size = new Point();
-        getWindowManager().getDefaultDisplay().getSize(size);
-        return size;
-    }
+    public void setMetricsListener(MenuMetricsListener listener) {
+        this.metricsListener = listener;
+        if(listener == null) {
+            if(transitionMonitor != null) {
+                transitionMonitor.cancel();
+                transitionMonitor = null;
+            }
+        }
+        else if(transitionMonitor == null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            transitionMonitor = new TransitionMonitor(new TransitionMonitor.Callback() {
+                @Override
+                public boolean isTransitionRunning() {
+                    return animationHandler != null && animationHandler.isAnimating();
+                }
 
-    public void setStateChangeListener(MenuStateChangeListener listener) {
-        this.stateChangeListener = listener;
+                @Override
+                public void onTransitionMeasured(TransitionMetrics metrics) {
+                    if(metricsListener != null) {
+                        metricsListener.onTransitionMeasured(FloatingActionMenu.this, metrics);
+                    }
+                }
+            }, getWindowManager().getDefaultDisplay().getRefreshRate());
+        }
     }
 
     /**
@@ -525,34 +926,98 @@ public class FloatingActionMenu {
     }
 
     /**
-     * This runnable calculates sizes of Item views that are added to the menu.
+     * Invalidates the center of the action view when its window is laid out or scrolled.
+     * It only observes the window while the action view is attached, so that neither the menu nor
+     * the action view are kept by the tree observer of a window that is gone.
      */
-    private class ItemViewQueueListener implements Runnable {
+    private class ActionViewObserver implements ViewTreeObserver.OnGlobalLayoutListener,
+            ViewTreeObserver.OnScrollChangedListener, View.OnAttachStateChangeListener {
 
-        private static final int MAX_TRIES = 10;
-        private Item item;
-        private int tries;
+        private boolean registered;
 
-        public ItemViewQueueListener(Item item) {
-            this.item = item;
-            this.tries = 0;
+        /** Starts observing the window of the action view, if it is attached to one */
+        void register() {
+            if(registered || mainActionView.getWindowToken() == null) {
+                return;
+            }
+            ViewTreeObserver observer = mainActionView.getViewTreeObserver();
+            observer.addOnGlobalLayoutListener(this);
+            observer.addOnScrollChangedListener(this);
+            registered = true;
+            invalidateActionViewCenter();
         }
 
-        @Override
-        public void run() {
-            // Wait until the the view can be measured but do not push too hard.
-            if(item.view.getMeasuredWidth() == 0 && tries < MAX_TRIES) {
-                item.view.post(this);
+        @SuppressWarnings("deprecation")
+        void unregister() {
+            if(!registered) {
                 return;
             }
-            // Measure the size of the item view
-            item.width = item.view.getMeasuredWidth();
-            item.height = item.view.getMeasuredHeight();
+            // The action view is still attached while it is told it is detached
+            ViewTreeObserver observer = mainActionView.getViewTreeObserver();
+            if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                observer.removeOnGlobalLayoutListener(this);
+            }
+            else {
+                observer.removeGlobalOnLayoutListener(this);
+            }
+            observer.removeOnScrollChangedListener(this);
+            registered = false;
+            invalidateActionViewCenter();
+        }
+
+        @Override
+        public void onGlobalLayout() {
+            invalidateActionViewCenter();
+        }
+
+        @Override
+        public void onScrollChanged() {
+            invalidateActionViewCenter();
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            register();
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            unregister();
+        }
+    }
+
+    /**
+     * Checks the rotation whenever a display changes.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private class DisplayRotationListener implements DisplayManager.DisplayListener {
+
+        @Override
+        public void onDisplayAdded(int displayId) {
+        }
+
+        @Override
+        public void onDisplayRemoved(int displayId) {
+        }
+
+        @Override
+        public void onDisplayChanged(int displayId) {
+            checkRotation();
+        }
+    }
+
+    /**
+     * Checks the rotation whenever the configuration changes.
+     */
+    private class ConfigurationRotationListener implements ComponentCallbacks {
 
-            // Revert everything back to normal
-            item.view.setAlpha(item.alpha);
-            // Remove the item view from view hierarchy
-            removeViewFromCurrentContainer(item.view);
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            checkRotation();
+        }
+
+        @Override
+        public void onLowMemory() {
         }
     }
 
@@ -587,6 +1052,26 @@ public class FloatingActionMenu {
         public void onMenuClosed(FloatingActionMenu menu);
     }
 
+    /**
+     * A listener to receive a menu built by {@link Builder#buildAsync(Executor, OnMenuBuiltListener)}
+     */
+    public static interface OnMenuBuiltListener {
+        public void onMenuBuilt(FloatingActionMenu menu);
+        /**
+         * Called instead of {@link #onMenuBuilt(FloatingActionMenu)} when the menu cannot be built,
+         * not even on the main thread.
+         * @param e what build() would have thrown
+         */
+        public void onMenuBuildFailed(RuntimeException e);
+    }
+
+    /**
+     * A listener to receive the measurements of each transition of the Menu, once it is over
+     */
+    public static interface MenuMetricsListener {
+        public void onTransitionMeasured(FloatingActionMenu menu, TransitionMetrics metrics);
+    }
+
     /**
      * A builder for {@link FloatingActionMenu} in conventional Java Builder format
      */
@@ -596,14 +1081,21 @@ public class FloatingActionMenu {
         private int endAngle;
         private int radius;
         private View actionView;
-        private List<Item> subActionItems;
+        /** the sub action views to add, some of them are only created when the menu is built */
+        private List<SubActionSource> subActionSources;
         private MenuAnimationHandler animationHandler;
         private boolean animated;
         private MenuStateChangeListener stateChangeListener;
+        private MenuMetricsListener metricsListener;
         private boolean systemOverlay;
+        private boolean persistentOverlay;
+        private Adapter adapter;
+        private int windowSize;
+        private int itemWidth;
+        private int itemHeight;
 
         public Builder(Context context, boolean systemOverlay) {
-            subActionItems = new ArrayList<Item>();
+            subActionSources = new ArrayList<SubActionSource>();
             // Default settings
             radius = context.getResources().getDimensionPixelSize(R.dimen.action_menu_radius);
             startAngle = 180;
@@ -633,7 +1125,7 @@ public class FloatingActionMenu {
         }
 
         public Builder addSubActionView(View subActionView, int width, int height) {
-            subActionItems.add(new Item(subActionView, width, height));
+            subActionSources.add(new SubActionSource(subActionView, width, height));
             return this;
         }
 
@@ -653,15 +1145,28 @@ public class FloatingActionMenu {
 
         /**
          * Inflates a new view from the specified resource id and adds it as a sub action view.
+         * The view is inflated and measured when the menu is built, on the executor of
+         * {@link #buildAsync(Executor, OnMenuBuiltListener)} if the menu is built that way.
          * @param resId the resource id reference for the view
          * @param context a valid context
          * @return the builder object itself
          */
         public Builder addSubActionView(int resId, Context context) {
-            LayoutInflater inflater = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-            View view = inflater.inflate(resId, null, false);
-            view.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
-            return this.addSubActionView(view, view.getMeasuredWidth(), view.getMeasuredHeight());
+            subActionSources.add(new SubActionSource(context, resId, 0, null));
+            return this;
+        }
+
+        /**
+         * Adds a {@link SubActionButton} that shows the specified icon, with the size of the button builder.
+         * The icon is decoded and the button created when the menu is built, on the executor of
+         * {@link #buildAsync(Executor, OnMenuBuiltListener)} if the menu is built that way.
+         * @param iconResId the resource id of the icon drawable
+         * @param buttonBuilder the builder of the button, it should not be changed until the menu is built
+         * @return the builder object itself
+         */
+        public Builder addSubActionIcon(int iconResId, SubActionButton.Builder buttonBuilder) {
+            subActionSources.add(new SubActionSource(buttonBuilder.getContext(), 0, iconResId, buttonBuilder));
+            return this;
         }
 
         /**
@@ -689,11 +1194,27 @@ public class FloatingActionMenu {
             return this;
         }
 
+        /**
+         * @see FloatingActionMenu#setMetricsListener(MenuMetricsListener)
+         */
+        public Builder setMetricsListener(MenuMetricsListener listener) {
+            metricsListener = listener;
+            return this;
+        }
+
         public Builder setSystemOverlay(boolean systemOverlay) {
             this.systemOverlay = systemOverlay;
             return this;
         }
 
+        /**
+         * @see FloatingActionMenu#setPersistentOverlay(boolean)
+         */
+        public Builder setPersistentOverlay(boolean persistentOverlay) {
+            this.persistentOverlay = persistentOverlay;
+            return this;
+        }
+
         /**
          * Attaches the whole menu around a main action view, usually a button.
          * All the calculations are made according to this action view.
@@ -705,8 +1226,101 @@ public class FloatingActionMenu {
             return this;
         }
 
+        /**
+         * Builds a virtualized menu, showing a window of the items of the adapter instead of sub action views.
+         * @see FloatingActionMenu#setAdapter(Adapter, int, int, int)
+         */
+        public Builder setAdapter(Adapter adapter, int windowSize, int itemWidth, int itemHeight) {
+            this.adapter = adapter;
+            this.windowSize = windowSize;
+            this.itemWidth = itemWidth;
+            this.itemHeight = itemHeight;
+            return this;
+        }
+
         public FloatingActionMenu build() {
-            return new FloatingActionMenu(actionView,
+            return createMenu(createSubActionItems(subActionSources));
+        }
+
+        /**
+         * Builds the menu without blocking the calling thread for long: layouts are inflated,
+         * icons decoded and the views created and measured on the executor.
+         * The menu itself is then created and delivered on the main thread, ready to use.
+         * Views that cannot be created on the executor, such as views that need a Looper, make the
+         * whole menu be built again on the main thread, as does an executor that rejects the work.
+         * The builder should not be changed until then.
+         * @param executor runs the inflation, decoding and measurement, usually a background executor
+         * @param listener receives the menu, or the failure to build it, on the main thread
+         */
+        public void buildAsync(Executor executor, final OnMenuBuiltListener listener) {
+            final List<SubActionSource> sources = new ArrayList<SubActionSource>(subActionSources);
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            final Runnable buildOnMainThread = new Runnable() {
+                @Override
+                public void run() {
+                    List<Item> items;
+                    try {
+                        items = createSubActionItems(sources);
+                    }
+                    catch(RuntimeException e) {
+                        listener.onMenuBuildFailed(e);
+                        return;
+                    }
+                    deliverMenu(items, listener);
+                }
+            };
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final List<Item> items;
+                        try {
+                            items = createSubActionItems(sources);
+                        }
+                        catch(RuntimeException e) {
+                            // Some views can only be created on the main thread, try again there
+                            mainHandler.post(buildOnMainThread);
+                            return;
+                        }
+                        mainHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                deliverMenu(items, listener);
+                            }
+                        });
+                    }
+                });
+            }
+            catch(RejectedExecutionException e) {
+                mainHandler.post(buildOnMainThread);
+            }
+        }
+
+        /**
+         * Creates the menu around the given items on the main thread and hands it to the listener.
+         */
+        private void deliverMenu(List<Item> items, OnMenuBuiltListener listener) {
+            FloatingActionMenu menu;
+            try {
+                menu = createMenu(items);
+            }
+            catch(RuntimeException e) {
+                listener.onMenuBuildFailed(e);
+                return;
+            }
+            listener.onMenuBuilt(menu);
+        }
+
+        private static List<Item> createSubActionItems(List<SubActionSource> sources) {
+            List<Item> items = new ArrayList<Item>(sources.size());
+            for (int i = 0; i < sources.size(); i++) {
+                items.add(sources.get(i).createItem());
+            }
+            return items;
+        }
+
+        private FloatingActionMenu createMenu(List<Item> subActionItems) {
+            FloatingActionMenu menu = new FloatingActionMenu(actionView,
                                           startAngle,
                                           endAngle,
                                           radius,
@@ -715,6 +1329,67 @@ public class FloatingActionMenu {
                                           animated,
                                           stateChangeListener,
                                           systemOverlay);
+            if(metricsListener != null) {
+                menu.setMetricsListener(metricsListener);
+            }
+            menu.setPersistentOverlay(persistentOverlay);
+            if(adapter != null) {
+                menu.setAdapter(adapter, windowSize, itemWidth, itemHeight);
+            }
+            return menu;
+        }
+    }
+
+    /**
+     * A sub action view added to a {@link Builder}: either a view that is already alive,
+     * or a layout or an icon to turn into a view when the menu is built.
+     */
+    private static class SubActionSource {
+        private final View view;
+        private final int width;
+        private final int height;
+        private final Context context;
+        private final int layoutResId;
+        private final int iconResId;
+        private final SubActionButton.Builder buttonBuilder;
+
+        SubActionSource(View view, int width, int height) {
+            this.view = view;
+            this.width = width;
+            this.height = height;
+            this.context = null;
+            this.layoutResId = 0;
+            this.iconResId = 0;
+            this.buttonBuilder = null;
+        }
+
+        SubActionSource(Context context, int layoutResId, int iconResId, SubActionButton.Builder buttonBuilder) {
+            this.view = null;
+            this.width = 0;
+            this.height = 0;
+            this.context = context;
+            this.layoutResId = layoutResId;
+            this.iconResId = iconResId;
+            this.buttonBuilder = buttonBuilder;
+        }
+
+        /**
+         * Creates the view if needed. Only touches views that are not attached, so it may run on any thread.
+         */
+        Item createItem() {
+            if(view != null) {
+                return new Item(view, width, height);
+            }
+            if(layoutResId != 0) {
+                LayoutInflater inflater = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
+                View inflated = inflater.inflate(layoutResId, null, false);
+                inflated.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+                return new Item(inflated, inflated.getMeasuredWidth(), inflated.getMeasuredHeight());
+            }
+            ImageView icon = new ImageView(context);
+            icon.setImageDrawable(context.getResources().getDrawable(iconResId));
+            SubActionButton button = buttonBuilder.setContentView(icon).build();
+            return new Item(button, button.getLayoutParams().width, button.getLayoutParams().height);
         }
     }
 
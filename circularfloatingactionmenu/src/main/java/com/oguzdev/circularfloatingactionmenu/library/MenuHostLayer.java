@@ -0,0 +1,57 @@
+/*
+ *   Copyright 2014 Oguz Bilgener
+ */
+package com.oguzdev.circularfloatingactionmenu.library;
+
+import android.content.Context;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+/**
+ * A transparent layer on top of the Activity content view that hosts the sub action items
+ * of every {@link FloatingActionMenu} of that Activity.
+ * It is attached once. Items stay attached to it while their menu is closed, hidden and
+ * positioned through translation, so opening or closing a menu does not relayout the content view.
+ */
+public class MenuHostLayer extends FrameLayout {
+
+    public MenuHostLayer(Context context) {
+        super(context);
+    }
+
+    /**
+     * Finds the host layer of the given content view, attaching a new one the first time.
+     * @param contentView the main content view of an Activity
+     * @return the host layer shared by all the menus of that Activity
+     */
+    public static MenuHostLayer obtain(ViewGroup contentView) {
+        View layer = contentView.findViewById(R.id.circular_menu_host_layer);
+        if(layer instanceof MenuHostLayer) {
+            return (MenuHostLayer) layer;
+        }
+        MenuHostLayer host = new MenuHostLayer(contentView.getContext());
+        host.setId(R.id.circular_menu_host_layer);
+        contentView.addView(host, new FrameLayout.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+        return host;
+    }
+
+    /**
+     * Attaches the view at the top left corner of the given container, hidden, unless it is already attached.
+     * It can then be placed with {@link View#setTranslationX(float)} and {@link View#setTranslationY(float)}.
+     * @param container the host layer, or the overlay container of a system overlay menu
+     * @return true if the view has been attached by this call
+     */
+    public static boolean attach(ViewGroup container, View view, int width, int height) {
+        if(view.getParent() == container) {
+            return false;
+        }
+        if(view.getParent() != null) {
+            throw new RuntimeException("All of the sub action items have to be independent from a parent.");
+        }
+        view.setVisibility(INVISIBLE);
+        container.addView(view, new FrameLayout.LayoutParams(width, height, Gravity.TOP | Gravity.LEFT));
+        return true;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ *   Copyright 2014 Oguz Bilgener
+ */
+package com.oguzdev.circularfloatingactionmenu.library;
+
+import android.database.DataSetObserver;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Adapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds the visible window of a virtualized {@link FloatingActionMenu} to the items of an {@link Adapter}.
+ * The window has a fixed number of slots laid out on the arc. Each slot is an {@link FloatingActionMenu.Item}
+ * whose view is rebound when the window moves through the adapter, and views that are not needed anymore
+ * are kept hidden in a pool, by view type, to be handed back to the adapter as convert views.
+ * Opening the menu therefore costs the same whatever the number of items in the adapter.
+ */
+class RadialWindow {
+
+    private final FloatingActionMenu menu;
+    private final Adapter adapter;
+    private final int itemWidth;
+    private final int itemHeight;
+    /** the slots of the window, created on first use */
+    private final FloatingActionMenu.Item[] slots;
+    /** the view type of the view of each slot */
+    private final int[] slotTypes;
+    /** views that are not bound to a slot, by view type */
+    private final SparseArray<List<View>> scrapViews = new SparseArray<List<View>>();
+    private final DataSetObserver observer = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            dataChanged();
+        }
+
+        @Override
+        public void onInvalidated() {
+            dataChanged();
+        }
+    };
+
+    /** adapter position of the first slot */
+    private int firstPosition;
+    /** whether the slots have to be bound again before they are shown */
+    private boolean dirty = true;
+
+    RadialWindow(FloatingActionMenu menu, Adapter adapter, int windowSize, int itemWidth, int itemHeight) {
+        if(windowSize <= 0) {
+            throw new IllegalArgumentException("The window of a virtualized menu needs at least one slot.");
+        }
+        this.menu = menu;
+        this.adapter = adapter;
+        this.itemWidth = itemWidth;
+        this.itemHeight = itemHeight;
+        slots = new FloatingActionMenu.Item[windowSize];
+        slotTypes = new int[windowSize];
+        adapter.registerDataSetObserver(observer);
+    }
+
+    void release() {
+        adapter.unregisterDataSetObserver(observer);
+    }
+
+    int getWindowSize() {
+        return slots.length;
+    }
+
+    int getFirstPosition() {
+        return firstPosition;
+    }
+
+    /**
+     * Moves the window so that it starts at the given adapter position.
+     * @return false if the window already starts there, or if there is no item at that position
+     */
+    boolean setFirstPosition(int position) {
+        position = Math.max(0, position);
+        if(position == firstPosition || position >= adapter.getCount()) {
+            return false;
+        }
+        firstPosition = position;
+        dirty = true;
+        return true;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Binds every slot that has an adapter item to show, and fills the given list with them.
+     * Only the views of the slots are asked from the adapter, recycling the views of the previous binding.
+     */
+    void bind(List<FloatingActionMenu.Item> boundItems, ViewGroup container) {
+        final int count = adapter.getCount();
+        if(firstPosition >= count) {
+            firstPosition = Math.max(0, count - slots.length);
+        }
+        final int bound = Math.max(0, Math.min(slots.length, count - firstPosition));
+        boundItems.clear();
+        for (int i = 0; i < slots.length; i++) {
+            FloatingActionMenu.Item slot = slots[i];
+            if(i >= bound) {
+                // Nothing to show in this slot
+                if(slot != null && slot.view != null) {
+                    recycle(slot.view, slotTypes[i]);
+                    slot.view = null;
+                }
+                continue;
+            }
+            final int position = firstPosition + i;
+            final int type = adapter.getItemViewType(position);
+            View convertView = null;
+            if(slot != null && slot.view != null) {
+                if(slotTypes[i] == type && type >= 0) {
+                    convertView = slot.view;
+                }
+                else {
+                    recycle(slot.view, slotTypes[i]);
+                    slot.view = null;
+                }
+            }
+            if(convertView == null) {
+                convertView = obtainScrapView(type);
+            }
+            final View view = adapter.getView(position, convertView, container);
+            if(convertView != null && view != convertView) {
+                recycle(convertView, type);
+            }
+            if(slot == null) {
+                slot = new FloatingActionMenu.Item(view, itemWidth, itemHeight);
+                slots[i] = slot;
+            }
+            else {
+                slot.view = view;
+            }
+            slotTypes[i] = type;
+            boundItems.add(slot);
+        }
+        dirty = false;
+    }
+
+    private View obtainScrapView(int type) {
+        if(type < 0) {
+            return null;
+        }
+        List<View> scrap = scrapViews.get(type);
+        if(scrap == null || scrap.isEmpty()) {
+            return null;
+        }
+        return scrap.remove(scrap.size() - 1);
+    }
+
+    /**
+     * Hides the view and keeps it for a later binding. It stays attached to its container if it is.
+     */
+    private void recycle(View view, int type) {
+        view.setVisibility(View.INVISIBLE);
+        if(type < 0) {
+            // The adapter does not want this view to be recycled
+            if(view.getParent() instanceof ViewGroup) {
+                menu.removeViewFromCurrentContainer(view);
+            }
+            return;
+        }
+        List<View> scrap = scrapViews.get(type);
+        if(scrap == null) {
+            scrap = new ArrayList<View>();
+            scrapViews.put(type, scrap);
+        }
+        scrap.add(view);
+    }
+
+    private void dataChanged() {
+        dirty = true;
+        menu.onWindowChanged();
+    }
+}
@@ -22,28 +22,39 @@ public class SubActionButton extends FrameLayout {
     public static final int THEME_DARKER = 3;
 
     public SubActionButton(Context context, LayoutParams layoutParams, int theme, Drawable backgroundDrawable, View contentView, LayoutParams contentParams) {
+        this(context, layoutParams, theme, backgroundDrawable, ButtonBackgrounds.NO_TINT, contentView, contentParams);
+    }
+
+    /**
+     * @param backgroundTint a color drawn over the background, or 0 to keep it as it is.
+     *                       Only tinted buttons get a background state of their own.
+     */
+    public SubActionButton(Context context, LayoutParams layoutParams, int theme, Drawable backgroundDrawable, int backgroundTint, View contentView, LayoutParams contentParams) {
         super(context);
         setLayoutParams(layoutParams);
         // If no custom backgroundDrawable is specified, use the background drawable of the theme.
+        // Either way the background shares its state with the other buttons using it.
         if(backgroundDrawable == null) {
+            int resId;
             if(theme == THEME_LIGHT) {
-                backgroundDrawable = context.getResources().getDrawable(R.drawable.button_sub_action_selector);
+                resId = R.drawable.button_sub_action_selector;
             }
             else if(theme == THEME_DARK) {
-                backgroundDrawable = context.getResources().getDrawable(R.drawable.button_sub_action_dark_selector);
+                resId = R.drawable.button_sub_action_dark_selector;
             }
             else if(theme == THEME_LIGHTER) {
-                backgroundDrawable = context.getResources().getDrawable(R.drawable.button_action_selector);
+                resId = R.drawable.button_action_selector;
             }
             else if(theme == THEME_DARKER) {
-                backgroundDrawable = context.getResources().getDrawable(R.drawable.button_action_dark_selector);
+                resId = R.drawable.button_action_dark_selector;
             }
             else {
                 throw new RuntimeException("Unknown SubActionButton theme: " + theme);
             }
+            backgroundDrawable = ButtonBackgrounds.getThemed(context, resId, backgroundTint);
         }
         else {
-            backgroundDrawable = backgroundDrawable.mutate().getConstantState().newDrawable();
+            backgroundDrawable = ButtonBackgrounds.getCustom(context, backgroundDrawable, backgroundTint);
         }
         setBackgroundResource(backgroundDrawable);
         if(contentView != null) {
@@ -76,6 +87,15 @@ public class SubActionButton extends FrameLayout {
         setContentView(contentView, null);
     }
 
+    /**
+     * Only the background and the content view can overlap each other, so fading a button
+     * that lacks one of them does not need an offscreen buffer.
+     */
+    @Override
+    public boolean hasOverlappingRendering() {
+        return getBackground() != null && getChildCount() > 0;
+    }
+
     private void setBackgroundResource(Drawable drawable) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             setBackground(drawable);
@@ -94,6 +114,7 @@ public class SubActionButton extends FrameLayout {
         private LayoutParams layoutParams;
         private int theme;
         private Drawable backgroundDrawable;
+        private int backgroundTint;
         private View contentView;
         private LayoutParams contentParams;
 
@@ -122,6 +143,15 @@ public class SubActionButton extends FrameLayout {
             return this;
         }
 
+        /**
+         * Draws a color over the background of the buttons built from now on.
+         * @param color the tint, or 0 to keep the background as it is
+         */
+        public Builder setBackgroundTint(int color) {
+            this.backgroundTint = color;
+            return this;
+        }
+
         public Builder setContentView(View contentView) {
             this.contentView = contentView;
             return this;
@@ -133,11 +163,16 @@ public class SubActionButton extends FrameLayout {
             return this;
         }
 
+        Context getContext() {
+            return context;
+        }
+
         public SubActionButton build() {
             return new SubActionButton(context,
                     layoutParams,
                     theme,
                     backgroundDrawable,
+                    backgroundTint,
                     contentView,
                     contentParams);
         }
@@ -4,18 +4,28 @@
 package com.oguzdev.circularfloatingactionmenu.library.animation;
 
 import android.animation.Animator;
-import android.animation.ObjectAnimator;
-import android.animation.PropertyValuesHolder;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
 import android.graphics.Point;
 import android.view.View;
 import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
 import android.view.animation.OvershootInterpolator;
 
 import com.oguzdev.circularfloatingactionmenu.library.FloatingActionMenu;
 
+import java.util.List;
+
 /**
  * An example animation handler
  * Animates translation, rotation, scale and alpha at the same time using Property Animation APIs.
+ * A single animator drives all sub action items, with a slight lag between each of them.
+ * It is built once per menu, only its target values are rewritten for every transition,
+ * and its buffers are rebuilt only when the list of sub action items changes.
+ * Item views are rendered into hardware layers for the duration of a transition.
+ * A transition started while another one is running takes over from the current state of the items,
+ * in a time proportional to the distance left.
  */
 public class DefaultAnimationHandler extends MenuAnimationHandler {
 
@@ -23,9 +33,45 @@ public class DefaultAnimationHandler extends MenuAnimationHandler {
     protected static final int DURATION = 500;
     /** duration to wait between each of  */
     protected static final int LAG_BETWEEN_ITEMS = 20;
+
+    // Offsets of each animated property inside the per item blocks of from/to values
+    private static final int TRANSLATION_X = 0;
+    private static final int TRANSLATION_Y = 1;
+    private static final int ROTATION = 2;
+    private static final int SCALE = 3;
+    private static final int ALPHA = 4;
+    private static final int PROPERTY_COUNT = 5;
+
     /** holds the current state of animation */
     private boolean animating;
 
+    private final Interpolator openingInterpolator = new OvershootInterpolator(0.9f);
+    private final Interpolator closingInterpolator = new AccelerateDecelerateInterpolator();
+    /** Interpolator applied to each item, depending on the current transition */
+    private Interpolator itemInterpolator;
+
+    /** Drives the whole transition linearly, created on first use */
+    private ValueAnimator animator;
+    private final GraphListener graphListener = new GraphListener();
+
+    /** The sub action items the buffers below have been built for */
+    private FloatingActionMenu.Item[] items = new FloatingActionMenu.Item[0];
+    private float[] from = new float[0];
+    private float[] to = new float[0];
+    /** Layer type of each item view before the current transition */
+    private int[] layerTypes = new int[0];
+    /** Whether this handler has put the item views into hardware layers */
+    private boolean layered;
+
+    /** The type of the current transition */
+    private ActionType actionType;
+    /** How far the items were between closed (0) and open (1) when the current transition started */
+    private float startPosition;
+    /** Share of the full duration and lags the current transition takes */
+    private float timeScale;
+    /** Whether the running transition is being replaced by a new one */
+    private boolean interrupting;
+
     public DefaultAnimationHandler() {
         setAnimating(false);
     }
@@ -34,108 +80,232 @@ public class DefaultAnimationHandler extends MenuAnimationHandler {
     public void animateMenuOpening(Point center) {
         super.animateMenuOpening(center);
 
-        setAnimating(true);
+        float position = prepareGraph();
+        // Item views are positioned through translation, relative to their container
+        int offsetX = menu.getContainerOffsetX();
+        int offsetY = menu.getContainerOffsetY();
+        for (int i = 0; i < items.length; i++) {
+            FloatingActionMenu.Item item = items[i];
+            if(position < 0) {
+                item.view.setScaleX(0);
+                item.view.setScaleY(0);
+                item.view.setAlpha(0);
+            }
+            // A reversed transition rewinds the rotation instead of spinning the other way
+            setTarget(i, item.x - offsetX, item.y - offsetY, position < 0 ? 720 : 0, 1, 1);
+        }
+        startGraph(ActionType.OPENING, position < 0 ? 0 : position, openingInterpolator);
+    }
 
-        Animator lastAnimation = null;
-        for (int i = 0; i < menu.getSubActionItems().size(); i++) {
+    @Override
+    public void animateMenuClosing(Point center) {
+        super.animateMenuClosing(center);
 
-            menu.getSubActionItems().get(i).view.setScaleX(0);
-            menu.getSubActionItems().get(i).view.setScaleY(0);
-            menu.getSubActionItems().get(i).view.setAlpha(0);
+        float position = prepareGraph();
+        // Item views are positioned through translation, relative to their container
+        int offsetX = menu.getContainerOffsetX();
+        int offsetY = menu.getContainerOffsetY();
+        for (int i = 0; i < items.length; i++) {
+            FloatingActionMenu.Item item = items[i];
+            setTarget(i, center.x - offsetX - item.width / 2, center.y - offsetY - item.height / 2, position < 0 ? -720 : 0, 0, 0);
+        }
+        startGraph(ActionType.CLOSING, position < 0 ? 1 : position, closingInterpolator);
+    }
 
-            PropertyValuesHolder pvhX = PropertyValuesHolder.ofFloat(View.TRANSLATION_X, menu.getSubActionItems().get(i).x - center.x + menu.getSubActionItems().get(i).width / 2);
-            PropertyValuesHolder pvhY = PropertyValuesHolder.ofFloat(View.TRANSLATION_Y, menu.getSubActionItems().get(i).y - center.y + menu.getSubActionItems().get(i).height / 2);
-            PropertyValuesHolder pvhR = PropertyValuesHolder.ofFloat(View.ROTATION, 720);
-            PropertyValuesHolder pvhsX = PropertyValuesHolder.ofFloat(View.SCALE_X, 1);
-            PropertyValuesHolder pvhsY = PropertyValuesHolder.ofFloat(View.SCALE_Y, 1);
-            PropertyValuesHolder pvhA = PropertyValuesHolder.ofFloat(View.ALPHA, 1);
+    @Override
+    public boolean isAnimating() {
+        return animating;
+    }
 
-            final ObjectAnimator animation = ObjectAnimator.ofPropertyValuesHolder(menu.getSubActionItems().get(i).view, pvhX, pvhY, pvhR, pvhsX, pvhsY, pvhA);
-            animation.setDuration(DURATION);
-            animation.setInterpolator(new OvershootInterpolator(0.9f));
-            animation.addListener(new SubActionItemAnimationListener(menu.getSubActionItems().get(i), ActionType.OPENING));
+    @Override
+    protected void setAnimating(boolean animating) {
+        this.animating = animating;
+    }
 
-            if(i == 0) {
-                lastAnimation = animation;
-            }
+    @Override
+    public boolean isInterruptible() {
+        return true;
+    }
 
-            // Put a slight lag between each of the menu items to make it asymmetric
-            animation.setStartDelay((menu.getSubActionItems().size() - i) * LAG_BETWEEN_ITEMS);
-            animation.start();
+    /**
+     * Stops the running transition and gives the items back their plain rotation, scale, alpha
+     * and layer type. Their position and visibility are left to the menu.
+     */
+    @Override
+    public void cancelAnimation() {
+        if(animator == null || interrupt() < 0) {
+            return;
         }
-        if(lastAnimation != null) {
-            lastAnimation.addListener(new LastAnimationListener());
+        for (int i = 0; i < items.length; i++) {
+            View view = items[i].view;
+            view.setRotation(0);
+            view.setScaleX(1);
+            view.setScaleY(1);
+            view.setAlpha(1);
+            if(layered) {
+                restoreLayerType(view, layerTypes[i]);
+            }
         }
-
+        layered = false;
+        setAnimating(false);
     }
 
-    @Override
-    public void animateMenuClosing(Point center) {
-        super.animateMenuOpening(center);
-
-        setAnimating(true);
+    /**
+     * Stops the running transition, if any, and makes sure the buffers match the current sub action items,
+     * rebuilding them only if the list of items has changed since the last transition.
+     * @return how far the items are between closed (0) and open (1) if a running transition
+     * has been interrupted, -1 otherwise
+     */
+    private float prepareGraph() {
+        if(animator == null) {
+            animator = ValueAnimator.ofFloat(0, 1);
+            animator.setInterpolator(new LinearInterpolator());
+            animator.addUpdateListener(graphListener);
+            animator.addListener(graphListener);
+        }
+        float position = interrupt();
 
-        Animator lastAnimation = null;
-        for (int i = 0; i < menu.getSubActionItems().size(); i++) {
-            PropertyValuesHolder pvhX = PropertyValuesHolder.ofFloat(View.TRANSLATION_X, - (menu.getSubActionItems().get(i).x - center.x + menu.getSubActionItems().get(i).width / 2));
-            PropertyValuesHolder pvhY = PropertyValuesHolder.ofFloat(View.TRANSLATION_Y, - (menu.getSubActionItems().get(i).y - center.y + menu.getSubActionItems().get(i).height / 2));
-            PropertyValuesHolder pvhR = PropertyValuesHolder.ofFloat(View.ROTATION, -720);
-            PropertyValuesHolder pvhsX = PropertyValuesHolder.ofFloat(View.SCALE_X, 0);
-            PropertyValuesHolder pvhsY = PropertyValuesHolder.ofFloat(View.SCALE_Y, 0);
-            PropertyValuesHolder pvhA = PropertyValuesHolder.ofFloat(View.ALPHA, 0);
-
-            final ObjectAnimator animation = ObjectAnimator.ofPropertyValuesHolder(menu.getSubActionItems().get(i).view, pvhX, pvhY, pvhR, pvhsX, pvhsY, pvhA);
-            animation.setDuration(DURATION);
-            animation.setInterpolator(new AccelerateDecelerateInterpolator());
-            animation.addListener(new SubActionItemAnimationListener(menu.getSubActionItems().get(i), ActionType.CLOSING));
-
-            if(i == 0) {
-                lastAnimation = animation;
+        List<FloatingActionMenu.Item> subActionItems = menu.getSubActionItems();
+        if(!isBuiltFor(subActionItems)) {
+            if(position >= 0) {
+                // The interrupted items are not known anymore, let them finish right away
+                finishItems();
+                position = -1;
             }
+            int count = subActionItems.size();
+            items = subActionItems.toArray(new FloatingActionMenu.Item[count]);
+            from = new float[count * PROPERTY_COUNT];
+            to = new float[count * PROPERTY_COUNT];
+            layerTypes = new int[count];
+        }
+        return position;
+    }
 
-            animation.setStartDelay((menu.getSubActionItems().size() - i) * LAG_BETWEEN_ITEMS);
-            animation.start();
+    /**
+     * Stops the running transition, leaving every item where it is.
+     * @return how far the items are between closed (0) and open (1), -1 if nothing was running
+     */
+    private float interrupt() {
+        if(!animator.isStarted()) {
+            return -1;
         }
-        if(lastAnimation != null) {
-            lastAnimation.addListener(new LastAnimationListener());
+        float elapsed = Math.min(1, animator.getCurrentPlayTime() / (float) animator.getDuration());
+        float position;
+        if(actionType == ActionType.OPENING) {
+            position = startPosition + (1 - startPosition) * elapsed;
         }
+        else {
+            position = startPosition * (1 - elapsed);
+        }
+
+        interrupting = true;
+        animator.cancel();
+        interrupting = false;
+        return Math.max(0, Math.min(1, position));
     }
 
-    @Override
-    public boolean isAnimating() {
-        return animating;
+    private boolean isBuiltFor(List<FloatingActionMenu.Item> subActionItems) {
+        if(subActionItems.size() != items.length) {
+            return false;
+        }
+        for (int i = 0; i < items.length; i++) {
+            if(subActionItems.get(i) != items[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    @Override
-    protected void setAnimating(boolean animating) {
-        this.animating = animating;
+    /**
+     * Animates the item at index from its current state to the given values.
+     */
+    private void setTarget(int index, float translationX, float translationY, float rotation, float scale, float alpha) {
+        View view = items[index].view;
+        int offset = index * PROPERTY_COUNT;
+        from[offset + TRANSLATION_X] = view.getTranslationX();
+        from[offset + TRANSLATION_Y] = view.getTranslationY();
+        from[offset + ROTATION] = view.getRotation();
+        from[offset + SCALE] = view.getScaleX();
+        from[offset + ALPHA] = view.getAlpha();
+        to[offset + TRANSLATION_X] = translationX;
+        to[offset + TRANSLATION_Y] = translationY;
+        to[offset + ROTATION] = rotation;
+        to[offset + SCALE] = scale;
+        to[offset + ALPHA] = alpha;
     }
 
-    protected class SubActionItemAnimationListener implements Animator.AnimatorListener {
+    /**
+     * @param startPosition how far the items are between closed (0) and open (1),
+     *                      the duration and the lags are scaled to the distance left to cover
+     */
+    private void startGraph(ActionType actionType, float startPosition, Interpolator interpolator) {
+        this.actionType = actionType;
+        this.startPosition = startPosition;
+        itemInterpolator = interpolator;
+        float distance = actionType == ActionType.OPENING ? 1 - startPosition : startPosition;
+        // Every item runs for DURATION, the first one starts after the longest lag
+        timeScale = Math.max(1f / DURATION, distance);
+        animator.setDuration((long) ((DURATION + items.length * LAG_BETWEEN_ITEMS) * timeScale));
 
-        private FloatingActionMenu.Item subActionItem;
-        private ActionType actionType;
+        setAnimating(true);
+        if(!layered) {
+            for (int i = 0; i < items.length; i++) {
+                layerTypes[i] = promoteToHardwareLayer(items[i].view);
+            }
+            layered = true;
+        }
+        animator.start();
+    }
 
-        public SubActionItemAnimationListener(FloatingActionMenu.Item subActionItem, ActionType actionType) {
-            this.subActionItem = subActionItem;
-            this.actionType = actionType;
+    private void finishItems() {
+        for (int i = 0; i < items.length; i++) {
+            restoreSubActionViewAfterAnimation(items[i], actionType);
+            if(layered) {
+                restoreLayerType(items[i].view, layerTypes[i]);
+            }
         }
+        layered = false;
+    }
+
+    /**
+     * Applies the progress of the transition to every item, and restores them when it is over.
+     */
+    private class GraphListener extends AnimatorListenerAdapter implements ValueAnimator.AnimatorUpdateListener {
 
         @Override
-        public void onAnimationStart(Animator animation) {
+        public void onAnimationUpdate(ValueAnimator animation) {
+            long elapsed = animation.getCurrentPlayTime();
+            for (int i = 0; i < items.length; i++) {
+                // Put a slight lag between each of the menu items to make it asymmetric
+                float delay = (items.length - i) * LAG_BETWEEN_ITEMS * timeScale;
+                float progress = Math.max(0, Math.min(1, (elapsed - delay) / (DURATION * timeScale)));
+                float fraction = itemInterpolator.getInterpolation(progress);
 
+                View view = items[i].view;
+                int offset = i * PROPERTY_COUNT;
+                view.setTranslationX(lerp(offset + TRANSLATION_X, fraction));
+                view.setTranslationY(lerp(offset + TRANSLATION_Y, fraction));
+                view.setRotation(lerp(offset + ROTATION, fraction));
+                float scale = lerp(offset + SCALE, fraction);
+                view.setScaleX(scale);
+                view.setScaleY(scale);
+                view.setAlpha(lerp(offset + ALPHA, fraction));
+            }
         }
 
         @Override
         public void onAnimationEnd(Animator animation) {
-            restoreSubActionViewAfterAnimation(subActionItem, actionType);
+            // Also called after a cancellation
+            if(interrupting) {
+                // The items carry on from where they are in the next transition
+                return;
+            }
+            finishItems();
+            setAnimating(false);
         }
 
-        @Override
-        public void onAnimationCancel(Animator animation) {
-            restoreSubActionViewAfterAnimation(subActionItem, actionType);
+        private float lerp(int index, float fraction) {
+            return from[index] + (to[index] - from[index]) * fraction;
         }
-
-        @Override public void onAnimationRepeat(Animator animation) {}
     }
 }
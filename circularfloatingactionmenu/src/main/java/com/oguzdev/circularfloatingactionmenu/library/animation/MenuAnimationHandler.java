@@ -5,9 +5,7 @@ package com.oguzdev.circularfloatingactionmenu.library.animation;
 
 import android.animation.Animator;
 import android.graphics.Point;
-import android.view.ViewGroup;
-import android.view.WindowManager;
-import android.widget.FrameLayout;
+import android.view.View;
 
 import com.oguzdev.circularfloatingactionmenu.library.FloatingActionMenu;
 
@@ -21,6 +19,9 @@ public abstract class MenuAnimationHandler {
 
     protected FloatingActionMenu menu;
 
+    /** Receives the center of the main action view when items are restored */
+    private final Point restoreCenter = new Point();
+
     public MenuAnimationHandler() {
     }
 
@@ -51,6 +52,15 @@ public abstract class MenuAnimationHandler {
         }
     }
 
+    /**
+     * Stops the running animation, if any, without finishing it: the items are neither moved nor
+     * hidden, the menu places them itself right after. Called when the menu opens or closes
+     * without animation, so that a running transition does not keep animating the items.
+     * Does nothing by default.
+     */
+    public void cancelAnimation() {
+    }
+
     /**
      * Restores the specified sub action view to its final state, according to the current actionType
      * Should be called after an animation finishes.
@@ -58,47 +68,55 @@ public abstract class MenuAnimationHandler {
      * @param actionType
      */
     protected void restoreSubActionViewAfterAnimation(FloatingActionMenu.Item subActionItem, ActionType actionType) {
-        ViewGroup.LayoutParams params = subActionItem.view.getLayoutParams();
-        subActionItem.view.setTranslationX(0);
-        subActionItem.view.setTranslationY(0);
         subActionItem.view.setRotation(0);
         subActionItem.view.setScaleX(1);
         subActionItem.view.setScaleY(1);
         subActionItem.view.setAlpha(1);
         if(actionType == ActionType.OPENING) {
-            FrameLayout.LayoutParams lp = (FrameLayout.LayoutParams) params;
-            if(menu.isSystemOverlay()) {
-                WindowManager.LayoutParams overlayParams = (WindowManager.LayoutParams) menu.getOverlayContainer().getLayoutParams();
-                lp.setMargins(subActionItem.x - overlayParams.x, subActionItem.y - overlayParams.y, 0, 0);
-            }
-            else {
-                lp.setMargins(subActionItem.x, subActionItem.y, 0, 0);
-            }
-            subActionItem.view.setLayoutParams(lp);
+            menu.moveItem(subActionItem, subActionItem.x, subActionItem.y);
         }
         else if(actionType == ActionType.CLOSING) {
-            Point center = menu.getActionViewCenter();
-            FrameLayout.LayoutParams lp = (FrameLayout.LayoutParams) params;
-            if(menu.isSystemOverlay()) {
-                WindowManager.LayoutParams overlayParams = (WindowManager.LayoutParams) menu.getOverlayContainer().getLayoutParams();
-                lp.setMargins(center.x - overlayParams.x - subActionItem.width / 2, center.y - overlayParams.y - subActionItem.height / 2, 0, 0);
-            }
-            else {
-                lp.setMargins(center.x - subActionItem.width / 2, center.y - subActionItem.height / 2, 0, 0);
-            }
-            subActionItem.view.setLayoutParams(lp);
-            menu.removeViewFromCurrentContainer(subActionItem.view);
+            // The center is cached by the menu, restoring every item queries it only once
+            menu.getActionViewCenter(restoreCenter);
+            menu.moveItem(subActionItem, restoreCenter.x - subActionItem.width / 2, restoreCenter.y - subActionItem.height / 2);
+            menu.hideItem(subActionItem);
 
             if(menu.isSystemOverlay()) {
-                // When all the views are removed from the overlay container,
-                // we also need to detach it
-                if (menu.getOverlayContainer().getChildCount() == 0) {
-                    menu.detachOverlayContainer();
+                // When all the views are hidden,
+                // we also need to detach or hide the overlay container
+                if (!menu.hasVisibleItems()) {
+                    menu.hideOverlayContainer();
                 }
             }
         }
     }
 
+    /**
+     * Renders the view into a hardware layer while it animates, so that alpha, scale and rotation
+     * changes only recompose the layer instead of redrawing the view on every frame.
+     * Does nothing when the view is not hardware accelerated.
+     * @param view
+     * @return the previous layer type, to give back to {@link #restoreLayerType(View, int)}
+     */
+    protected static int promoteToHardwareLayer(View view) {
+        int layerType = view.getLayerType();
+        if(layerType != View.LAYER_TYPE_HARDWARE && view.isHardwareAccelerated()) {
+            view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        }
+        return layerType;
+    }
+
+    /**
+     * Gives the view back the layer type it had before the animation.
+     * @param view
+     * @param layerType
+     */
+    protected static void restoreLayerType(View view, int layerType) {
+        if(view.getLayerType() != layerType) {
+            view.setLayerType(layerType, null);
+        }
+    }
+
     /**
      * A special animation listener that is intended to listen the last of the sequential animations.
      * Changes the animating property of children.
@@ -126,6 +144,16 @@ public abstract class MenuAnimationHandler {
         }
     }
 
+    /**
+     * Whether a transition can be started while another one is running.
+     * An interruptible handler takes over from the current state of the items, so the menu can be
+     * reversed at any time. Otherwise the menu ignores openings and closings while animating.
+     * @return false by default
+     */
+    public boolean isInterruptible() {
+        return false;
+    }
+
     public abstract boolean isAnimating();
     protected abstract void setAnimating(boolean animating);
 }
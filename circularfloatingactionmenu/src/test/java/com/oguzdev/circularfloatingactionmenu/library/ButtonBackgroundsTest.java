@@ -0,0 +1,85 @@
+/*
+ *   Copyright 2014 Oguz Bilgener
+ */
+package com.oguzdev.circularfloatingactionmenu.library;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.util.DisplayMetrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Sharing of button backgrounds by {@link ButtonBackgrounds}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ButtonBackgroundsTest {
+
+    /** A bitmap, whose new drawables share the state they are created from */
+    private static final int BACKGROUND = R.drawable.button_sub_action;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void sameThemeSharesState() {
+        Drawable first = ButtonBackgrounds.getThemed(context, BACKGROUND, ButtonBackgrounds.NO_TINT);
+        Drawable second = ButtonBackgrounds.getThemed(context, BACKGROUND, ButtonBackgrounds.NO_TINT);
+        assertNotSame(first, second);
+        assertSame(first.getConstantState(), second.getConstantState());
+    }
+
+    @Test
+    public void tintedBackgroundGetsItsOwnState() {
+        Drawable plain = ButtonBackgrounds.getThemed(context, BACKGROUND, ButtonBackgrounds.NO_TINT);
+        Drawable tinted = ButtonBackgrounds.getThemed(context, BACKGROUND, 0x80ff0000);
+        assertNotSame(plain.getConstantState(), tinted.getConstantState());
+        assertSame(plain.getConstantState(),
+                ButtonBackgrounds.getThemed(context, BACKGROUND, ButtonBackgrounds.NO_TINT).getConstantState());
+    }
+
+    /** Another density resolves the resource to another bitmap, the cached state must not be reused */
+    @Test
+    public void densityChangeLoadsTheBackgroundAgain() {
+        Drawable before = ButtonBackgrounds.getThemed(context, BACKGROUND, ButtonBackgrounds.NO_TINT);
+
+        Resources resources = context.getResources();
+        Configuration configuration = new Configuration(resources.getConfiguration());
+        DisplayMetrics metrics = new DisplayMetrics();
+        metrics.setTo(resources.getDisplayMetrics());
+        configuration.densityDpi = DisplayMetrics.DENSITY_XXHIGH;
+        metrics.densityDpi = DisplayMetrics.DENSITY_XXHIGH;
+        metrics.density = 3;
+        resources.updateConfiguration(configuration, metrics);
+
+        Drawable after = ButtonBackgrounds.getThemed(context, BACKGROUND, ButtonBackgrounds.NO_TINT);
+        assertNotSame(before.getConstantState(), after.getConstantState());
+        assertSame(after.getConstantState(),
+                ButtonBackgrounds.getThemed(context, BACKGROUND, ButtonBackgrounds.NO_TINT).getConstantState());
+    }
+
+    @Test
+    public void customBackgroundSharesItsState() {
+        Drawable custom = context.getResources().getDrawable(BACKGROUND);
+        Drawable first = ButtonBackgrounds.getCustom(context, custom, ButtonBackgrounds.NO_TINT);
+        Drawable second = ButtonBackgrounds.getCustom(context, custom, ButtonBackgrounds.NO_TINT);
+        assertNotSame(custom, first);
+        assertSame(custom.getConstantState(), first.getConstantState());
+        assertSame(custom.getConstantState(), second.getConstantState());
+    }
+}
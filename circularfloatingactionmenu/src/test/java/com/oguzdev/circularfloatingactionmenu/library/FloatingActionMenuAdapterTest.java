@@ -0,0 +1,144 @@
+/*
+ *   Copyright 2014 Oguz Bilgener
+ */
+package com.oguzdev.circularfloatingactionmenu.library;
+
+import android.app.Activity;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The virtualized mode of {@link FloatingActionMenu}, backed by an adapter.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class FloatingActionMenuAdapterTest {
+
+    private static final int ITEM_SIZE = 60;
+    private static final int WINDOW_SIZE = 5;
+    /** Two full windows and a partial one */
+    private static final int ITEM_COUNT = 2 * WINDOW_SIZE + 2;
+
+    private Activity activity;
+    private CountingAdapter adapter;
+    private FloatingActionMenu menu;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout content = new FrameLayout(activity);
+        View actionView = new View(activity);
+        content.addView(actionView, new FrameLayout.LayoutParams(ITEM_SIZE, ITEM_SIZE, Gravity.BOTTOM | Gravity.RIGHT));
+        activity.setContentView(content);
+
+        adapter = new CountingAdapter(ITEM_COUNT);
+        menu = new FloatingActionMenu.Builder(activity)
+                .setAdapter(adapter, WINDOW_SIZE, ITEM_SIZE, ITEM_SIZE)
+                .attachTo(actionView)
+                .build();
+    }
+
+    /** An opening only asks the adapter for the views of the window */
+    @Test
+    public void openingBindsOnlyTheWindow() {
+        menu.open(false);
+        assertEquals(WINDOW_SIZE, menu.getSubActionItems().size());
+        assertEquals(WINDOW_SIZE, adapter.boundViews);
+        assertEquals(WINDOW_SIZE, adapter.createdViews);
+        assertPositions(0, WINDOW_SIZE);
+    }
+
+    /** Paging an open menu rebinds its slots in place, with the views it already has */
+    @Test
+    public void pagingRecyclesTheViews() {
+        menu.open(false);
+        assertTrue(menu.pageForward());
+        assertEquals(WINDOW_SIZE, menu.getFirstVisiblePosition());
+        assertPositions(WINDOW_SIZE, WINDOW_SIZE);
+
+        // The last window is only partly filled, its empty slots are hidden
+        assertTrue(menu.pageForward());
+        assertPositions(2 * WINDOW_SIZE, 2);
+        assertFalse(menu.pageForward());
+
+        assertTrue(menu.pageBackward());
+        assertPositions(WINDOW_SIZE, WINDOW_SIZE);
+        assertEquals(WINDOW_SIZE, adapter.createdViews);
+    }
+
+    /** A change of the data shows in an open menu right away */
+    @Test
+    public void dataSetChangeRebindsAnOpenMenu() {
+        menu.open(false);
+        adapter.count = 3;
+        adapter.notifyDataSetChanged();
+        assertPositions(0, 3);
+        assertEquals(WINDOW_SIZE, adapter.createdViews);
+    }
+
+    /** Checks the positions bound to the slots and that the views are shown */
+    private void assertPositions(int firstPosition, int count) {
+        List<FloatingActionMenu.Item> items = menu.getSubActionItems();
+        assertEquals(count, items.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(firstPosition + i, items.get(i).view.getTag());
+            assertEquals(View.VISIBLE, items.get(i).view.getVisibility());
+        }
+    }
+
+    /**
+     * Tags each view with its position and counts the views it binds and creates.
+     */
+    private static class CountingAdapter extends BaseAdapter {
+        private int count;
+        private int boundViews;
+        private int createdViews;
+
+        CountingAdapter(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return position;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View view = convertView;
+            if(view == null) {
+                view = new View(parent.getContext());
+                createdViews++;
+            }
+            view.setTag(position);
+            boundViews++;
+            return view;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *   Copyright 2014 Oguz Bilgener
+ */
+package com.oguzdev.circularfloatingactionmenu.library;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Looper;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Failures and fallbacks of {@link FloatingActionMenu.Builder#buildAsync(Executor, FloatingActionMenu.OnMenuBuiltListener)}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class FloatingActionMenuBuildAsyncTest {
+
+    private static final int ITEM_SIZE = 60;
+
+    /** Runs the work on another thread, and waits for it */
+    private static final Executor BACKGROUND_THREAD = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            Thread thread = new Thread(command);
+            thread.start();
+            try {
+                thread.join();
+            }
+            catch(InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    };
+
+    private Activity activity;
+    private View actionView;
+    private FloatingActionMenu builtMenu;
+    private RuntimeException failure;
+
+    private final FloatingActionMenu.OnMenuBuiltListener listener = new FloatingActionMenu.OnMenuBuiltListener() {
+        @Override
+        public void onMenuBuilt(FloatingActionMenu menu) {
+            assertTrue(Looper.myLooper() == Looper.getMainLooper());
+            builtMenu = menu;
+        }
+
+        @Override
+        public void onMenuBuildFailed(RuntimeException e) {
+            assertTrue(Looper.myLooper() == Looper.getMainLooper());
+            failure = e;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout content = new FrameLayout(activity);
+        actionView = new View(activity);
+        content.addView(actionView, new FrameLayout.LayoutParams(ITEM_SIZE, ITEM_SIZE, Gravity.BOTTOM | Gravity.RIGHT));
+        activity.setContentView(content);
+    }
+
+    /** A view that cannot be created on the executor is created on the main thread instead */
+    @Test
+    public void buildsOnTheMainThreadWhenTheExecutorFails() {
+        new FloatingActionMenu.Builder(activity)
+                .addSubActionView(android.R.layout.simple_list_item_1, new MainThreadContext(activity, false))
+                .attachTo(actionView)
+                .buildAsync(BACKGROUND_THREAD, listener);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertNull(failure);
+        assertNotNull(builtMenu);
+        assertEquals(1, builtMenu.getSubActionItems().size());
+        assertTrue(builtMenu.getSubActionItems().get(0).view instanceof TextView);
+    }
+
+    @Test
+    public void reportsAFailureOnTheMainThreadToo() {
+        new FloatingActionMenu.Builder(activity)
+                .addSubActionView(android.R.layout.simple_list_item_1, new MainThreadContext(activity, true))
+                .attachTo(actionView)
+                .buildAsync(BACKGROUND_THREAD, listener);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertNull(builtMenu);
+        assertTrue(failure instanceof IllegalStateException);
+    }
+
+    @Test
+    public void buildsOnTheMainThreadWhenTheExecutorRejectsIt() {
+        new FloatingActionMenu.Builder(activity)
+                .addSubActionView(new View(activity), ITEM_SIZE, ITEM_SIZE)
+                .attachTo(actionView)
+                .buildAsync(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        throw new RejectedExecutionException();
+                    }
+                }, listener);
+        // Delivered later, as a successful build would be
+        assertNull(builtMenu);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertNull(failure);
+        assertNotNull(builtMenu);
+    }
+
+    /**
+     * A context that hands out system services, and so inflaters, only on the main thread,
+     * or not at all.
+     */
+    private static class MainThreadContext extends ContextWrapper {
+        private final boolean failEverywhere;
+
+        MainThreadContext(Context base, boolean failEverywhere) {
+            super(base);
+            this.failEverywhere = failEverywhere;
+        }
+
+        @Override
+        public Object getSystemService(String name) {
+            if(failEverywhere || Looper.myLooper() != Looper.getMainLooper()) {
+                throw new IllegalStateException("No " + name + " on this thread");
+            }
+            return super.getSystemService(name);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *   Copyright 2014 Oguz Bilgener
+ */
+package com.oguzdev.circularfloatingactionmenu.library;
+
+import android.app.Activity;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.FrameLayout;
+import com.xfdsj.testing.CycleProbe;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Performance regression guard for the open and close cycles of {@link FloatingActionMenu}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class FloatingActionMenuCycleTest {
+
+    private static final int ITEM_COUNT = 5;
+    private static final int ITEM_SIZE = 60;
+    private static final int WARM_UP_CYCLES = 3;
+    private static final int CYCLES = 10;
+    /** Items stay attached to the host layer and move through translation */
+    private static final int MAX_LAYOUT_PASSES = 0;
+    /** Allowed over an idle looper, about 350 bytes per frame of a cycle */
+    private static final long MAX_ALLOCATED_BYTES_OVER_IDLE = 64 * 1024;
+
+    private FloatingActionMenu menu;
+    private CycleProbe probe;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout content = new FrameLayout(activity);
+        View actionView = new View(activity);
+        content.addView(actionView, new FrameLayout.LayoutParams(ITEM_SIZE, ITEM_SIZE, Gravity.BOTTOM | Gravity.RIGHT));
+        activity.setContentView(content);
+
+        FloatingActionMenu.Builder builder = new FloatingActionMenu.Builder(activity);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            builder.addSubActionView(new View(activity), ITEM_SIZE, ITEM_SIZE);
+        }
+        menu = builder.attachTo(actionView).build();
+        probe = new CycleProbe(activity);
+    }
+
+    @Test
+    public void animatedOpenCloseCycle() throws Exception {
+        List<CycleProbe.Cycle> cycles = probe.repeat(WARM_UP_CYCLES, CYCLES, new Runnable() {
+            @Override
+            public void run() {
+                menu.open(true);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                menu.close(true);
+            }
+        });
+        probe.assertWithinBudget(cycles, MAX_ALLOCATED_BYTES_OVER_IDLE, MAX_LAYOUT_PASSES);
+        assertFalse(menu.hasVisibleItems());
+    }
+
+    @Test
+    public void instantOpenCloseCycle() throws Exception {
+        List<CycleProbe.Cycle> cycles = probe.repeat(WARM_UP_CYCLES, CYCLES, new Runnable() {
+            @Override
+            public void run() {
+                menu.open(false);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                menu.close(false);
+            }
+        });
+        probe.assertWithinBudget(cycles, MAX_ALLOCATED_BYTES_OVER_IDLE, MAX_LAYOUT_PASSES);
+        assertFalse(menu.hasVisibleItems());
+    }
+
+    /** Toggles again while the transition is running, which reverses it */
+    @Test
+    public void reversedToggleCycle() throws Exception {
+        List<CycleProbe.Cycle> cycles = probe.repeat(WARM_UP_CYCLES, CYCLES, new Runnable() {
+            @Override
+            public void run() {
+                menu.toggle(true);
+                ShadowLooper.idleMainLooper(100);
+                menu.toggle(true);
+            }
+        });
+        probe.assertWithinBudget(cycles, MAX_ALLOCATED_BYTES_OVER_IDLE, MAX_LAYOUT_PASSES);
+        assertFalse(menu.isOpen());
+        assertFalse(menu.hasVisibleItems());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *   Copyright 2014 Oguz Bilgener
+ */
+package com.oguzdev.circularfloatingactionmenu.library;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Point;
+import android.view.Surface;
+import android.view.View;
+import android.view.WindowManager;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Behavior of {@link FloatingActionMenu} in the system overlay mode.
+ * Runs on Jelly Bean, where rotations are detected through configuration changes.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 16)
+public class FloatingActionMenuOverlayTest {
+
+    private static final int ITEM_COUNT = 5;
+    private static final int ITEM_SIZE = 60;
+
+    private Activity activity;
+    private WindowManager windowManager;
+    private View actionView;
+    private FloatingActionMenu menu;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.setupActivity(Activity.class);
+        windowManager = (WindowManager) activity.getSystemService(Context.WINDOW_SERVICE);
+        actionView = new View(activity);
+        WindowManager.LayoutParams params = FloatingActionButton.Builder.getDefaultSystemWindowParams(activity);
+        params.x = 200;
+        params.y = 300;
+        windowManager.addView(actionView, params);
+
+        FloatingActionMenu.Builder builder = new FloatingActionMenu.Builder(activity, true);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            builder.addSubActionView(new View(activity), ITEM_SIZE, ITEM_SIZE);
+        }
+        menu = builder.setPersistentOverlay(true).attachTo(actionView).build();
+    }
+
+    /** A persistent overlay window is only made untouchable while the menu is closed */
+    @Test
+    public void persistentOverlayStaysAddedWhileClosed() {
+        menu.open(false);
+        FrameLayout container = menu.getOverlayContainer();
+        Object window = container.getParent();
+        assertNotNull(window);
+        assertEquals(0, getOverlayFlags() & WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE);
+
+        menu.close(false);
+        assertSame(window, container.getParent());
+        assertTrue((getOverlayFlags() & WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE) != 0);
+
+        menu.open(false);
+        assertSame(window, container.getParent());
+        assertEquals(0, getOverlayFlags() & WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE);
+    }
+
+    @Test
+    public void overlayIsRemovedOnCloseWhenNotPersistent() {
+        menu.setPersistentOverlay(false);
+        menu.open(false);
+        assertNotNull(menu.getOverlayContainer().getParent());
+
+        menu.close(false);
+        assertNull(menu.getOverlayContainer().getParent());
+    }
+
+    /** A persistent overlay window is released by detaching it, once or more */
+    @Test
+    public void detachReleasesPersistentOverlay() {
+        menu.open(false);
+        menu.close(false);
+        menu.detachOverlayContainer();
+        assertNull(menu.getOverlayContainer().getParent());
+        menu.detachOverlayContainer();
+
+        menu.open(false);
+        assertNotNull(menu.getOverlayContainer().getParent());
+    }
+
+    /** A rotation moves the action view, an open menu is closed at once */
+    @Test
+    public void rotationWhileOpenClosesTheMenu() {
+        menu.open(false);
+        rotate(Surface.ROTATION_90);
+        assertFalse(menu.isOpen());
+        assertFalse(menu.hasVisibleItems());
+    }
+
+    /** Rotations are not listened to while the menu is closed, the next opening checks for them */
+    @Test
+    public void rotationWhileClosedIsCheckedOnOpen() {
+        Point before = new Point();
+        menu.getActionViewCenter(before);
+        // moved without a layout pass, the cached center does not follow
+        actionView.offsetLeftAndRight(40);
+        menu.open(false);
+        menu.close(false);
+        Point center = new Point();
+        menu.getActionViewCenter(center);
+        assertEquals(before.x, center.x);
+
+        rotate(Surface.ROTATION_90);
+        menu.open(false);
+        assertTrue(menu.isOpen());
+        menu.getActionViewCenter(center);
+        assertEquals(before.x + 40, center.x);
+    }
+
+    private void rotate(int rotation) {
+        Shadows.shadowOf(windowManager.getDefaultDisplay()).setRotation(rotation);
+        activity.getApplication().onConfigurationChanged(activity.getResources().getConfiguration());
+    }
+
+    private int getOverlayFlags() {
+        return ((WindowManager.LayoutParams) menu.getOverlayContainer().getLayoutParams()).flags;
+    }
+}
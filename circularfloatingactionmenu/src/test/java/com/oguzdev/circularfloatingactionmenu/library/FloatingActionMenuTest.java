@@ -0,0 +1,147 @@
+/*
+ *   Copyright 2014 Oguz Bilgener
+ */
+package com.oguzdev.circularfloatingactionmenu.library;
+
+import android.app.Activity;
+import android.graphics.Point;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Behavior of {@link FloatingActionMenu} around its transitions.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class FloatingActionMenuTest {
+
+    private static final int ITEM_COUNT = 5;
+    private static final int ITEM_SIZE = 60;
+    /** Virtual time a transition is given to play to the end */
+    private static final long SETTLE_MILLIS = 1500;
+
+    private Activity activity;
+    private View actionView;
+    private FloatingActionMenu menu;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout content = new FrameLayout(activity);
+        actionView = new View(activity);
+        content.addView(actionView, new FrameLayout.LayoutParams(ITEM_SIZE, ITEM_SIZE, Gravity.BOTTOM | Gravity.RIGHT));
+        activity.setContentView(content);
+
+        FloatingActionMenu.Builder builder = new FloatingActionMenu.Builder(activity);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            builder.addSubActionView(new View(activity), ITEM_SIZE, ITEM_SIZE);
+        }
+        menu = builder.attachTo(actionView).build();
+    }
+
+    /** An instant close stops a running opening, which must not show the items again */
+    @Test
+    public void instantCloseStopsOpening() {
+        menu.open(true);
+        ShadowLooper.idleMainLooper(100);
+        menu.close(false);
+        assertFalse(menu.isOpen());
+        assertFalse(menu.hasVisibleItems());
+
+        ShadowLooper.idleMainLooper(SETTLE_MILLIS);
+        assertFalse(menu.hasVisibleItems());
+        for (FloatingActionMenu.Item item : menu.getSubActionItems()) {
+            assertEquals(1, item.view.getScaleX(), 0);
+            assertEquals(1, item.view.getAlpha(), 0);
+            assertEquals(0, item.view.getRotation(), 0);
+        }
+    }
+
+    /** An instant open stops a running closing, which must not hide the items at its end */
+    @Test
+    public void instantOpenStopsClosing() {
+        menu.open(false);
+        menu.close(true);
+        ShadowLooper.idleMainLooper(100);
+        menu.open(false);
+        assertTrue(menu.isOpen());
+
+        ShadowLooper.idleMainLooper(SETTLE_MILLIS);
+        for (FloatingActionMenu.Item item : menu.getSubActionItems()) {
+            assertEquals(View.VISIBLE, item.view.getVisibility());
+            assertEquals(item.x - menu.getContainerOffsetX(), item.view.getTranslationX(), 0);
+            assertEquals(item.y - menu.getContainerOffsetY(), item.view.getTranslationY(), 0);
+            assertEquals(1, item.view.getScaleX(), 0);
+        }
+    }
+
+    /** The center is cached until the action view is laid out, scrolled or translated */
+    @Test
+    public void actionViewCenterFollowsTheActionView() {
+        Point center = new Point();
+        menu.getActionViewCenter(center);
+        assertEquals(menu.getActionViewCenter(), center);
+
+        // a move without a layout pass nor a translation keeps the cached center
+        actionView.offsetLeftAndRight(40);
+        Point moved = new Point();
+        menu.getActionViewCenter(moved);
+        assertEquals(center, moved);
+
+        menu.invalidateActionViewCenter();
+        menu.getActionViewCenter(moved);
+        assertEquals(center.x + 40, moved.x);
+        assertEquals(center.y, moved.y);
+
+        actionView.setTranslationY(-30);
+        menu.getActionViewCenter(moved);
+        assertEquals(center.x + 40, moved.x);
+        assertEquals(center.y - 30, moved.y);
+
+        actionView.offsetLeftAndRight(-40);
+        actionView.getViewTreeObserver().dispatchOnGlobalLayout();
+        menu.getActionViewCenter(moved);
+        assertEquals(center.x, moved.x);
+        assertEquals(center.y - 30, moved.y);
+    }
+
+    /** Items without a size are measured at build time, without being attached */
+    @Test
+    public void unsizedItemsAreMeasuredOffScreen() {
+        View fixed = new View(activity);
+        fixed.setLayoutParams(new FrameLayout.LayoutParams(40, 30));
+        View wrapping = new View(activity);
+        wrapping.setLayoutParams(new FrameLayout.LayoutParams(FrameLayout.LayoutParams.WRAP_CONTENT,
+                FrameLayout.LayoutParams.WRAP_CONTENT));
+        wrapping.setMinimumWidth(25);
+        wrapping.setMinimumHeight(35);
+        FloatingActionMenu unsized = new FloatingActionMenu.Builder(activity)
+                .addSubActionView(fixed)
+                .addSubActionView(wrapping)
+                .attachTo(actionView)
+                .build();
+
+        FloatingActionMenu.Item fixedItem = unsized.getSubActionItems().get(0);
+        assertEquals(40, fixedItem.width);
+        assertEquals(30, fixedItem.height);
+        FloatingActionMenu.Item wrappingItem = unsized.getSubActionItems().get(1);
+        assertEquals(25, wrappingItem.width);
+        assertEquals(35, wrappingItem.height);
+        assertNull(fixed.getParent());
+        assertNull(wrapping.getParent());
+    }
+}
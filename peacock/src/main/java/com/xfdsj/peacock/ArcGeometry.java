@@ -0,0 +1,92 @@
+package com.xfdsj.peacock;
+
+/**
+ * Computes the positions of items that are evenly distributed along a circular arc.
+ * The positions are solved in closed form from the start angle, end angle, radius and item count,
+ * written into preallocated buffers, and only recomputed when one of those inputs changes.
+ */
+class ArcGeometry {
+
+  private float startAngle;
+  private float endAngle;
+  private int radius;
+  private int count = -1;
+
+  /** Offsets of each item from the center of the arc */
+  private float[] offsetX = new float[0];
+  private float[] offsetY = new float[0];
+
+  /**
+   * Makes sure the cached offsets describe the given arc.
+   *
+   * @return true if the offsets had to be recomputed
+   */
+  boolean update(float startAngle, float endAngle, int radius, int count) {
+    if (this.count == count
+        && this.radius == radius
+        && this.startAngle == startAngle
+        && this.endAngle == endAngle) {
+      return false;
+    }
+    if (offsetX.length < count) {
+      offsetX = new float[count];
+      offsetY = new float[count];
+    }
+    solve(startAngle, endAngle, radius, count, offsetX, offsetY);
+    this.startAngle = startAngle;
+    this.endAngle = endAngle;
+    this.radius = radius;
+    this.count = count;
+    return true;
+  }
+
+  /**
+   * @return the horizontal distance of the item at the given index from the arc center
+   */
+  float getOffsetX(int index) {
+    return offsetX[index];
+  }
+
+  /**
+   * @return the vertical distance of the item at the given index from the arc center
+   */
+  float getOffsetY(int index) {
+    return offsetY[index];
+  }
+
+  /**
+   * Places count points on the arc so that they have the same arc length between each other.
+   * On a circle equal arc lengths are equal angles, so no path sampling is needed.
+   * A sweep of 360 degrees or more is treated as a full circle, where the last point is not
+   * placed on top of the first one.
+   *
+   * @param startAngle the angle (in degrees) the arc starts from
+   * @param endAngle the angle (in degrees) the arc ends at
+   * @param radius the radius of the arc
+   * @param count the number of points
+   * @param outX receives the horizontal offset of each point from the arc center
+   * @param outY receives the vertical offset of each point from the arc center
+   */
+  static void solve(float startAngle, float endAngle, float radius, int count, float[] outX,
+      float[] outY) {
+    if (count <= 0) {
+      return;
+    }
+    float sweep = endAngle - startAngle;
+    final boolean fullCircle = Math.abs(sweep) >= 360;
+    if (fullCircle) {
+      sweep = sweep > 0 ? 360 : -360;
+    }
+
+    // Prevent overlapping when it is a full circle
+    final int divisor = fullCircle || count <= 1 ? count : count - 1;
+    final double step = Math.toRadians(sweep) / divisor;
+    final double start = Math.toRadians(startAngle);
+
+    for (int i = 0; i < count; i++) {
+      final double angle = start + i * step;
+      outX[i] = (float) (radius * Math.cos(angle));
+      outY[i] = (float) (radius * Math.sin(angle));
+    }
+  }
+}
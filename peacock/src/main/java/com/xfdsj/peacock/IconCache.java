@@ -0,0 +1,188 @@
+package com.xfdsj.peacock;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.DisplayMetrics;
+import android.util.LruCache;
+import android.util.SparseArray;
+import android.util.TypedValue;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes the bitmap icons of menus at the size they are drawn at, and keeps them in a bounded
+ * cache shared by every menu. A bitmap that only exists at a higher density is subsampled while
+ * it is decoded, rather than decoded at full resolution and scaled down afterwards, so a menu
+ * costs neither the time nor the memory of the full bitmap. Icons are meant to be loaded from the
+ * main thread.
+ */
+class IconCache {
+
+  /** Decoded icons by resource and size, bounded to a share of the heap */
+  private static final LruCache<Long, Bitmap> bitmaps =
+      new LruCache<Long, Bitmap>((int) Math.min(Integer.MAX_VALUE,
+          Runtime.getRuntime().maxMemory() / 32)) {
+        @Override protected int sizeOf(Long key, Bitmap bitmap) {
+          return bitmap.getByteCount();
+        }
+      };
+
+  /** Size and density of the bitmap of each resource, or NOT_A_BITMAP, read once per resource */
+  private static final SparseArray<Bounds> bounds = new SparseArray<>();
+
+  private static final Bounds NOT_A_BITMAP = new Bounds(0, 0, 0);
+
+  private IconCache() {
+  }
+
+  /**
+   * Loads an icon at the size the framework would give it for the density of the display.
+   *
+   * @return the cached bitmap of the icon, or the drawable of the resource if it is not a bitmap
+   */
+  static Drawable load(Context context, int resId) {
+    final Resources resources = context.getResources();
+    final Bounds resource = readBounds(resources, resId);
+    if (resource == NOT_A_BITMAP) {
+      return resources.getDrawable(resId);
+    }
+    final int targetDensity = resources.getDisplayMetrics().densityDpi;
+    int width = resource.width;
+    int height = resource.height;
+    if (resource.density != TypedValue.DENSITY_NONE && resource.density != targetDensity) {
+      width = scale(width, targetDensity, resource.density);
+      height = scale(height, targetDensity, resource.density);
+    }
+    return load(resources, resId, width, height);
+  }
+
+  /**
+   * Loads an icon at the given size, in pixels.
+   *
+   * @return the cached bitmap of the icon, or the drawable of the resource if it is not a bitmap
+   */
+  static Drawable load(Context context, int resId, int width, int height) {
+    return load(context.getResources(), resId, width, height);
+  }
+
+  private static Drawable load(Resources resources, int resId, int width, int height) {
+    width = Math.max(1, width);
+    height = Math.max(1, height);
+    final long key = ((long) resId << 32) | ((width & 0xffffL) << 16) | (height & 0xffffL);
+    Bitmap bitmap = bitmaps.get(key);
+    if (bitmap == null) {
+      final Bounds resource = readBounds(resources, resId);
+      bitmap = resource == NOT_A_BITMAP ? null : decode(resources, resId, resource, width, height);
+      if (bitmap == null) {
+        return resources.getDrawable(resId);
+      }
+      bitmaps.put(key, bitmap);
+    }
+    final BitmapDrawable drawable = new BitmapDrawable(resources, bitmap);
+    // The bitmap is already at the display size, it must not be scaled for the density again
+    drawable.setTargetDensity(bitmap.getDensity());
+    return drawable;
+  }
+
+  /**
+   * @return the size of the bitmap in the resource, without density scaling, and its density, or
+   * NOT_A_BITMAP if the resource is not a plain bitmap. Only the first call reads the resource.
+   */
+  private static Bounds readBounds(Resources resources, int resId) {
+    Bounds resource = bounds.get(resId);
+    if (resource == null) {
+      resource = decodeBounds(resources, resId);
+      bounds.put(resId, resource);
+    }
+    return resource;
+  }
+
+  private static Bounds decodeBounds(Resources resources, int resId) {
+    final TypedValue value = new TypedValue();
+    try {
+      resources.getValue(resId, value, true);
+    } catch (Resources.NotFoundException e) {
+      return NOT_A_BITMAP;
+    }
+    // Colors and other values are not files, and a nine-patch would lose its patches: the
+    // framework has to load them
+    if (value.type != TypedValue.TYPE_STRING || value.string == null
+        || value.string.toString().endsWith(".9.png")) {
+      return NOT_A_BITMAP;
+    }
+    final BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    decodeStream(resources, resId, options);
+    if (options.outWidth <= 0 || options.outHeight <= 0) {
+      return NOT_A_BITMAP;
+    }
+    final int density = value.density == TypedValue.DENSITY_DEFAULT
+        ? DisplayMetrics.DENSITY_DEFAULT : value.density;
+    return new Bounds(options.outWidth, options.outHeight, density);
+  }
+
+  /**
+   * Decodes the bitmap with the largest subsampling that keeps it at least as large as the given
+   * size, then scales it to that exact size.
+   */
+  private static Bitmap decode(Resources resources, int resId, Bounds resource, int width,
+      int height) {
+    int sampleSize = 1;
+    while (resource.width / (sampleSize * 2) >= width
+        && resource.height / (sampleSize * 2) >= height) {
+      sampleSize *= 2;
+    }
+    final BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inSampleSize = sampleSize;
+    final Bitmap sampled = decodeStream(resources, resId, options);
+    if (sampled == null) {
+      return null;
+    }
+    final Bitmap bitmap = sampled.getWidth() == width && sampled.getHeight() == height ? sampled
+        : Bitmap.createScaledBitmap(sampled, width, height, true);
+    if (bitmap != sampled) {
+      sampled.recycle();
+    }
+    bitmap.setDensity(resources.getDisplayMetrics().densityDpi);
+    return bitmap;
+  }
+
+  private static Bitmap decodeStream(Resources resources, int resId,
+      BitmapFactory.Options options) {
+    InputStream stream = null;
+    try {
+      stream = resources.openRawResource(resId);
+      return BitmapFactory.decodeStream(stream, null, options);
+    } catch (Resources.NotFoundException e) {
+      return null;
+    } finally {
+      if (stream != null) {
+        try {
+          stream.close();
+        } catch (IOException ignored) {
+          // Nothing was left to read
+        }
+      }
+    }
+  }
+
+  private static int scale(int size, int targetDensity, int density) {
+    return (size * targetDensity + (density >> 1)) / density;
+  }
+
+  private static class Bounds {
+    final int width;
+    final int height;
+    final int density;
+
+    Bounds(int width, int height, int density) {
+      this.width = width;
+      this.height = height;
+      this.density = density;
+    }
+  }
+}
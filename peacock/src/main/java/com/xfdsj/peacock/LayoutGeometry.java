@@ -0,0 +1,139 @@
+package com.xfdsj.peacock;
+
+/**
+ * The measuring and positioning math of {@link PeacockLayout}.
+ * It is plain Java, without any Android dependency, so it can be benchmarked on any JVM.
+ */
+final class LayoutGeometry {
+
+  /** Angular tolerance around a single child, in degrees */
+  private static final float SINGLE_CHILD_TOLERANCE = 45;
+
+  private LayoutGeometry() {
+  }
+
+  /**
+   * @return the smallest radius that keeps children of the given size apart on an arc
+   */
+  static int computeRadius(final float arcDegrees, final int childCount,
+      final int childSize, final int childPadding, final int minRadius) {
+    if (childCount < 2) {
+      return minRadius;
+    }
+
+    final float perDegrees = arcDegrees / (childCount - 1);
+    final float perHalfDegrees = perDegrees / 2;
+    final int perSize = childSize + childPadding;
+
+    final int radius = (int) ((perSize / 2) / Math.sin(Math.toRadians(perHalfDegrees)));
+
+    return Math.max(radius, minRadius);
+  }
+
+  /**
+   * @return the left (or top) edge of a child placed on an arc, along one axis
+   */
+  static int computeChildStart(final int center, final int radius, final float direction,
+      final int size) {
+    return (int) (center + radius * (double) direction - size / 2);
+  }
+
+  /**
+   * @return the right (or bottom) edge of a child placed on an arc, along one axis
+   */
+  static int computeChildEnd(final int center, final int radius, final float direction,
+      final int size) {
+    return (int) (center + radius * (double) direction + size / 2);
+  }
+
+  /**
+   * Finds the child of an arc that lies in a direction from the center, in constant time: the
+   * angle of the direction is turned into the nearest child index, with no per child hit testing.
+   * The arc is laid out as in {@code PeacockLayout}, the first child at the start angle and the
+   * others evenly spaced up to the end angle.
+   *
+   * @param dx horizontal offset from the center of the arc
+   * @param dy vertical offset from the center of the arc, downwards
+   * @param minDistance offsets closer to the center than this do not point at any child
+   * @param maxDistance offsets farther from the center than this do not point at any child
+   * @return the index of the child, -1 if the offset is out of the ring or more than half the
+   * spacing of the children away from the nearest one
+   */
+  static int findChildIndex(final float dx, final float dy, final float startAngle,
+      final float endAngle, final int childCount, final float minDistance,
+      final float maxDistance) {
+    if (childCount <= 0) {
+      return -1;
+    }
+    final float distanceSquared = dx * dx + dy * dy;
+    if (distanceSquared < minDistance * minDistance
+        || distanceSquared > maxDistance * maxDistance) {
+      return -1;
+    }
+
+    final double angle = Math.toDegrees(Math.atan2(dy, dx));
+    if (childCount == 1) {
+      return angularDistance(angle, startAngle) <= SINGLE_CHILD_TOLERANCE ? 0 : -1;
+    }
+
+    final float perDegrees = (endAngle - startAngle) / (childCount - 1);
+    // How far along the arc the direction is, in the winding direction of the arc
+    double along = (angle - startAngle) * Math.signum(perDegrees) % 360;
+    if (along < 0) {
+      along += 360;
+    }
+    final float spacing = Math.abs(perDegrees);
+    // Past the end of the arc, the direction may still be just before the first child
+    final double before = along - 360;
+    int index = clamp((int) Math.round(along / spacing), childCount);
+    double offset = Math.abs(along - index * spacing);
+    final int indexBefore = clamp((int) Math.round(before / spacing), childCount);
+    final double offsetBefore = Math.abs(before - indexBefore * spacing);
+    if (offsetBefore < offset) {
+      index = indexBefore;
+      offset = offsetBefore;
+    }
+    return offset <= spacing / 2 ? index : -1;
+  }
+
+  private static int clamp(final int index, final int childCount) {
+    return Math.max(0, Math.min(childCount - 1, index));
+  }
+
+  /**
+   * @return the distance between two angles, in degrees, between 0 and 180
+   */
+  private static double angularDistance(final double a, final double b) {
+    double distance = Math.abs(a - b) % 360;
+    return distance > 180 ? 360 - distance : distance;
+  }
+
+  /**
+   * The first half of the start offset computation, which refers to
+   * {@code LayoutAnimationController#getDelayForView(View)}.
+   *
+   * @param transformedIndex the order in which the child starts
+   * @return the delay of the child relative to the total delay, before interpolation
+   */
+  static float computeNormalizedDelay(final int childCount, final int transformedIndex,
+      final float delayPercent, final long duration) {
+    final float delay = delayPercent * duration;
+    final long viewDelay = (long) (transformedIndex * delay);
+    final float totalDelay = delay * childCount;
+
+    return viewDelay / totalDelay;
+  }
+
+  /**
+   * The second half of the start offset computation.
+   *
+   * @param interpolatedDelay the normalized delay, once interpolated
+   * @return the start offset of the child, in milliseconds
+   */
+  static long computeStartOffset(final int childCount, final float interpolatedDelay,
+      final float delayPercent, final long duration) {
+    final float totalDelay = delayPercent * duration * childCount;
+
+    return (long) (interpolatedDelay * totalDelay);
+  }
+}
@@ -0,0 +1,54 @@
+package com.xfdsj.peacock;
+
+import android.content.Context;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+/**
+ * A transparent layer on top of the Activity content view that hosts the sub menus of every
+ * {@link PeacockMenu} of that Activity.
+ * It is attached once. Sub menus stay attached to it while their menu is closed, hidden and
+ * positioned through translation, so opening or closing a menu does not relayout the content view.
+ */
+public class MenuHostLayer extends FrameLayout {
+
+  public MenuHostLayer(Context context) {
+    super(context);
+  }
+
+  /**
+   * Finds the host layer of the given content view, attaching a new one the first time.
+   *
+   * @param contentView the main content view of an Activity
+   * @return the host layer shared by all the menus of that Activity
+   */
+  public static MenuHostLayer obtain(ViewGroup contentView) {
+    View layer = contentView.findViewById(R.id.peacock_host_layer);
+    if (layer instanceof MenuHostLayer) {
+      return (MenuHostLayer) layer;
+    }
+    MenuHostLayer host = new MenuHostLayer(contentView.getContext());
+    host.setId(R.id.peacock_host_layer);
+    contentView.addView(host,
+        new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+    return host;
+  }
+
+  /**
+   * Attaches the view at the top left corner of the layer, hidden, unless it is already attached.
+   * It can then be placed with {@link View#setTranslationX(float)} and
+   * {@link View#setTranslationY(float)}.
+   *
+   * @return true if the view has been attached by this call
+   */
+  public boolean attach(View view, int width, int height) {
+    if (view.getParent() == this) {
+      return false;
+    }
+    view.setVisibility(INVISIBLE);
+    addView(view, new LayoutParams(width, height, Gravity.LEFT | Gravity.TOP));
+    return true;
+  }
+}
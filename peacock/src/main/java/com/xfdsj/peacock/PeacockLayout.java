@@ -1,14 +1,24 @@
 package com.xfdsj.peacock;
 
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
 import android.graphics.Rect;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.DrawableContainer;
+import android.os.Bundle;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
 import android.util.AttributeSet;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.accessibility.AccessibilityEvent;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.AlphaAnimation;
 import android.view.animation.Animation;
@@ -21,6 +31,9 @@ import android.view.animation.OvershootInterpolator;
 import android.view.animation.RotateAnimation;
 import android.view.animation.ScaleAnimation;
 import android.widget.ImageView;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * A Layout that arranges its children around its center. The arc can be set by
@@ -61,6 +74,97 @@ public class PeacockLayout extends ViewGroup {
 
   private OnClickListener itemListener;
 
+  /* unit vectors pointing from the layout's center to each child, see ensureChildDirections() */
+  private float[] mChildDirectionX = new float[0];
+
+  private float[] mChildDirectionY = new float[0];
+
+  private float mDirectionsStartAngle;
+
+  private float mDirectionsEndAngle;
+
+  private int mDirectionsChildCount = -1;
+
+  /* reused for every frame computed during layout and animation binding */
+  private final Rect mChildFrame = new Rect();
+
+  /*
+   * when enabled, children always stay laid out at their expanded frames and the expansion is
+   * drawn by translating, rotating, scaling and hiding them, so toggling never requests a layout
+   */
+  private boolean mPropertyAnimation = false;
+
+  /* 0 when shrunk, 1 when expanded, drives the children's properties in property animation mode */
+  private float mExpansionFraction = 0;
+
+  /* whether the current, or last, property animation is an expansion */
+  private boolean mExpanding = false;
+
+  private long mExpansionDuration;
+
+  /* duration of the whole transition, including the start offset of the last child */
+  private long mExpansionTimeline;
+
+  private long[] mExpansionStartOffsets = new long[0];
+
+  /* the fraction the current transition started at, and how far each item was expanded then */
+  private float mExpansionFromFraction = 0;
+
+  private float[] mExpansionFromValues = new float[0];
+
+  /* the rotation of a collapsed item, kept when a running transition is reversed */
+  private float mCollapsedRotation = 720;
+
+  private ValueAnimator mExpansionAnimator;
+
+  private final Interpolator mExpandInterpolator = new OvershootInterpolator(1.5f);
+
+  private final Interpolator mShrinkInterpolator = new AccelerateInterpolator();
+
+  /* press the menu, drag towards an item and release to select it, see setDragSelectionEnabled() */
+  private final OnTouchListener mDragSelectionListener = new DragSelectionListener();
+
+  private int mTouchSlop;
+
+  /* items drawn by this layout itself rather than by child views, see addItemDrawable() */
+  private final List<Drawable> mItemDrawables = new ArrayList<>();
+
+  private final List<CharSequence> mItemDescriptions = new ArrayList<>();
+
+  private boolean mDrawItems = false;
+
+  /* exposes the drawn menu and items to accessibility services as virtual views */
+  private DrawnItemsAccessibilityHelper mAccessibilityHelper;
+
+  private OnItemClickListener mItemClickListener;
+
+  /* where each drawn item is drawn at the current expansion fraction */
+  private Matrix[] mItemMatrices = new Matrix[0];
+
+  private boolean[] mItemVisible = new boolean[0];
+
+  /* the expanded frame of each drawn item */
+  private int[] mItemLeft = new int[0];
+
+  private int[] mItemTop = new int[0];
+
+  private final Rect mMenuFrame = new Rect();
+
+  private boolean mDragSelection = false;
+
+  /* state of the touch being handled in drawn mode, see onTouchEvent() */
+  private boolean mTouchOnMenu;
+
+  private boolean mTouchDragging;
+
+  private boolean mExpandedOnTouchDown;
+
+  private float mTouchDownX;
+
+  private float mTouchDownY;
+
+  private int mPressedItem = -1;
+
   public PeacockLayout(Context context) {
     super(context);
   }
@@ -72,7 +176,10 @@ public class PeacockLayout extends ViewGroup {
       TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.Peacock, 0, 0);
       mStartAngle = a.getFloat(R.styleable.Peacock_startAngle, DEFAULT_START_ANGLE);
       mEndAngle = a.getFloat(R.styleable.Peacock_endAngle, DEFAULT_END_ANGLE);
-      mMenuIco = a.getDrawable(R.styleable.Peacock_menuIco);
+      final int menuIcoRes = a.getResourceId(R.styleable.Peacock_menuIco, 0);
+      // Bitmaps are decoded at the size they are drawn at, and shared with the other menus
+      mMenuIco = menuIcoRes != 0 ? IconCache.load(context, menuIcoRes)
+          : a.getDrawable(R.styleable.Peacock_menuIco);
       a.recycle();
     }
 
@@ -81,7 +188,7 @@ public class PeacockLayout extends ViewGroup {
     if (mMenuIco != null) {
       mMenu.setImageDrawable(mMenuIco);
     } else {
-      mMenu.setImageResource(R.drawable.peacock_bg);
+      mMenu.setImageDrawable(IconCache.load(context, R.drawable.peacock_bg));
     }
 
     if (mMenu.getDrawable() instanceof BitmapDrawable|| mMenu.getDrawable() instanceof DrawableContainer) {
@@ -102,37 +209,68 @@ public class PeacockLayout extends ViewGroup {
         switchState(true);
       }
     });
+
+    mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
   }
 
-  private static int computeRadius(final float arcDegrees, final int childCount,
-      final int childSize, final int childPadding, final int minRadius) {
-    if (childCount < 2) {
-      return minRadius;
-    }
+  private static void computeChildFrame(final int centerX, final int centerY, final int radius,
+      final float directionX, final float directionY, final int size, final Rect outFrame) {
+    outFrame.set(LayoutGeometry.computeChildStart(centerX, radius, directionX, size),
+        LayoutGeometry.computeChildStart(centerY, radius, directionY, size),
+        LayoutGeometry.computeChildEnd(centerX, radius, directionX, size),
+        LayoutGeometry.computeChildEnd(centerY, radius, directionY, size));
+  }
 
-    final float perDegrees = arcDegrees / (childCount - 1);
-    final float perHalfDegrees = perDegrees / 2;
-    final int perSize = childSize + childPadding;
+  /**
+   * Rebuilds the table of child directions, only if the angles or the number of children have
+   * changed since it was last built.
+   */
+  private void ensureChildDirections(final int childCount) {
+    if (mDirectionsChildCount == childCount
+        && mDirectionsStartAngle == mStartAngle
+        && mDirectionsEndAngle == mEndAngle) {
+      return;
+    }
 
-    final int radius = (int) ((perSize / 2) / Math.sin(Math.toRadians(perHalfDegrees)));
+    if (mChildDirectionX.length < childCount) {
+      mChildDirectionX = new float[childCount];
+      mChildDirectionY = new float[childCount];
+    }
 
-    return Math.max(radius, minRadius);
-  }
+    final float perDegrees = (mEndAngle - mStartAngle) / (childCount - 1);
 
-  private static Rect computeChildFrame(final int centerX, final int centerY, final int radius,
-      final float degrees, final int size) {
+    float degrees = mStartAngle;
+    for (int i = 0; i < childCount; i++) {
+      final double radians = Math.toRadians(degrees);
+      mChildDirectionX[i] = (float) Math.cos(radians);
+      mChildDirectionY[i] = (float) Math.sin(radians);
+      degrees += perDegrees;
+    }
 
-    final double childCenterX = centerX + radius * Math.cos(Math.toRadians(degrees));
-    final double childCenterY = centerY + radius * Math.sin(Math.toRadians(degrees));
+    mDirectionsStartAngle = mStartAngle;
+    mDirectionsEndAngle = mEndAngle;
+    mDirectionsChildCount = childCount;
+  }
 
-    return new Rect((int) (childCenterX - size / 2), (int) (childCenterY - size / 2),
-        (int) (childCenterX + size / 2), (int) (childCenterY + size / 2));
+  @Override public void addView(View child, int index, ViewGroup.LayoutParams params) {
+    if (mDrawItems) {
+      throw new IllegalStateException(
+          "PeacockLayout draws its items itself once item drawables are added, it cannot hold views");
+    }
+    // Items are always inserted below the menu, so the menu stays the last child and is drawn on top
+    if (mMenu != null && child != mMenu && mMenu.getParent() == this) {
+      final int menuIndex = getChildCount() - 1;
+      if (index < 0 || index > menuIndex) {
+        index = menuIndex;
+      }
+    }
+    super.addView(child, index, params);
   }
 
   @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
     final int radius = mRadius =
-        computeRadius(Math.abs(mEndAngle - mStartAngle), getChildCount() - 1, mSubMenuSize,
-            mChildPadding, mMinRadius);
+        LayoutGeometry.computeRadius(Math.abs(mEndAngle - mStartAngle), getItemCount(),
+            mSubMenuSize, mChildPadding, mMinRadius);
     final int size = radius * 2 + mSubMenuSize + mChildPadding + mLayoutPadding * 2;
 
     setMeasuredDimension(size, size);
@@ -149,32 +287,37 @@ public class PeacockLayout extends ViewGroup {
   @Override protected void onLayout(boolean changed, int l, int t, int r, int b) {
     final int centerX = getWidth() / 2;
     final int centerY = getHeight() / 2;
-    final int radius = mExpanded ? mRadius : 0;
+    final int radius = mExpanded || mPropertyAnimation ? mRadius : 0;
+
+    if (mDrawItems) {
+      layoutItemDrawables(centerX, centerY);
+      return;
+    }
 
     final int childCount = getChildCount() - 1;
-    final float perDegrees = (mEndAngle - mStartAngle) / (childCount - 1);
+    ensureChildDirections(childCount);
 
-    float degrees = mStartAngle;
+    final Rect frame = mChildFrame;
     for (int i = 0; i < childCount; i++) {
-      Rect frame = computeChildFrame(centerX, centerY, radius, degrees, mSubMenuSize);
-      degrees += perDegrees;
+      computeChildFrame(centerX, centerY, radius, mChildDirectionX[i], mChildDirectionY[i],
+          mSubMenuSize, frame);
       getChildAt(i).layout(frame.left, frame.top, frame.right, frame.bottom);
     }
-    Rect frame = computeChildFrame(centerX, centerY, 0, 0, mMenuSize);
+    computeChildFrame(centerX, centerY, 0, 0, 0, mMenuSize, frame);
     mMenu.layout(frame.left, frame.top, frame.right, frame.bottom);
-    mMenu.bringToFront();
+
+    if (mPropertyAnimation) {
+      applyExpansion();
+    }
   }
 
   private static long computeStartOffset(final int childCount, final boolean expanded,
       final int index, final float delayPercent, final long duration, Interpolator interpolator) {
-    final float delay = delayPercent * duration;
-    final long viewDelay = (long) (getTransformedIndex(expanded, childCount, index) * delay);
-    final float totalDelay = delay * childCount;
+    final float normalizedDelay = LayoutGeometry.computeNormalizedDelay(childCount,
+        getTransformedIndex(expanded, childCount, index), delayPercent, duration);
 
-    float normalizedDelay = viewDelay / totalDelay;
-    normalizedDelay = interpolator.getInterpolation(normalizedDelay);
-
-    return (long) (normalizedDelay * totalDelay);
+    return LayoutGeometry.computeStartOffset(childCount,
+        interpolator.getInterpolation(normalizedDelay), delayPercent, duration);
   }
 
   private static int getTransformedIndex(final boolean expanded, final int count, final int index) {
@@ -231,9 +374,10 @@ public class PeacockLayout extends ViewGroup {
     final int radius = expanded ? 0 : mRadius;
 
     final int childCount = getChildCount() - 1;
-    final float perDegrees = (mEndAngle - mStartAngle) / (childCount - 1);
-    Rect frame =
-        computeChildFrame(centerX, centerY, radius, mStartAngle + index * perDegrees, mSubMenuSize);
+    ensureChildDirections(childCount);
+    final Rect frame = mChildFrame;
+    computeChildFrame(centerX, centerY, radius, mChildDirectionX[index], mChildDirectionY[index],
+        mSubMenuSize, frame);
 
     final int toXDelta = frame.left - child.getLeft();
     final int toYDelta = frame.top - child.getTop();
@@ -274,10 +418,447 @@ public class PeacockLayout extends ViewGroup {
     child.setAnimation(animation);
   }
 
+  /**
+   * Places the drawn items at their expanded frames and the menu at the center. The items are
+   * then moved by their matrices only, like the views of the property animation mode.
+   */
+  private void layoutItemDrawables(final int centerX, final int centerY) {
+    final int itemCount = mItemDrawables.size();
+    ensureChildDirections(itemCount);
+    if (mItemMatrices.length < itemCount) {
+      final Matrix[] matrices = new Matrix[itemCount];
+      System.arraycopy(mItemMatrices, 0, matrices, 0, mItemMatrices.length);
+      for (int i = mItemMatrices.length; i < itemCount; i++) {
+        matrices[i] = new Matrix();
+      }
+      mItemMatrices = matrices;
+      mItemVisible = new boolean[itemCount];
+      mItemLeft = new int[itemCount];
+      mItemTop = new int[itemCount];
+    }
+
+    final Rect frame = mChildFrame;
+    for (int i = 0; i < itemCount; i++) {
+      computeChildFrame(centerX, centerY, mRadius, mChildDirectionX[i], mChildDirectionY[i],
+          mSubMenuSize, frame);
+      mItemLeft[i] = frame.left;
+      mItemTop[i] = frame.top;
+      mItemDrawables.get(i).setBounds(0, 0, mSubMenuSize, mSubMenuSize);
+    }
+    computeChildFrame(centerX, centerY, 0, 0, 0, mMenuSize, mMenuFrame);
+    mMenuIco.setBounds(mMenuFrame);
+
+    applyExpansion();
+  }
+
+  /**
+   * Moves every item from its expanded frame towards the center according to the current
+   * expansion fraction. Only view properties are touched, so no layout is requested.
+   */
+  private void applyExpansion() {
+    final Rect collapsedFrame = mChildFrame;
+    computeChildFrame(getWidth() / 2, getHeight() / 2, 0, 0, 0, mSubMenuSize, collapsedFrame);
+
+    if (mDrawItems) {
+      final int itemCount = mItemDrawables.size();
+      if (mItemMatrices.length < itemCount) {
+        // Not laid out yet, onLayout() applies the expansion
+        return;
+      }
+      final float pivot = mSubMenuSize / 2f;
+      for (int i = 0; i < itemCount; i++) {
+        final float expansion = computeChildExpansion(i);
+        final float remaining = 1 - expansion;
+        final float scale = Math.max(0, Math.min(1, expansion));
+        final Matrix matrix = mItemMatrices[i];
+        matrix.setRotate(mCollapsedRotation * remaining, pivot, pivot);
+        matrix.postScale(scale, scale, pivot, pivot);
+        matrix.postTranslate(mItemLeft[i] + (collapsedFrame.left - mItemLeft[i]) * remaining,
+            mItemTop[i] + (collapsedFrame.top - mItemTop[i]) * remaining);
+        mItemVisible[i] = remaining != 1;
+      }
+      invalidate();
+      return;
+    }
+
+    final int childCount = getChildCount() - 1;
+    for (int i = 0; i < childCount; i++) {
+      final View child = getChildAt(i);
+      final float expansion = computeChildExpansion(i);
+      final float remaining = 1 - expansion;
+      final float scale = Math.max(0, Math.min(1, expansion));
+
+      child.setTranslationX((collapsedFrame.left - child.getLeft()) * remaining);
+      child.setTranslationY((collapsedFrame.top - child.getTop()) * remaining);
+      child.setRotation(mCollapsedRotation * remaining);
+      child.setScaleX(scale);
+      child.setScaleY(scale);
+      child.setVisibility(remaining == 1 ? View.INVISIBLE : View.VISIBLE);
+    }
+  }
+
+  /**
+   * @return how far the item at index is expanded at the current expansion fraction, taking its
+   * start offset, the interpolator of the current direction and where it started from into account
+   */
+  private float computeChildExpansion(final int index) {
+    final float target = mExpanding ? 1 : 0;
+    if (mExpansionFraction == target
+        || mExpansionFromFraction == target
+        || index >= mExpansionStartOffsets.length) {
+      return mExpansionFraction;
+    }
+
+    final float elapsed = (mExpansionFraction - mExpansionFromFraction)
+        / (target - mExpansionFromFraction) * mExpansionTimeline;
+    final float progress = Math.max(0,
+        Math.min(1, (elapsed - mExpansionStartOffsets[index]) / (float) mExpansionDuration));
+    final float interpolated = mExpanding ? mExpandInterpolator.getInterpolation(progress)
+        : mShrinkInterpolator.getInterpolation(progress);
+
+    return mExpansionFromValues[index] + (target - mExpansionFromValues[index]) * interpolated;
+  }
+
+  /**
+   * Animates the items from where they are drawn to the given state, so reversing a running
+   * transition never makes an item jump.
+   */
+  private void startExpansionAnimation(final boolean expand, final long duration) {
+    final int childCount = getItemCount();
+    final float[] fromValues = mExpansionFromValues.length < childCount ? new float[childCount]
+        : mExpansionFromValues;
+    for (int i = 0; i < childCount; i++) {
+      fromValues[i] = computeChildExpansion(i);
+    }
+    mExpansionFromValues = fromValues;
+    if (mExpansionStartOffsets.length < childCount) {
+      mExpansionStartOffsets = new long[childCount];
+    }
+    if (mExpansionFraction == 0 || mExpansionFraction == 1) {
+      // Collapsed items turn towards the menu in the direction they started from
+      mCollapsedRotation = expand ? -720 : 720;
+    }
+    mExpansionFromFraction = mExpansionFraction;
+
+    final Interpolator interpolator = expand ? mExpandInterpolator : mShrinkInterpolator;
+    long lastStartOffset = 0;
+    for (int i = 0; i < childCount; i++) {
+      mExpansionStartOffsets[i] =
+          computeStartOffset(childCount, !expand, i, 0.1f, duration, interpolator);
+      lastStartOffset = Math.max(lastStartOffset, mExpansionStartOffsets[i]);
+    }
+
+    mExpanding = expand;
+    mExpansionDuration = duration;
+    mExpansionTimeline = lastStartOffset + duration;
+
+    if (mExpansionAnimator == null) {
+      mExpansionAnimator = ValueAnimator.ofFloat(0, 1);
+      mExpansionAnimator.setInterpolator(new LinearInterpolator());
+      mExpansionAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        @Override public void onAnimationUpdate(ValueAnimator animation) {
+          mExpansionFraction = (Float) animation.getAnimatedValue();
+          applyExpansion();
+        }
+      });
+    }
+
+    final float target = expand ? 1 : 0;
+    mExpansionAnimator.cancel();
+    mExpansionAnimator.setFloatValues(mExpansionFraction, target);
+    mExpansionAnimator.setDuration(
+        (long) (mExpansionTimeline * Math.abs(target - mExpansionFromFraction)));
+    mExpansionAnimator.start();
+  }
+
+  private void setExpansionFraction(final float fraction) {
+    if (mExpansionAnimator != null) {
+      mExpansionAnimator.cancel();
+    }
+
+    settleExpansion(fraction);
+    applyExpansion();
+  }
+
+  /**
+   * Puts every item at the given fraction, with no transition running.
+   */
+  private void settleExpansion(final float fraction) {
+    mExpansionFraction = fraction;
+    mExpansionFromFraction = fraction;
+    Arrays.fill(mExpansionFromValues, fraction);
+  }
+
   public boolean isExpanded() {
     return mExpanded;
   }
 
+  /**
+   * @return the number of items, drawn or held as child views, not counting the menu
+   */
+  private int getItemCount() {
+    return mDrawItems ? mItemDrawables.size() : getChildCount() - 1;
+  }
+
+  /**
+   * Adds an item that this layout draws itself. Once the first one is added, the layout holds no
+   * view at all: the items and the menu are drawn in {@link #onDraw(Canvas)}, each item through a
+   * matrix cached for the current expansion fraction, and touches are matched against the arc the
+   * items are laid out on. A menu costs a single view to measure, lay out and dispatch touches to,
+   * however many items it has. Clicks are reported to {@link #setOnItemClickListener}.
+   *
+   * @throws IllegalStateException if the layout already holds item views
+   */
+  public void addItemDrawable(Drawable drawable) {
+    addItemDrawable(drawable, null);
+  }
+
+  /**
+   * Adds an item that this layout draws itself, see {@link #addItemDrawable(Drawable)}. The drawn
+   * menu and items are reported to accessibility services as virtual views, this item with the
+   * given description.
+   *
+   * @param contentDescription what the item does, or null to announce it by its position
+   * @throws IllegalStateException if the layout already holds item views
+   */
+  public void addItemDrawable(Drawable drawable, CharSequence contentDescription) {
+    if (!mDrawItems) {
+      if (getChildCount() > 1) {
+        throw new IllegalStateException(
+            "PeacockLayout cannot draw items while it holds item views");
+      }
+      if (mMenuIco == null) {
+        mMenuIco = mMenu.getDrawable();
+      }
+      mMenu.clearAnimation();
+      removeView(mMenu);
+      mMenuIco.setCallback(this);
+      // Items are always animated through the expansion fraction, there is no view to animate
+      settleExpansion(mExpanded ? 1 : 0);
+      mDrawItems = true;
+      setWillNotDraw(false);
+      mAccessibilityHelper = new DrawnItemsAccessibilityHelper();
+      ViewCompat.setAccessibilityDelegate(this, mAccessibilityHelper);
+    }
+
+    drawable.setCallback(this);
+    mItemDrawables.add(drawable);
+    mItemDescriptions.add(contentDescription);
+    mAccessibilityHelper.invalidateRoot();
+    requestLayout();
+  }
+
+  /**
+   * Adds an item drawn by this layout, see {@link #addItemDrawable(Drawable)}. A bitmap is decoded
+   * at the size of the items and shared with the other menus showing it.
+   *
+   * @param resId the drawable resource of the item
+   */
+  public void addItemIcon(int resId) {
+    addItemDrawable(IconCache.load(getContext(), resId, mSubMenuSize, mSubMenuSize));
+  }
+
+  /**
+   * Sets the listener of the items added by {@link #addItemDrawable(Drawable)}.
+   */
+  public void setOnItemClickListener(OnItemClickListener listener) {
+    mItemClickListener = listener;
+  }
+
+  @Override protected boolean verifyDrawable(Drawable who) {
+    return super.verifyDrawable(who) || (mDrawItems && (who == mMenuIco
+        || mItemDrawables.contains(who)));
+  }
+
+  @Override protected void onDraw(Canvas canvas) {
+    super.onDraw(canvas);
+    if (!mDrawItems) {
+      return;
+    }
+
+    final int itemCount = mItemDrawables.size();
+    for (int i = 0; i < itemCount; i++) {
+      if (!mItemVisible[i]) {
+        continue;
+      }
+      final int saveCount = canvas.save();
+      canvas.concat(mItemMatrices[i]);
+      mItemDrawables.get(i).draw(canvas);
+      canvas.restoreToCount(saveCount);
+    }
+
+    // The menu is drawn on top, turning with the expansion as the hint of the menu view does
+    final int saveCount = canvas.save();
+    canvas.rotate(45 * Math.max(0, Math.min(1, mExpansionFraction)), mMenuFrame.exactCenterX(),
+        mMenuFrame.exactCenterY());
+    mMenuIco.draw(canvas);
+    canvas.restoreToCount(saveCount);
+  }
+
+  @Override protected boolean dispatchHoverEvent(MotionEvent event) {
+    return mDrawItems && mAccessibilityHelper.dispatchHoverEvent(event)
+        || super.dispatchHoverEvent(event);
+  }
+
+  /**
+   * In drawn mode, a click on the layout is a click on the menu it draws, which toggles it.
+   */
+  @Override public boolean performClick() {
+    final boolean handled = super.performClick();
+    if (!mDrawItems) {
+      return handled;
+    }
+    switchState(true);
+    return true;
+  }
+
+  @Override public boolean onTouchEvent(MotionEvent event) {
+    if (!mDrawItems) {
+      return super.onTouchEvent(event);
+    }
+
+    final float x = event.getX();
+    final float y = event.getY();
+    switch (event.getActionMasked()) {
+      case MotionEvent.ACTION_DOWN:
+        final boolean onMenu = mMenuFrame.contains((int) x, (int) y);
+        final int item = onMenu || !mExpanded ? -1 : findItemAt(x, y);
+        if (!onMenu && item < 0) {
+          return false;
+        }
+        mTouchOnMenu = onMenu;
+        mTouchDragging = false;
+        mExpandedOnTouchDown = mExpanded;
+        mTouchDownX = x;
+        mTouchDownY = y;
+        setPressedItem(item);
+        if (onMenu && mDragSelection && !mExpanded) {
+          // Expand right away, the finger is already on its way to an item
+          switchState(true);
+        }
+        return true;
+      case MotionEvent.ACTION_MOVE:
+        if (!mTouchOnMenu) {
+          setPressedItem(findItemAt(x, y));
+          return true;
+        }
+        if (!mTouchDragging && Math.hypot(x - mTouchDownX, y - mTouchDownY) > mTouchSlop) {
+          mTouchDragging = true;
+        }
+        if (mTouchDragging && mDragSelection) {
+          setPressedItem(mExpanded ? findItemAt(x, y) : -1);
+        }
+        return true;
+      case MotionEvent.ACTION_UP:
+        final int target = mPressedItem;
+        setPressedItem(-1);
+        if (target >= 0) {
+          performItemClick(target);
+        } else if (mTouchOnMenu) {
+          if (!mDragSelection) {
+            if (mMenuFrame.contains((int) x, (int) y)) {
+              performClick();
+            }
+          } else if ((mTouchDragging || mExpandedOnTouchDown) && mExpanded) {
+            // Released away from the items, or tapped while expanded
+            switchState(true);
+          }
+        }
+        return true;
+      case MotionEvent.ACTION_CANCEL:
+        setPressedItem(-1);
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Highlights the drawn item at index through its state, which only redraws this layout.
+   */
+  private void setPressedItem(int index) {
+    if (index == mPressedItem) {
+      return;
+    }
+    if (mPressedItem >= 0 && mPressedItem < mItemDrawables.size()) {
+      mItemDrawables.get(mPressedItem).setState(EMPTY_STATE_SET);
+    }
+    mPressedItem = index;
+    if (index >= 0) {
+      mItemDrawables.get(index).setState(PRESSED_ENABLED_STATE_SET);
+    }
+    invalidate();
+  }
+
+  private void performItemClick(int index) {
+    if (mItemClickListener != null) {
+      mItemClickListener.onItemClick(this, index);
+    }
+    switchState(true);
+  }
+
+  /**
+   * Chooses how items are expanded and shrunk. When enabled, items stay laid out at their
+   * expanded frames and are animated through their translation, rotation, scale and visibility,
+   * which needs no layout pass per toggle and keeps touch targets where the items are drawn.
+   *
+   * @param enabled true to animate with view properties, false for the legacy view animations
+   */
+  public void setPropertyAnimationEnabled(boolean enabled) {
+    if (mPropertyAnimation == enabled) {
+      return;
+    }
+
+    mPropertyAnimation = enabled;
+    if (mExpansionAnimator != null) {
+      mExpansionAnimator.cancel();
+    }
+    settleExpansion(mExpanded ? 1 : 0);
+
+    if (!enabled) {
+      final int childCount = getChildCount() - 1;
+      for (int i = 0; i < childCount; i++) {
+        final View child = getChildAt(i);
+        child.setTranslationX(0);
+        child.setTranslationY(0);
+        child.setRotation(0);
+        child.setScaleX(1);
+        child.setScaleY(1);
+        child.setVisibility(View.VISIBLE);
+      }
+    }
+
+    requestLayout();
+  }
+
+  public boolean isPropertyAnimationEnabled() {
+    return mPropertyAnimation;
+  }
+
+  /**
+   * Enables the press-drag-release gesture: pressing the menu expands it, dragging highlights the
+   * item the finger points at and releasing selects it, as a click on that item would. The item
+   * is found from the angle and the distance of the finger to the center, against the arc the
+   * items are laid out on, so nothing is hit tested and highlighting does not relayout. A tap on
+   * the menu still toggles it.
+   *
+   * @param enabled true to select items by dragging from the menu
+   */
+  public void setDragSelectionEnabled(boolean enabled) {
+    mDragSelection = enabled;
+    mMenu.setOnTouchListener(enabled ? mDragSelectionListener : null);
+  }
+
+  /**
+   * @param x horizontal position in this layout
+   * @param y vertical position in this layout
+   * @return the index of the item the position points at, -1 if none
+   */
+  private int findItemAt(float x, float y) {
+    return LayoutGeometry.findChildIndex(x - getWidth() / 2, y - getHeight() / 2, mStartAngle,
+        mEndAngle, getItemCount(), mMenuSize / 2, mRadius + mSubMenuSize);
+  }
+
   public void setAngle(float startAngle, float endAngle) {
     if (mStartAngle == startAngle && mEndAngle == endAngle) {
       return;
@@ -293,6 +874,24 @@ public class PeacockLayout extends ViewGroup {
    * switch between expansion and shrinkage
    */
   public void switchState(final boolean showAnimation) {
+    if (mPropertyAnimation || mDrawItems) {
+      final int childCount = getChildCount() - 1;
+      for (int i = 0; i < childCount; i++) {
+        getChildAt(i).setOnClickListener(listener);
+      }
+      mExpanded = !mExpanded;
+      if (showAnimation) {
+        startExpansionAnimation(mExpanded, 300);
+      } else {
+        setExpansionFraction(mExpanded ? 1 : 0);
+      }
+      if (mDrawItems) {
+        // The items are only reachable while expanded
+        mAccessibilityHelper.invalidateRoot();
+      }
+      return;
+    }
+
     if (showAnimation) {
       final int childCount = getChildCount() - 1;
       for (int i = 0; i < childCount; i++) {
@@ -408,4 +1007,171 @@ public class PeacockLayout extends ViewGroup {
   public void setItemListener(OnClickListener itemListener) {
     this.itemListener = itemListener;
   }
+
+  /**
+   * Interface definition for a callback to be invoked when an item drawn by the layout is clicked.
+   */
+  public interface OnItemClickListener {
+    /**
+     * @param index the index of the item, in the order it was added
+     */
+    void onItemClick(PeacockLayout layout, int index);
+  }
+
+  /**
+   * Reports the menu and the items drawn by the layout as virtual views, so they can be explored
+   * by touch and clicked by accessibility services. The items are only there while expanded.
+   */
+  private class DrawnItemsAccessibilityHelper extends ExploreByTouchHelper {
+
+    /** The virtual view of the menu, the items use their index */
+    private static final int MENU_ID = Integer.MAX_VALUE;
+
+    private final Rect mBounds = new Rect();
+
+    DrawnItemsAccessibilityHelper() {
+      super(PeacockLayout.this);
+    }
+
+    @Override protected int getVirtualViewAt(float x, float y) {
+      if (mMenuFrame.contains((int) x, (int) y)) {
+        return MENU_ID;
+      }
+      final int item = mExpanded ? findItemAt(x, y) : -1;
+      return item >= 0 ? item : INVALID_ID;
+    }
+
+    @Override protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+      virtualViewIds.add(MENU_ID);
+      if (mExpanded) {
+        // Only the laid out items have a frame
+        final int itemCount = Math.min(mItemDrawables.size(), mItemLeft.length);
+        for (int i = 0; i < itemCount; i++) {
+          virtualViewIds.add(i);
+        }
+      }
+    }
+
+    @Override protected void onPopulateEventForVirtualView(int virtualViewId,
+        AccessibilityEvent event) {
+      event.setContentDescription(getDescription(virtualViewId));
+    }
+
+    @Override protected void onPopulateNodeForVirtualView(int virtualViewId,
+        AccessibilityNodeInfoCompat node) {
+      if (virtualViewId == MENU_ID) {
+        mBounds.set(mMenuFrame);
+      } else if (virtualViewId < mItemLeft.length) {
+        mBounds.set(mItemLeft[virtualViewId], mItemTop[virtualViewId],
+            mItemLeft[virtualViewId] + mSubMenuSize, mItemTop[virtualViewId] + mSubMenuSize);
+      } else {
+        mBounds.setEmpty();
+      }
+      node.setContentDescription(getDescription(virtualViewId));
+      node.setBoundsInParent(mBounds);
+      node.setClickable(true);
+      node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+    }
+
+    @Override protected boolean onPerformActionForVirtualView(int virtualViewId, int action,
+        Bundle arguments) {
+      if (action != AccessibilityNodeInfoCompat.ACTION_CLICK) {
+        return false;
+      }
+      sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+      if (virtualViewId == MENU_ID) {
+        switchState(true);
+      } else {
+        performItemClick(virtualViewId);
+      }
+      return true;
+    }
+
+    private CharSequence getDescription(int virtualViewId) {
+      if (virtualViewId == MENU_ID) {
+        final CharSequence description = getContentDescription();
+        return description != null ? description : getContext().getString(R.string.peacock_menu);
+      }
+      final CharSequence description = virtualViewId < mItemDescriptions.size()
+          ? mItemDescriptions.get(virtualViewId) : null;
+      return description != null ? description
+          : getContext().getString(R.string.peacock_item, virtualViewId + 1);
+    }
+  }
+
+  private class DragSelectionListener implements OnTouchListener {
+
+    private float mDownX;
+
+    private float mDownY;
+
+    private boolean mDragging;
+
+    private boolean mExpandedOnDown;
+
+    private int mTarget = -1;
+
+    @Override public boolean onTouch(View menu, MotionEvent event) {
+      // The menu is not moved by view properties, its position is enough to get to this layout
+      final float x = menu.getLeft() + event.getX();
+      final float y = menu.getTop() + event.getY();
+      switch (event.getActionMasked()) {
+        case MotionEvent.ACTION_DOWN:
+          mDownX = x;
+          mDownY = y;
+          mDragging = false;
+          mExpandedOnDown = mExpanded;
+          menu.setPressed(true);
+          if (!mExpanded) {
+            // Expand right away, the finger is already on its way to an item
+            menu.performClick();
+          }
+          return true;
+        case MotionEvent.ACTION_MOVE:
+          if (!mDragging && Math.hypot(x - mDownX, y - mDownY) > mTouchSlop) {
+            mDragging = true;
+            menu.setPressed(false);
+          }
+          if (mDragging) {
+            setTarget(mExpanded ? findItemAt(x, y) : -1);
+          }
+          return true;
+        case MotionEvent.ACTION_UP:
+          menu.setPressed(false);
+          final int target = mTarget;
+          setTarget(-1);
+          if (target >= 0) {
+            listener.onClick(getChildAt(target));
+          } else if (mDragging || mExpandedOnDown) {
+            // Released away from the items, or tapped while expanded
+            if (mExpanded) {
+              menu.performClick();
+            }
+          }
+          return true;
+        case MotionEvent.ACTION_CANCEL:
+          menu.setPressed(false);
+          setTarget(-1);
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    /**
+     * Highlights the item at index through its pressed state, which only redraws it.
+     */
+    private void setTarget(int index) {
+      if (index == mTarget) {
+        return;
+      }
+      if (mTarget >= 0 && mTarget < getChildCount() - 1) {
+        getChildAt(mTarget).setPressed(false);
+      }
+      mTarget = index;
+      if (index >= 0) {
+        getChildAt(index).setPressed(true);
+      }
+    }
+  }
 }
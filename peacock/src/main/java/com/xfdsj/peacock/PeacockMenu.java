@@ -3,18 +3,17 @@ package com.xfdsj.peacock;
 import android.app.Activity;
 import android.content.Context;
 import android.content.res.TypedArray;
-import android.graphics.Path;
-import android.graphics.PathMeasure;
 import android.graphics.Point;
 import android.graphics.Rect;
-import android.graphics.RectF;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.DrawableContainer;
+import android.os.Build;
 import android.util.AttributeSet;
 import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
@@ -54,14 +53,46 @@ public class PeacockMenu extends FrameLayout {
   private int radius;
   /** List of menu items */
   private List<PeacockMenu> subMenus;
+  /** Sub menus that are only created when this menu first opens, null once they are */
+  private List<SubMenuDescriptor> pendingSubMenus;
+  /** Layout describing more pending sub menus, 0 once it has been read */
+  private int subMenuLayout;
+  /** Cached positions of the menu items relative to the center of this menu */
+  private final ArcGeometry arcGeometry = new ArcGeometry();
+  /** Cached center of this menu, valid until the layout of the window changes or it scrolls */
+  private final Point actionViewCenter = new Point();
+  private boolean actionViewCenterValid;
+  /** Translation of this menu when its center was cached, sub menus move without a layout pass */
+  private float actionViewCenterTranslationX;
+  private float actionViewCenterTranslationY;
+  /** Buffers of the center computation */
+  private final int[] locationBuffer = new int[2];
+  private final Rect frameBuffer = new Rect();
+  private final Point screenSizeBuffer = new Point();
+  /** The center passed to the animation handler */
+  private final Point center = new Point();
+  /** Invalidates the cached center whenever the window is laid out or scrolled */
+  private final AnchorObserver anchorObserver = new AnchorObserver();
   /** Reference to the preferred {@link MenuAnimationHandler} object */
   private MenuAnimationHandler animationHandler;
   /** Reference to a listener that listens openMenu/closeMenu actions */
   private MenuStateChangeListener stateChangeListener;
+  /** Reference to a listener that receives the measurements of each transition */
+  private MenuMetricsListener metricsListener;
+  /** Measures the transitions while a metrics listener is set */
+  private TransitionMonitor transitionMonitor;
 
   private Status status = Status.CLOSE;
+  /** Whether the last transition requested is an opening */
+  private boolean opening;
 
   private PeacockMenu peacockParent;
+  /** Opens and closes the whole tree below this menu, created on first use */
+  private TreeTransition treeTransition;
+  /** The tree transition this menu takes part in, if one is running */
+  private TreeTransition runningTreeTransition;
+  /** The layer the sub menus are shown in */
+  private MenuHostLayer hostLayer;
 
   public PeacockMenu(Context context) {
     super(context);
@@ -74,7 +105,11 @@ public class PeacockMenu extends FrameLayout {
       startAngle = a.getFloat(R.styleable.Peacock_startAngle, DEFAULT_START_ANGLE);
       endAngle = a.getFloat(R.styleable.Peacock_endAngle, DEFAULT_END_ANGLE);
       radius = a.getDimensionPixelSize(R.styleable.Peacock_radius, DEFAULT_RADIUS);
-      menuIco = a.getDrawable(R.styleable.Peacock_menuIco);
+      final int menuIcoRes = a.getResourceId(R.styleable.Peacock_menuIco, 0);
+      // Bitmaps are decoded at the size they are drawn at, and shared with the other menus
+      menuIco = menuIcoRes != 0 ? IconCache.load(context, menuIcoRes)
+          : a.getDrawable(R.styleable.Peacock_menuIco);
+      subMenuLayout = a.getResourceId(R.styleable.Peacock_subMenuLayout, 0);
       a.recycle();
     }
     if (getBackground() == null) {
@@ -89,18 +124,88 @@ public class PeacockMenu extends FrameLayout {
     subMenus = new ArrayList<>();
   }
 
+  @Override protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    actionViewCenterValid = false;
+    getViewTreeObserver().addOnGlobalLayoutListener(anchorObserver);
+    getViewTreeObserver().addOnScrollChangedListener(anchorObserver);
+  }
+
+  @SuppressWarnings("deprecation") @Override protected void onDetachedFromWindow() {
+    final ViewTreeObserver observer = getViewTreeObserver();
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+      observer.removeOnGlobalLayoutListener(anchorObserver);
+    } else {
+      observer.removeGlobalOnLayoutListener(anchorObserver);
+    }
+    observer.removeOnScrollChangedListener(anchorObserver);
+    super.onDetachedFromWindow();
+  }
+
   @Override public void onViewAdded(View child) {
     super.onViewAdded(child);
     if (child instanceof PeacockMenu) {
-      PeacockMenu button = (PeacockMenu) child;
-      button.setPeacockParent(this);
-      button.width = button.getSelfWidth();
-      button.height = button.getSelfHeight();
-      subMenus.add(button);
+      adoptSubMenu((PeacockMenu) child);
       removeViewInLayout(child);
     }
   }
 
+  private void adoptSubMenu(PeacockMenu button) {
+    button.setPeacockParent(this);
+    button.width = button.getSelfWidth();
+    button.height = button.getSelfHeight();
+    subMenus.add(button);
+  }
+
+  /**
+   * Adds a sub menu that is only created when this menu first opens. The levels it describes
+   * below it are created when they open in turn.
+   */
+  public void addSubMenu(SubMenuDescriptor descriptor) {
+    if (pendingSubMenus == null) {
+      pendingSubMenus = new ArrayList<>();
+    }
+    pendingSubMenus.add(descriptor);
+  }
+
+  /**
+   * @return whether this menu has sub menus, created or not
+   */
+  public boolean hasSubMenus() {
+    return !subMenus.isEmpty() || pendingSubMenus != null || subMenuLayout != 0;
+  }
+
+  /**
+   * Creates the sub menus that are still described by the subMenuLayout attribute or by
+   * {@link #addSubMenu(SubMenuDescriptor)}. Only this level is created.
+   */
+  void materializeSubMenus() {
+    if (subMenuLayout != 0) {
+      final List<SubMenuDescriptor> described =
+          SubMenuDescriptor.parse(getContext(), subMenuLayout);
+      subMenuLayout = 0;
+      for (int i = 0; i < described.size(); i++) {
+        addSubMenu(described.get(i));
+      }
+    }
+    if (pendingSubMenus == null) {
+      return;
+    }
+    for (int i = 0; i < pendingSubMenus.size(); i++) {
+      adoptSubMenu(pendingSubMenus.get(i).materialize(getContext()));
+    }
+    pendingSubMenus = null;
+  }
+
+  /**
+   * Sets the arc the sub menus are laid out on.
+   */
+  void setArc(float startAngle, float endAngle, int radius) {
+    this.startAngle = startAngle;
+    this.endAngle = endAngle;
+    this.radius = radius;
+  }
+
   public int getSelfWidth() {
     int width = 0;
     if (menuIco != null) {
@@ -123,22 +228,43 @@ public class PeacockMenu extends FrameLayout {
     return height;
   }
 
-  private void addViewToCurrentContainer(View view, ViewGroup.LayoutParams layoutParams) {
-    try {
-      if (layoutParams != null) {
-        LayoutParams lp = (LayoutParams) layoutParams;
-        ((ViewGroup) getActivityContentView()).addView(view, lp);
-      } else {
-        ((ViewGroup) getActivityContentView()).addView(view);
-      }
-    } catch (ClassCastException e) {
-      throw new ClassCastException(
-          "layoutParams must be an instance of " + "FrameLayout.LayoutParams.");
+  /**
+   * @return the layer hosting the sub menus of this Activity, attached on first use
+   */
+  public MenuHostLayer getHostLayer() {
+    if (hostLayer == null) {
+      hostLayer = MenuHostLayer.obtain((ViewGroup) getActivityContentView());
     }
+    return hostLayer;
+  }
+
+  /**
+   * Shows the sub menu at the given position of the host layer.
+   * The sub menu is attached to the host layer the first time, later calls do not change the
+   * layout.
+   */
+  public void showViewInCurrentContainer(PeacockMenu subMenu, int x, int y) {
+    if (getHostLayer().attach(subMenu, subMenu.width, subMenu.height)
+        && transitionMonitor != null) {
+      transitionMonitor.onViewAttached();
+    }
+    subMenu.setTranslationX(x);
+    subMenu.setTranslationY(y);
+    subMenu.setVisibility(VISIBLE);
+  }
+
+  /**
+   * Hides the sub menu. It stays attached to the host layer, ready for the next opening.
+   */
+  public void hideViewInCurrentContainer(View view) {
+    view.setVisibility(INVISIBLE);
   }
 
   public void removeViewFromCurrentContainer(View view) {
-    ((ViewGroup) getActivityContentView()).removeView(view);
+    if (view.getParent() == getHostLayer() && transitionMonitor != null) {
+      transitionMonitor.onViewDetached();
+    }
+    getHostLayer().removeView(view);
   }
 
   /**
@@ -146,49 +272,27 @@ public class PeacockMenu extends FrameLayout {
    *
    * @return getActionViewCenter()
    */
-  private Point calculateItemPositions() {
-    // Create an arc that starts from startAngle and ends at endAngle
-    // in an area that is as large as 4*radius^2
-    final Point center = getActionViewCenter();
-    RectF area =
-        new RectF(center.x - radius, center.y - radius, center.x + radius, center.y + radius);
-
-    if (startAngle == endAngle) {
-      endAngle += 360.0f;
-    }
-    Path orbit = new Path();
-    orbit.addArc(area, startAngle, endAngle - startAngle);
-
-    PathMeasure measure = new PathMeasure(orbit, false);
-
-    // Prevent overlapping when it is a full circle
-    int divisor;
-    if (Math.abs(endAngle - startAngle) >= 360 || subMenus.size() <= 1) {
-      divisor = subMenus.size();
-    } else {
-      divisor = subMenus.size() - 1;
-    }
-
-    // Measure this path, in order to find points that have the same distance between each other
-    for (int i = 0; i < subMenus.size(); i++) {
-      float[] coords = new float[] { 0f, 0f };
-      measure.getPosTan((i) * measure.getLength() / divisor, coords, null);
-      // get the coordX and coordY values of these points and set them to each of sub action items.
-      subMenus.get(i).coordX = (int) coords[0] - subMenus.get(i).width / 2;
-      subMenus.get(i).coordY = (int) coords[1] - subMenus.get(i).height / 2;
-    }
+  Point calculateItemPositions() {
+    getActionViewCenter(center);
+    calculateItemPositions(center.x, center.y);
     return center;
   }
 
   /**
-   * Retrieves the screen size from the Activity context
-   *
-   * @return the screen size as a Point object
+   * Calculates the desired positions of all items around the given center.
    */
-  private Point getScreenSize() {
-    Point size = new Point();
-    getWindowManager().getDefaultDisplay().getSize(size);
-    return size;
+  void calculateItemPositions(int centerX, int centerY) {
+    // A start angle equal to the end angle describes a full circle
+    final float arcEndAngle = startAngle == endAngle ? endAngle + 360.0f : endAngle;
+    // Only recomputed when the angles, the radius or the number of items change
+    arcGeometry.update(startAngle, arcEndAngle, radius, subMenus.size());
+
+    for (int i = 0; i < subMenus.size(); i++) {
+      final PeacockMenu subMenu = subMenus.get(i);
+      // get the coordX and coordY values of these points and set them to each of sub action items.
+      subMenu.coordX = (int) (centerX + arcGeometry.getOffsetX(i)) - subMenu.width / 2;
+      subMenu.coordY = (int) (centerY + arcGeometry.getOffsetY(i)) - subMenu.height / 2;
+    }
   }
 
   /**
@@ -196,21 +300,22 @@ public class PeacockMenu extends FrameLayout {
    * This method should only be called after the main layout of the Activity is drawn,
    * such as when a user clicks the action button.
    *
-   * @return a Point containing coordX and coordY coordinates of the top left corner of action view
+   * @param out receives the coordX and coordY coordinates of the top left corner of action view
    */
-  private Point getActionViewCoordinates() {
-    int[] coords = new int[2];
+  private void getActionViewCoordinates(Point out) {
+    int[] coords = locationBuffer;
     // This method returns a coordX and coordY values that can be larger than the dimensions of the device screen.
     getLocationOnScreen(coords);
 
     // So, we need to deduce the offsets.
-    Rect activityFrame = new Rect();
+    Rect activityFrame = frameBuffer;
     getActivityContentView().getWindowVisibleDisplayFrame(activityFrame);
-    coords[0] -= (getScreenSize().x - getActivityContentView().getMeasuredWidth());
+    getWindowManager().getDefaultDisplay().getSize(screenSizeBuffer);
+    coords[0] -= (screenSizeBuffer.x - getActivityContentView().getMeasuredWidth());
     coords[1] -=
         (activityFrame.height() + activityFrame.top - getActivityContentView().getMeasuredHeight());
 
-    return new Point(coords[0], coords[1]);
+    out.set(coords[0], coords[1]);
   }
 
   /**
@@ -219,12 +324,40 @@ public class PeacockMenu extends FrameLayout {
    * @return the action view center point
    */
   public Point getActionViewCenter() {
-    Point point = getActionViewCoordinates();
-    point.x += getMeasuredWidth() / 2;
-    point.y += getMeasuredHeight() / 2;
+    Point point = new Point();
+    getActionViewCenter(point);
     return point;
   }
 
+  /**
+   * Gets the center point of the main action view without allocating.
+   * It is only queried again after the window is laid out or scrolled, or when this menu has been
+   * translated.
+   *
+   * @param out receives the action view center point
+   */
+  public void getActionViewCenter(Point out) {
+    if (!actionViewCenterValid
+        || actionViewCenterTranslationX != getTranslationX()
+        || actionViewCenterTranslationY != getTranslationY()) {
+      getActionViewCoordinates(actionViewCenter);
+      actionViewCenter.x += getMeasuredWidth() / 2;
+      actionViewCenter.y += getMeasuredHeight() / 2;
+      actionViewCenterTranslationX = getTranslationX();
+      actionViewCenterTranslationY = getTranslationY();
+      actionViewCenterValid = true;
+    }
+    out.set(actionViewCenter.x, actionViewCenter.y);
+  }
+
+  /**
+   * Makes the next center query measure this menu again.
+   * Layouts and scrolls already invalidate it, call it when the menu moves in any other way.
+   */
+  public void invalidateActionViewCenter() {
+    actionViewCenterValid = false;
+  }
+
   public PeacockMenu getPeacockParent() {
     return peacockParent;
   }
@@ -247,9 +380,6 @@ public class PeacockMenu extends FrameLayout {
   public class ActionViewClickListener implements OnClickListener {
 
     @Override public void onClick(View v) {
-      if (status == Status.PLAYING) {
-        return;
-      }
       toggle();
     }
   }
@@ -266,25 +396,24 @@ public class PeacockMenu extends FrameLayout {
       case CLOSE:
         openMenu();
         break;
+      case PLAYING:
+        // Reverse the running transition
+        if (opening) {
+          closeMenu();
+        } else {
+          openMenu();
+        }
+        break;
     }
   }
 
-  public void openAll(final PeacockMenu menu) {
-    menu.openMenu();
-    menu.getAnimationHandler()
-        .setAnimationEndListener(new MenuAnimationHandler.AnimationEndListener() {
-          @Override public void onAnimationEnd() {
-            for (final PeacockMenu subMenu : menu.getSubMenus()) {
-              if (subMenu.getSubMenus().size() > 0) {
-                post(new Runnable() {
-                  @Override public void run() {
-                    openAll(subMenu);
-                  }
-                });
-              }
-            }
-          }
-        });
+  /**
+   * Opens the given menu and all the menus below it in a single timeline.
+   *
+   * @see #openTree()
+   */
+  public void openAll(PeacockMenu menu) {
+    menu.openTree();
   }
 
   public void closeAll(PeacockMenu menu) {
@@ -296,22 +425,75 @@ public class PeacockMenu extends FrameLayout {
     menu.closeMenu();
   }
 
-  @Deprecated public void closeAllWithAnimate(final PeacockMenu menu) {
-    menu.closeMenu();
-    menu.getAnimationHandler()
-        .setAnimationEndListener(new MenuAnimationHandler.AnimationEndListener() {
-          @Override public void onAnimationEnd() {
-            for (final PeacockMenu subMenu : menu.getSubMenus()) {
-              if (subMenu.getSubMenus().size() > 0) {
-                post(new Runnable() {
-                  @Override public void run() {
-                    closeAllWithAnimate(subMenu);
-                  }
-                });
-              }
-            }
-          }
-        });
+  /**
+   * @deprecated use {@link #closeTree()}, which closes all levels in a single timeline
+   */
+  @Deprecated public void closeAllWithAnimate(PeacockMenu menu) {
+    menu.closeTree();
+  }
+
+  /**
+   * Opens this menu and every sub menu that has sub menus of its own, down to the leaves.
+   * The positions of all levels are computed up front and a single staggered timeline plays
+   * them, so the whole tree is open in about the duration of one transition.
+   * Does nothing while a menu of the tree is playing a transition of its own.
+   */
+  public void openTree() {
+    if (!hasSubMenus() || runningTreeTransition != null) {
+      return;
+    }
+    if (treeTransition == null) {
+      treeTransition = new TreeTransition(this);
+    }
+    opening = true;
+    if (transitionMonitor != null) {
+      transitionMonitor.begin(true);
+    }
+    if (!treeTransition.open()) {
+      if (transitionMonitor != null) {
+        transitionMonitor.cancel();
+      }
+      return;
+    }
+    if (getPeacockParent() != null) {
+      getPeacockParent().closeOther(this);
+    }
+    if (stateChangeListener != null) {
+      stateChangeListener.onMenuOpened(this);
+    }
+  }
+
+  /**
+   * Closes every shown sub menu below this menu in a single timeline, the deepest level first.
+   * Does nothing while a menu of the tree is playing a transition of its own.
+   */
+  public void closeTree() {
+    if (subMenus.isEmpty() || runningTreeTransition != null) {
+      return;
+    }
+    if (treeTransition == null) {
+      treeTransition = new TreeTransition(this);
+    }
+    opening = false;
+    if (transitionMonitor != null) {
+      transitionMonitor.begin(false);
+    }
+    if (!treeTransition.close()) {
+      if (transitionMonitor != null) {
+        transitionMonitor.cancel();
+      }
+      return;
+    }
+    if (stateChangeListener != null) {
+      stateChangeListener.onMenuClosed(this);
+    }
+  }
+
+  /**
+   * Marks this menu as taking part in a tree transition, which its own transitions would fight.
+   */
+  void setTreeTransition(TreeTransition transition) {
+    runningTreeTransition = transition;
   }
 
   /**
@@ -319,32 +501,36 @@ public class PeacockMenu extends FrameLayout {
    * this action is executed by the current {@link MenuAnimationHandler}
    */
   public void openMenu() {
+    if (runningTreeTransition != null) {
+      // The sub menus are driven by the timeline of the tree
+      return;
+    }
+    materializeSubMenus();
     if (subMenus.size() > 0) {
       // Get the center of the action view from the following function for efficiency
       // populate destination coordX,coordY coordinates of Items
       Point center = calculateItemPositions();
       if (animationHandler != null) {
         // If animations are enabled and we have a MenuAnimationHandler, let it do the heavy work
-        if (status == Status.PLAYING) {
+        if (status == Status.PLAYING && !animationHandler.isInterruptible()) {
           // Do not proceed if there is an animation currently going on.
           return;
         }
+        opening = true;
+        if (transitionMonitor != null) {
+          transitionMonitor.begin(true);
+        }
 
         for (int i = 0; i < subMenus.size(); i++) {
-          // It is required that these Item views are not currently added to any parent
-          // Because they are supposed to be added to the Activity content view,
-          // just before the animation starts
-          if (subMenus.get(i).getParent() != null) {
+          final PeacockMenu subMenu = subMenus.get(i);
+          // Items that are already shown keep animating from where they are
+          if (subMenu.getParent() != null && subMenu.getVisibility() == VISIBLE) {
             continue;
           }
           // Initially, place all items right at the center of the main action view
           // Because they are supposed to start animating from that point.
-          final LayoutParams params =
-              new LayoutParams(subMenus.get(i).width, subMenus.get(i).height,
-                  Gravity.LEFT | Gravity.TOP);
-          params.setMargins(center.x - subMenus.get(i).width / 2,
-              center.y - subMenus.get(i).height / 2, 0, 0);
-          addViewToCurrentContainer(subMenus.get(i), params);
+          showViewInCurrentContainer(subMenu, center.x - subMenu.width / 2,
+              center.y - subMenu.height / 2);
         }
         // Tell the current MenuAnimationHandler to animate from the center
         animationHandler.menuOpening(center);
@@ -366,10 +552,13 @@ public class PeacockMenu extends FrameLayout {
    * this action is executed by the current {@link MenuAnimationHandler}
    */
   public void closeMenu() {
+    if (runningTreeTransition != null) {
+      return;
+    }
     if (subMenus.size() > 0) {
       // MenuAnimationHandler do the heavy work
       if (animationHandler != null) {
-        if (status == Status.PLAYING) {
+        if (status == Status.PLAYING && !animationHandler.isInterruptible()) {
           animationHandler.setAnimationEndListener(new MenuAnimationHandler.AnimationEndListener() {
             @Override public void onAnimationEnd() {
               closeAll(PeacockMenu.this);
@@ -377,7 +566,13 @@ public class PeacockMenu extends FrameLayout {
           });
           return;
         }
-        animationHandler.menuClosing(getActionViewCenter());
+        // An interruptible handler reverses a running opening from where it is
+        opening = false;
+        if (transitionMonitor != null) {
+          transitionMonitor.begin(false);
+        }
+        getActionViewCenter(center);
+        animationHandler.menuClosing(center);
       }
     } else {
       setStatus(Status.CLOSE);
@@ -393,13 +588,17 @@ public class PeacockMenu extends FrameLayout {
    * this action is executed by the current {@link MenuAnimationHandler}
    */
   public void closeOther(PeacockMenu menu) {
+    if (runningTreeTransition != null) {
+      return;
+    }
     if (subMenus.size() > 0) {
       // MenuAnimationHandler do the heavy work
       if (animationHandler != null) {
         if (status == Status.PLAYING) {
           return;
         }
-        animationHandler.otherMenuClosing(getActionViewCenter(), menu);
+        getActionViewCenter(center);
+        animationHandler.otherMenuClosing(center, menu);
       }
     }
   }
@@ -424,6 +623,18 @@ public class PeacockMenu extends FrameLayout {
     this.menuIco = menuIco;
   }
 
+  /**
+   * Only the background and the icon can overlap each other, so fading a menu that lacks one of
+   * them does not need an offscreen buffer.
+   */
+  @Override public boolean hasOverlappingRendering() {
+    return getBackground() != null && menu != null && menu.getDrawable() != null;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
   public void setStatus(Status status) {
     this.status = status;
   }
@@ -452,6 +663,48 @@ public class PeacockMenu extends FrameLayout {
     this.stateChangeListener = listener;
   }
 
+  /**
+   * Sets a listener that receives the measurements of every transition of this menu, such as the
+   * latency of its first frame and the frames that were late. Frames are observed through
+   * Choreographer, so nothing is reported before Jelly Bean.
+   *
+   * @param listener the listener, or null to stop measuring
+   */
+  public void setMetricsListener(MenuMetricsListener listener) {
+    this.metricsListener = listener;
+    if (listener == null) {
+      if (transitionMonitor != null) {
+        transitionMonitor.cancel();
+        transitionMonitor = null;
+      }
+    } else if (transitionMonitor == null
+        && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+      transitionMonitor = new TransitionMonitor(new TransitionMonitor.Callback() {
+        @Override public boolean isTransitionRunning() {
+          return status == Status.PLAYING;
+        }
+
+        @Override public void onTransitionMeasured(TransitionMetrics metrics) {
+          if (metricsListener != null) {
+            metricsListener.onTransitionMeasured(PeacockMenu.this, metrics);
+          }
+        }
+      }, getWindowManager().getDefaultDisplay().getRefreshRate());
+    }
+  }
+
+  private class AnchorObserver
+      implements ViewTreeObserver.OnGlobalLayoutListener, ViewTreeObserver.OnScrollChangedListener {
+
+    @Override public void onGlobalLayout() {
+      actionViewCenterValid = false;
+    }
+
+    @Override public void onScrollChanged() {
+      actionViewCenterValid = false;
+    }
+  }
+
   /**
    * A listener to listen open/closed state changes of the Menu
    */
@@ -461,6 +714,13 @@ public class PeacockMenu extends FrameLayout {
     public void onMenuClosed(PeacockMenu menu);
   }
 
+  /**
+   * A listener to receive the measurements of each transition of the Menu, once it is over
+   */
+  public static interface MenuMetricsListener {
+    public void onTransitionMeasured(PeacockMenu menu, TransitionMetrics metrics);
+  }
+
   public enum Status {
     OPEN,
     CLOSE,
@@ -0,0 +1,163 @@
+package com.xfdsj.peacock;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.content.res.XmlResourceParser;
+import android.util.AttributeSet;
+import android.util.Xml;
+import android.view.InflateException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * A lightweight description of a sub menu of a {@link PeacockMenu} and of the levels below it.
+ * Its parent turns it into a {@link PeacockMenu} the first time it opens, and only the level that
+ * opens: the sub menus of the new menu stay descriptors until it opens in turn.
+ * Descriptors are declared in code or read from the layout given to the {@code subMenuLayout}
+ * attribute, whose {@code PeacockMenu} elements are parsed without inflating any view.
+ */
+public class SubMenuDescriptor {
+
+  /** Sorted, as obtainStyledAttributes() requires */
+  private static final int[] VIEW_ATTRS = { android.R.attr.id, android.R.attr.background };
+
+  private int id;
+
+  private int backgroundRes;
+
+  private final int menuIcoRes;
+
+  private float startAngle = PeacockMenu.DEFAULT_START_ANGLE;
+
+  private float endAngle = PeacockMenu.DEFAULT_END_ANGLE;
+
+  private int radius = PeacockMenu.DEFAULT_RADIUS;
+
+  private final List<SubMenuDescriptor> subMenus = new ArrayList<>();
+
+  /**
+   * @param menuIcoRes the drawable resource of the icon of the sub menu
+   */
+  public SubMenuDescriptor(int menuIcoRes) {
+    this.menuIcoRes = menuIcoRes;
+  }
+
+  public SubMenuDescriptor setId(int id) {
+    this.id = id;
+    return this;
+  }
+
+  /**
+   * @param backgroundRes the drawable resource of the background, 0 for the default one
+   */
+  public SubMenuDescriptor setBackgroundResource(int backgroundRes) {
+    this.backgroundRes = backgroundRes;
+    return this;
+  }
+
+  /**
+   * Sets the arc the sub menus of this sub menu are laid out on.
+   */
+  public SubMenuDescriptor setArc(float startAngle, float endAngle, int radius) {
+    this.startAngle = startAngle;
+    this.endAngle = endAngle;
+    this.radius = radius;
+    return this;
+  }
+
+  public SubMenuDescriptor addSubMenu(SubMenuDescriptor subMenu) {
+    subMenus.add(subMenu);
+    return this;
+  }
+
+  public List<SubMenuDescriptor> getSubMenus() {
+    return subMenus;
+  }
+
+  /**
+   * Creates the sub menu, with its own sub menus still as descriptors.
+   */
+  PeacockMenu materialize(Context context) {
+    PeacockMenu menu = new PeacockMenu(context, null);
+    if (id != 0) {
+      menu.setId(id);
+    }
+    if (backgroundRes != 0) {
+      menu.setBackgroundResource(backgroundRes);
+    }
+    menu.setArc(startAngle, endAngle, radius);
+    if (menuIcoRes != 0) {
+      menu.setMenuIco(IconCache.load(context, menuIcoRes));
+    }
+    for (int i = 0; i < subMenus.size(); i++) {
+      menu.addSubMenu(subMenus.get(i));
+    }
+    return menu;
+  }
+
+  /**
+   * Reads the {@code PeacockMenu} elements of a layout as descriptors, nested elements becoming
+   * their sub menus. Only the attributes of {@code PeacockMenu} and {@code android:id} and
+   * {@code android:background} are read, and no view is created.
+   *
+   * @param layoutRes a layout whose root, usually a {@code merge} element, holds the sub menus
+   */
+  public static List<SubMenuDescriptor> parse(Context context, int layoutRes) {
+    final List<SubMenuDescriptor> roots = new ArrayList<>();
+    final XmlResourceParser parser = context.getResources().getLayout(layoutRes);
+    try {
+      final AttributeSet attrs = Xml.asAttributeSet(parser);
+      // The descriptors of the elements currently open, null for the root of the layout
+      final List<SubMenuDescriptor> open = new ArrayList<>();
+      int type;
+      while ((type = parser.next()) != XmlPullParser.END_DOCUMENT) {
+        if (type == XmlPullParser.START_TAG) {
+          if (open.isEmpty()) {
+            // The root of the layout
+            open.add(null);
+            continue;
+          }
+          if (!parser.getName().endsWith(PeacockMenu.class.getSimpleName())) {
+            throw new InflateException(parser.getPositionDescription()
+                + ": only PeacockMenu elements can describe sub menus, found "
+                + parser.getName());
+          }
+          final SubMenuDescriptor descriptor = read(context, attrs);
+          final SubMenuDescriptor parent = open.get(open.size() - 1);
+          if (parent == null) {
+            roots.add(descriptor);
+          } else {
+            parent.addSubMenu(descriptor);
+          }
+          open.add(descriptor);
+        } else if (type == XmlPullParser.END_TAG) {
+          open.remove(open.size() - 1);
+        }
+      }
+    } catch (XmlPullParserException | IOException e) {
+      throw new InflateException("Cannot read the sub menus of " + parser.getPositionDescription(),
+          e);
+    } finally {
+      parser.close();
+    }
+    return roots;
+  }
+
+  private static SubMenuDescriptor read(Context context, AttributeSet attrs) {
+    TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.Peacock);
+    final SubMenuDescriptor descriptor =
+        new SubMenuDescriptor(a.getResourceId(R.styleable.Peacock_menuIco, 0));
+    descriptor.setArc(a.getFloat(R.styleable.Peacock_startAngle, PeacockMenu.DEFAULT_START_ANGLE),
+        a.getFloat(R.styleable.Peacock_endAngle, PeacockMenu.DEFAULT_END_ANGLE),
+        a.getDimensionPixelSize(R.styleable.Peacock_radius, PeacockMenu.DEFAULT_RADIUS));
+    a.recycle();
+    a = context.obtainStyledAttributes(attrs, VIEW_ATTRS);
+    descriptor.setId(a.getResourceId(0, 0));
+    descriptor.setBackgroundResource(a.getResourceId(1, 0));
+    a.recycle();
+    return descriptor;
+  }
+}
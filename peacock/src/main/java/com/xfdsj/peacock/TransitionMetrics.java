@@ -0,0 +1,59 @@
+package com.xfdsj.peacock;
+
+/**
+ * The measurements of a single menu transition, reported once the transition is over.
+ */
+public class TransitionMetrics {
+
+  /** Whether the transition opened the menu, false if it closed it */
+  public final boolean opening;
+
+  /** Whether another transition took over before this one was over */
+  public final boolean interrupted;
+
+  /**
+   * Time from the request, usually a click, to the start of the first frame of the transition,
+   * -1 if it was interrupted before its first frame
+   */
+  public final long firstFrameLatencyNanos;
+
+  /** Time from the request to the start of the frame in which the transition was over */
+  public final long durationNanos;
+
+  /** Frames rendered during the transition */
+  public final int frames;
+
+  /** Frames that started more than one and a half frame interval after the previous one */
+  public final int framesOverBudget;
+
+  /** Views added to the view hierarchy by the transition */
+  public final int viewsAttached;
+
+  /** Views removed from the view hierarchy by the transition */
+  public final int viewsDetached;
+
+  public TransitionMetrics(boolean opening, boolean interrupted, long firstFrameLatencyNanos,
+      long durationNanos, int frames, int framesOverBudget, int viewsAttached,
+      int viewsDetached) {
+    this.opening = opening;
+    this.interrupted = interrupted;
+    this.firstFrameLatencyNanos = firstFrameLatencyNanos;
+    this.durationNanos = durationNanos;
+    this.frames = frames;
+    this.framesOverBudget = framesOverBudget;
+    this.viewsAttached = viewsAttached;
+    this.viewsDetached = viewsDetached;
+  }
+
+  @Override public String toString() {
+    return "TransitionMetrics{opening=" + opening
+        + ", interrupted=" + interrupted
+        + ", firstFrameLatencyNanos=" + firstFrameLatencyNanos
+        + ", durationNanos=" + durationNanos
+        + ", frames=" + frames
+        + ", framesOverBudget=" + framesOverBudget
+        + ", viewsAttached=" + viewsAttached
+        + ", viewsDetached=" + viewsDetached
+        + '}';
+  }
+}
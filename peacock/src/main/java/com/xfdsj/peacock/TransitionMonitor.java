@@ -0,0 +1,131 @@
+package com.xfdsj.peacock;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * Follows a menu transition frame by frame through {@link Choreographer} and builds its
+ * {@link TransitionMetrics} once the transition is over.
+ * Choreographer is only available since Jelly Bean, the monitor must not be created before.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN) final class TransitionMonitor
+    implements Choreographer.FrameCallback {
+
+  /** A frame is over budget when it starts this many frame intervals after the previous one */
+  private static final float OVER_BUDGET_INTERVALS = 1.5f;
+
+  interface Callback {
+    boolean isTransitionRunning();
+
+    void onTransitionMeasured(TransitionMetrics metrics);
+  }
+
+  private final Callback callback;
+
+  private final long overBudgetNanos;
+
+  /** Whether a transition is being measured */
+  private boolean active;
+
+  /** Whether a frame callback is posted */
+  private boolean posted;
+
+  private boolean opening;
+
+  private long startNanos;
+
+  private long firstFrameNanos;
+
+  private long lastFrameNanos;
+
+  private int frames;
+
+  private int framesOverBudget;
+
+  private int viewsAttached;
+
+  private int viewsDetached;
+
+  /**
+   * @param refreshRate the refresh rate of the display, in frames per second
+   */
+  TransitionMonitor(Callback callback, float refreshRate) {
+    this.callback = callback;
+    overBudgetNanos = (long) (OVER_BUDGET_INTERVALS * 1000000000L / refreshRate);
+  }
+
+  /**
+   * Starts measuring a transition. A transition still being measured is reported as interrupted.
+   */
+  void begin(boolean opening) {
+    if (active) {
+      report(true, System.nanoTime());
+    }
+    active = true;
+    this.opening = opening;
+    startNanos = System.nanoTime();
+    frames = 0;
+    framesOverBudget = 0;
+    viewsAttached = 0;
+    viewsDetached = 0;
+    if (!posted) {
+      posted = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+
+  /**
+   * Stops measuring without reporting.
+   */
+  void cancel() {
+    active = false;
+    if (posted) {
+      posted = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+  }
+
+  void onViewAttached() {
+    if (active) {
+      viewsAttached++;
+    }
+  }
+
+  void onViewDetached() {
+    if (active) {
+      viewsDetached++;
+    }
+  }
+
+  @Override public void doFrame(long frameTimeNanos) {
+    posted = false;
+    if (!active) {
+      return;
+    }
+    if (frames == 0) {
+      firstFrameNanos = frameTimeNanos;
+    } else if (frameTimeNanos - lastFrameNanos > overBudgetNanos) {
+      framesOverBudget++;
+    }
+    frames++;
+    lastFrameNanos = frameTimeNanos;
+
+    if (callback.isTransitionRunning()) {
+      posted = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    } else {
+      active = false;
+      report(false, frameTimeNanos);
+    }
+  }
+
+  private void report(boolean interrupted, long endNanos) {
+    // The frame time is the vsync time, which can precede a request handled in the same frame
+    final long firstFrameLatency = frames == 0 ? -1 : Math.max(0, firstFrameNanos - startNanos);
+    final long duration = Math.max(0, endNanos - startNanos);
+    callback.onTransitionMeasured(
+        new TransitionMetrics(opening, interrupted, firstFrameLatency, duration, frames,
+            framesOverBudget, viewsAttached, viewsDetached));
+  }
+}
@@ -0,0 +1,313 @@
+package com.xfdsj.peacock;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.graphics.Point;
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.view.animation.OvershootInterpolator;
+import com.xfdsj.peacock.animation.MenuAnimationHandler;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens or closes a whole tree of nested {@link PeacockMenu}s in a single timeline.
+ * The positions of every level are computed before the first frame, from the final center of
+ * each sub menu, so no level has to wait for its parent to land. Levels start one after the other
+ * with a short stagger, each sub menu moving relative to the current center of its parent, and one
+ * animator drives them all. A depth-3 tree is fully open in about one transition duration.
+ */
+class TreeTransition extends AnimatorListenerAdapter
+    implements ValueAnimator.AnimatorUpdateListener {
+
+  /** Duration of the transition of a single level, in milliseconds */
+  static final int DURATION = 300;
+
+  /** Delay between the start of two consecutive levels, in milliseconds */
+  static final int STAGGER = 60;
+
+  // Offsets of each animated property inside the per item blocks of from/to values
+  private static final int OFFSET_X = 0;
+  private static final int OFFSET_Y = 1;
+  private static final int ROTATION = 2;
+  private static final int SCALE = 3;
+  private static final int ALPHA = 4;
+  private static final int PROPERTY_COUNT = 5;
+
+  private final PeacockMenu root;
+
+  private final Interpolator openingInterpolator = new OvershootInterpolator(0.9f);
+
+  private final Interpolator closingInterpolator = new AccelerateDecelerateInterpolator();
+
+  /** Created on first use */
+  private ValueAnimator animator;
+
+  /** The menus whose sub menus take part in the transition, the root first */
+  private final List<PeacockMenu> menus = new ArrayList<>();
+
+  /** The sub menus that move, parents before their children */
+  private final List<PeacockMenu> items = new ArrayList<>();
+
+  /** Index in items of the parent of each item, -1 for the sub menus of the root */
+  private int[] parents = new int[0];
+
+  /** Depth of each item, 0 for the sub menus of the root */
+  private int[] levels = new int[0];
+
+  /** Offsets to the center of the parent, scale, alpha and rotation of each item */
+  private float[] from = new float[0];
+
+  private float[] to = new float[0];
+
+  /** Layer type of each item before the transition */
+  private int[] layerTypes = new int[0];
+
+  private int depth;
+
+  private boolean opening;
+
+  /** Center of the root, which does not move */
+  private final Point rootCenter = new Point();
+
+  TreeTransition(PeacockMenu root) {
+    this.root = root;
+  }
+
+  boolean isRunning() {
+    return animator != null && animator.isStarted();
+  }
+
+  /**
+   * Opens the root and every sub menu that has sub menus of its own, down to the leaves.
+   *
+   * @return false if a menu of the tree is playing a transition of its own
+   */
+  boolean open() {
+    if (!collect(true)) {
+      return false;
+    }
+    root.getActionViewCenter(rootCenter);
+    for (int i = 0; i < items.size(); i++) {
+      final PeacockMenu item = items.get(i);
+      final PeacockMenu parent = item.getPeacockParent();
+      final int offset = i * PROPERTY_COUNT;
+      // The final center of the parent is known before it moves
+      final int parentX = parents[i] < 0 ? rootCenter.x : parent.coordX + parent.width / 2;
+      final int parentY = parents[i] < 0 ? rootCenter.y : parent.coordY + parent.height / 2;
+      final boolean shown = item.getVisibility() == View.VISIBLE && item.getParent() != null;
+      if (shown) {
+        // Already shown, it carries on from where it is
+        readState(i);
+      } else {
+        root.showViewInCurrentContainer(item, parentX - item.width / 2,
+            parentY - item.height / 2);
+        from[offset + OFFSET_X] = 0;
+        from[offset + OFFSET_Y] = 0;
+        from[offset + ROTATION] = 0;
+        from[offset + SCALE] = 0;
+        from[offset + ALPHA] = 0;
+      }
+      to[offset + OFFSET_X] = item.coordX + item.width / 2 - parentX;
+      to[offset + OFFSET_Y] = item.coordY + item.height / 2 - parentY;
+      to[offset + ROTATION] = shown ? 0 : 720;
+      to[offset + SCALE] = 1;
+      to[offset + ALPHA] = 1;
+    }
+    start(true);
+    return true;
+  }
+
+  /**
+   * Closes every shown sub menu of the tree, the deepest level first.
+   *
+   * @return false if a menu of the tree is playing a transition of its own
+   */
+  boolean close() {
+    if (!collect(false)) {
+      return false;
+    }
+    root.getActionViewCenter(rootCenter);
+    for (int i = 0; i < items.size(); i++) {
+      readState(i);
+      final int offset = i * PROPERTY_COUNT;
+      to[offset + OFFSET_X] = 0;
+      to[offset + OFFSET_Y] = 0;
+      to[offset + ROTATION] = -720;
+      to[offset + SCALE] = 0;
+      to[offset + ALPHA] = 0;
+    }
+    start(false);
+    return true;
+  }
+
+  /**
+   * Walks the tree breadth first, computing the positions of the sub menus of each menu.
+   * When closing, only the sub menus that are shown are collected.
+   *
+   * @return false if a menu of the tree is playing a transition of its own
+   */
+  private boolean collect(boolean forOpening) {
+    if (isRunning()) {
+      return false;
+    }
+    menus.clear();
+    items.clear();
+    menus.add(root);
+    int count = 0;
+    for (int m = 0; m < menus.size(); m++) {
+      final PeacockMenu menu = menus.get(m);
+      if (menu.getStatus() == PeacockMenu.Status.PLAYING) {
+        return false;
+      }
+      final int parent = m == 0 ? -1 : items.indexOf(menu);
+      final List<PeacockMenu> subMenus = menu.getSubMenus();
+      if (forOpening) {
+        // Sub menus that were only described are created as the tree opens
+        menu.materializeSubMenus();
+        if (m == 0) {
+          menu.calculateItemPositions();
+        } else {
+          // This menu has not moved yet, its sub menus are placed around where it will land
+          menu.calculateItemPositions(menu.coordX + menu.width / 2,
+              menu.coordY + menu.height / 2);
+        }
+      }
+      for (int i = 0; i < subMenus.size(); i++) {
+        final PeacockMenu subMenu = subMenus.get(i);
+        if (!forOpening && (subMenu.getParent() == null
+            || subMenu.getVisibility() != View.VISIBLE)) {
+          continue;
+        }
+        ensureCapacity(count + 1);
+        parents[count] = parent;
+        levels[count] = parent < 0 ? 0 : levels[parent] + 1;
+        items.add(subMenu);
+        count++;
+        if (forOpening ? subMenu.hasSubMenus() : subMenu.getSubMenus().size() > 0) {
+          menus.add(subMenu);
+        }
+      }
+    }
+    depth = 0;
+    for (int i = 0; i < count; i++) {
+      depth = Math.max(depth, levels[i] + 1);
+    }
+    return count > 0;
+  }
+
+  private void ensureCapacity(int count) {
+    if (parents.length >= count) {
+      return;
+    }
+    final int capacity = Math.max(count, parents.length * 2);
+    final int[] newParents = new int[capacity];
+    System.arraycopy(parents, 0, newParents, 0, parents.length);
+    parents = newParents;
+    final int[] newLevels = new int[capacity];
+    System.arraycopy(levels, 0, newLevels, 0, levels.length);
+    levels = newLevels;
+    from = new float[capacity * PROPERTY_COUNT];
+    to = new float[capacity * PROPERTY_COUNT];
+    layerTypes = new int[capacity];
+  }
+
+  /**
+   * Reads the current state of the item at index as the start of the transition.
+   */
+  private void readState(int index) {
+    final PeacockMenu item = items.get(index);
+    final int offset = index * PROPERTY_COUNT;
+    from[offset + OFFSET_X] = item.getTranslationX() + item.width / 2 - parentCenterX(index);
+    from[offset + OFFSET_Y] = item.getTranslationY() + item.height / 2 - parentCenterY(index);
+    from[offset + ROTATION] = item.getRotation();
+    from[offset + SCALE] = item.getScaleX();
+    from[offset + ALPHA] = item.getAlpha();
+  }
+
+  /** The current center of the parent of the item at index */
+  private float parentCenterX(int index) {
+    if (parents[index] < 0) {
+      return rootCenter.x;
+    }
+    final PeacockMenu parent = items.get(parents[index]);
+    return parent.getTranslationX() + parent.width / 2;
+  }
+
+  private float parentCenterY(int index) {
+    if (parents[index] < 0) {
+      return rootCenter.y;
+    }
+    final PeacockMenu parent = items.get(parents[index]);
+    return parent.getTranslationY() + parent.height / 2;
+  }
+
+  private void start(boolean opening) {
+    this.opening = opening;
+    if (animator == null) {
+      animator = ValueAnimator.ofFloat(0, 1);
+      animator.addUpdateListener(this);
+      animator.addListener(this);
+    }
+    for (int i = 0; i < menus.size(); i++) {
+      menus.get(i).setTreeTransition(this);
+      menus.get(i).setStatus(PeacockMenu.Status.PLAYING);
+    }
+    for (int i = 0; i < items.size(); i++) {
+      layerTypes[i] = MenuAnimationHandler.promoteToHardwareLayer(items.get(i));
+    }
+    animator.setDuration(DURATION + STAGGER * (depth - 1));
+    animator.start();
+  }
+
+  @Override public void onAnimationUpdate(ValueAnimator animation) {
+    final float time = animation.getAnimatedFraction() * animation.getDuration();
+    final Interpolator interpolator = opening ? openingInterpolator : closingInterpolator;
+    // Parents come before their children, so each item follows where its parent is this frame
+    for (int i = 0; i < items.size(); i++) {
+      final PeacockMenu item = items.get(i);
+      // Openings start from the root, closings from the deepest level
+      final int delay = STAGGER * (opening ? levels[i] : depth - 1 - levels[i]);
+      final float fraction =
+          interpolator.getInterpolation(Math.max(0, Math.min(1, (time - delay) / DURATION)));
+      final int offset = i * PROPERTY_COUNT;
+      item.setTranslationX(parentCenterX(i) + lerp(offset + OFFSET_X, fraction) - item.width / 2);
+      item.setTranslationY(parentCenterY(i) + lerp(offset + OFFSET_Y, fraction) - item.height / 2);
+      item.setRotation(lerp(offset + ROTATION, fraction));
+      final float scale = lerp(offset + SCALE, fraction);
+      item.setScaleX(scale);
+      item.setScaleY(scale);
+      item.setAlpha(lerp(offset + ALPHA, fraction));
+    }
+  }
+
+  @Override public void onAnimationEnd(Animator animation) {
+    // Also called after a cancellation
+    for (int i = 0; i < items.size(); i++) {
+      final PeacockMenu item = items.get(i);
+      item.setRotation(0);
+      item.setScaleX(1);
+      item.setScaleY(1);
+      item.setAlpha(1);
+      if (opening) {
+        item.setTranslationX(item.coordX);
+        item.setTranslationY(item.coordY);
+      } else {
+        item.setTranslationX(parentCenterX(i) - item.width / 2);
+        item.setTranslationY(parentCenterY(i) - item.height / 2);
+        root.hideViewInCurrentContainer(item);
+      }
+      MenuAnimationHandler.restoreLayerType(item, layerTypes[i]);
+    }
+    for (int i = 0; i < menus.size(); i++) {
+      menus.get(i).setTreeTransition(null);
+      menus.get(i).setStatus(opening ? PeacockMenu.Status.OPEN : PeacockMenu.Status.CLOSE);
+    }
+  }
+
+  private float lerp(int index, float fraction) {
+    return from[index] + (to[index] - from[index]) * fraction;
+  }
+}
@@ -1,148 +1,306 @@
 package com.xfdsj.peacock.animation;
 
 import android.animation.Animator;
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
-import android.animation.PropertyValuesHolder;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
 import android.graphics.Point;
-import android.view.View;
 import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
 import android.view.animation.OvershootInterpolator;
 import com.xfdsj.peacock.PeacockMenu;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * An example animation handler
  * Animates translation, rotation, scale and alpha at the same time using Property Animation APIs.
+ * Sub menus are positioned in their host layer through translation only, and are rendered into
+ * hardware layers for the duration of a transition.
+ * A single animator drives all sub menus. It is built once per menu, only its target values are
+ * rewritten for every transition, and it is rebuilt only when the list of sub menus changes.
+ * A transition started while another one is running takes over from the current state of the
+ * items, in a time proportional to the distance left.
  */
 public class DefaultAnimationHandler extends MenuAnimationHandler {
 
   /** duration of animations, in milliseconds */
   protected static final int DURATION = 300;
 
-  /** holds the current state of animation */
-  //private boolean animating;
+  // Offsets of each animated property inside the per item blocks of from/to values
+  private static final int TRANSLATION_X = 0;
+  private static final int TRANSLATION_Y = 1;
+  private static final int ROTATION = 2;
+  private static final int SCALE = 3;
+  private static final int ALPHA = 4;
+  private static final int PROPERTY_COUNT = 5;
+
+  private final Interpolator openingInterpolator = new OvershootInterpolator(0.9f);
+  private final Interpolator closingInterpolator = new AccelerateDecelerateInterpolator();
+
+  private final AnimationsListener openingListener = new AnimationsListener(ActionType.OPENING);
+  private final AnimationsListener closingListener = new AnimationsListener(ActionType.CLOSING);
+
+  /** Animates every sub menu at once, created on first use */
+  private ValueAnimator animator;
+  private final GraphListener graphListener = new GraphListener();
+
+  /** The sub menus the buffers below have been built for */
+  private PeacockMenu[] items = new PeacockMenu[0];
+  /** Whether each item takes part in the current transition */
+  private boolean[] active = new boolean[0];
+  private float[] from = new float[0];
+  private float[] to = new float[0];
+  /** Layer type of each item before the current transition */
+  private int[] layerTypes = new int[0];
+  /** Whether this handler has put each item into a hardware layer */
+  private boolean[] layered = new boolean[0];
+
+  /** The type of the current transition */
+  private ActionType actionType;
+  /** Notified about the current transition, may be null */
+  private Animator.AnimatorListener transitionListener;
+  /** How far the items were between closed (0) and open (1) when the current transition started */
+  private float startPosition;
+  /** Whether the running transition is being replaced by a new one */
+  private boolean interrupting;
+
   public DefaultAnimationHandler(PeacockMenu menu) {
     super(menu);
   }
 
+  @Override public boolean isInterruptible() {
+    return true;
+  }
+
   @Override public void menuOpening(Point center) {
     super.menuOpening(center);
 
-    List<Animator> animators = new ArrayList<>();
-    for (PeacockMenu m : menu.getSubMenus()) {
-      m.setScaleX(0);
-      m.setScaleY(0);
-      m.setAlpha(0);
-
-      PropertyValuesHolder pvhX =
-          PropertyValuesHolder.ofFloat(View.TRANSLATION_X, m.coordX - center.x + m.width / 2);
-      PropertyValuesHolder pvhY =
-          PropertyValuesHolder.ofFloat(View.TRANSLATION_Y, m.coordY - center.y + m.height / 2);
-      PropertyValuesHolder pvhR = PropertyValuesHolder.ofFloat(View.ROTATION, 720);
-      PropertyValuesHolder pvhsX = PropertyValuesHolder.ofFloat(View.SCALE_X, 1);
-      PropertyValuesHolder pvhsY = PropertyValuesHolder.ofFloat(View.SCALE_Y, 1);
-      PropertyValuesHolder pvhA = PropertyValuesHolder.ofFloat(View.ALPHA, 1);
-
-      final ObjectAnimator animation =
-          ObjectAnimator.ofPropertyValuesHolder(m, pvhX, pvhY, pvhR, pvhsX, pvhsY, pvhA);
-      animation.setDuration(DURATION);
-      animation.setInterpolator(new OvershootInterpolator(0.9f));
-      animation.addListener(new SubMenuItemAnimationListener(m, ActionType.OPENING));
-      animators.add(animation);
-    }
-    if (animators.size() > 0) {
-      AnimatorSet animatorSet = new AnimatorSet();
-      animatorSet.playTogether(animators);
-      animatorSet.addListener(new AnimationsListener(ActionType.OPENING));
-      animatorSet.start();
+    final float position = prepareGraph(null);
+    for (int i = 0; i < items.length; i++) {
+      PeacockMenu m = items[i];
+      if (position < 0) {
+        m.setScaleX(0);
+        m.setScaleY(0);
+        m.setAlpha(0);
+      }
+      // A reversed transition rewinds the rotation instead of spinning the other way
+      setTarget(i, m.coordX, m.coordY, position < 0 ? 720 : 0, 1, 1);
     }
+    startGraph(ActionType.OPENING, position < 0 ? 0 : position, openingInterpolator,
+        openingListener);
   }
 
   @Override public void menuClosing(Point center) {
     super.menuClosing(center);
 
-    List<Animator> animators = new ArrayList<>();
-    for (PeacockMenu m : menu.getSubMenus()) {
-      PropertyValuesHolder pvhX =
-          PropertyValuesHolder.ofFloat(View.TRANSLATION_X, -(m.coordX - center.x + m.width / 2));
-      PropertyValuesHolder pvhY =
-          PropertyValuesHolder.ofFloat(View.TRANSLATION_Y, -(m.coordY - center.y + m.height / 2));
-      PropertyValuesHolder pvhR = PropertyValuesHolder.ofFloat(View.ROTATION, -720);
-      PropertyValuesHolder pvhsX = PropertyValuesHolder.ofFloat(View.SCALE_X, 0);
-      PropertyValuesHolder pvhsY = PropertyValuesHolder.ofFloat(View.SCALE_Y, 0);
-      PropertyValuesHolder pvhA = PropertyValuesHolder.ofFloat(View.ALPHA, 0);
-
-      final ObjectAnimator animation =
-          ObjectAnimator.ofPropertyValuesHolder(m, pvhX, pvhY, pvhR, pvhsX, pvhsY, pvhA);
-      animation.setDuration(DURATION);
-      animation.setInterpolator(new AccelerateDecelerateInterpolator());
-      animation.addListener(new SubMenuItemAnimationListener(m, ActionType.CLOSING));
-      animators.add(animation);
-    }
-    if (animators.size() > 0) {
-      AnimatorSet animatorSet = new AnimatorSet();
-      animatorSet.playTogether(animators);
-      animatorSet.addListener(new AnimationsListener(ActionType.CLOSING));
-      animatorSet.start();
+    final float position = prepareGraph(null);
+    for (int i = 0; i < items.length; i++) {
+      PeacockMenu m = items[i];
+      setTarget(i, center.x - m.width / 2, center.y - m.height / 2, position < 0 ? -720 : 0, 0,
+          0);
     }
+    startGraph(ActionType.CLOSING, position < 0 ? 1 : position, closingInterpolator,
+        closingListener);
   }
 
   @Override public void otherMenuClosing(Point center, PeacockMenu currentMenu) {
     super.otherMenuClosing(center, currentMenu);
 
-    List<Animator> animators = new ArrayList<>();
-    for (PeacockMenu m : menu.getSubMenus()) {
-      if (m == currentMenu) {
+    final float position = prepareGraph(currentMenu);
+    for (int i = 0; i < items.length; i++) {
+      if (!active[i]) {
         continue;
       }
-      PropertyValuesHolder pvhX =
-          PropertyValuesHolder.ofFloat(View.TRANSLATION_X, -(m.coordX - center.x + m.width / 2));
-      PropertyValuesHolder pvhY =
-          PropertyValuesHolder.ofFloat(View.TRANSLATION_Y, -(m.coordY - center.y + m.height / 2));
-      PropertyValuesHolder pvhR = PropertyValuesHolder.ofFloat(View.ROTATION, -720);
-      PropertyValuesHolder pvhsX = PropertyValuesHolder.ofFloat(View.SCALE_X, 0);
-      PropertyValuesHolder pvhsY = PropertyValuesHolder.ofFloat(View.SCALE_Y, 0);
-      PropertyValuesHolder pvhA = PropertyValuesHolder.ofFloat(View.ALPHA, 0);
-
-      final ObjectAnimator animation =
-          ObjectAnimator.ofPropertyValuesHolder(m, pvhX, pvhY, pvhR, pvhsX, pvhsY, pvhA);
-      animation.setDuration(DURATION);
-      animation.setInterpolator(new AccelerateDecelerateInterpolator());
-      animation.addListener(new SubMenuItemAnimationListener(m, ActionType.CLOSING));
-      animators.add(animation);
-    }
-    if (animators.size() > 0) {
-      AnimatorSet animatorSet = new AnimatorSet();
-      animatorSet.playTogether(animators);
-      animatorSet.start();
+      PeacockMenu m = items[i];
+      setTarget(i, center.x - m.width / 2, center.y - m.height / 2, position < 0 ? -720 : 0, 0,
+          0);
     }
+    startGraph(ActionType.CLOSING, position < 0 ? 1 : position, closingInterpolator, null);
   }
 
-  protected class SubMenuItemAnimationListener implements Animator.AnimatorListener {
+  /**
+   * Stops the running transition, if any, and makes sure the buffers match the current sub menus,
+   * rebuilding them only if the list of sub menus has changed since the last transition.
+   *
+   * @param excluded a sub menu that does not take part in the transition, may be null
+   * @return how far the items are between closed (0) and open (1) if a running transition has been
+   * interrupted, -1 otherwise
+   */
+  private float prepareGraph(PeacockMenu excluded) {
+    if (animator == null) {
+      animator = ValueAnimator.ofFloat(0, 1);
+      animator.addUpdateListener(graphListener);
+      animator.addListener(graphListener);
+    }
+    float position = interrupt();
 
-    private PeacockMenu subActionItem;
-    private ActionType actionType;
+    final List<PeacockMenu> subMenus = menu.getSubMenus();
+    if (!isBuiltFor(subMenus)) {
+      if (position >= 0) {
+        // The interrupted items are not known anymore, let them finish right away
+        finishActiveItems();
+        position = -1;
+      }
+      final int count = subMenus.size();
+      items = subMenus.toArray(new PeacockMenu[count]);
+      active = new boolean[count];
+      from = new float[count * PROPERTY_COUNT];
+      to = new float[count * PROPERTY_COUNT];
+      layerTypes = new int[count];
+      layered = new boolean[count];
+    }
+    for (int i = 0; i < items.length; i++) {
+      final boolean wasActive = active[i];
+      active[i] = items[i] != excluded;
+      if (position >= 0 && wasActive && !active[i]) {
+        // Not part of the new transition, let it finish the interrupted one right away
+        finishItem(i);
+      }
+    }
+    return position;
+  }
 
-    public SubMenuItemAnimationListener(PeacockMenu subActionItem, ActionType actionType) {
-      this.subActionItem = subActionItem;
-      this.actionType = actionType;
+  /**
+   * Stops the running transition, leaving every item where it is.
+   *
+   * @return how far the items are between closed (0) and open (1), -1 if nothing was running
+   */
+  private float interrupt() {
+    if (!animator.isStarted()) {
+      return -1;
     }
+    final float elapsed =
+        Math.min(1, animator.getCurrentPlayTime() / (float) animator.getDuration());
+    final float position = actionType == ActionType.OPENING
+        ? startPosition + (1 - startPosition) * elapsed
+        : startPosition * (1 - elapsed);
 
-    @Override public void onAnimationStart(Animator animation) {
+    interrupting = true;
+    animator.cancel();
+    interrupting = false;
+    // Whatever was meant to follow the interrupted transition no longer applies
+    setAnimationEndListener(null);
+    return Math.max(0, Math.min(1, position));
+  }
 
+  private boolean isBuiltFor(List<PeacockMenu> subMenus) {
+    if (subMenus.size() != items.length) {
+      return false;
     }
+    for (int i = 0; i < items.length; i++) {
+      if (subMenus.get(i) != items[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-    @Override public void onAnimationEnd(Animator animation) {
-      restoreSubActionViewAfterAnimation(subActionItem, actionType);
+  /**
+   * Animates the item at index from its current state to the given values.
+   */
+  private void setTarget(int index, float translationX, float translationY, float rotation,
+      float scale, float alpha) {
+    final PeacockMenu m = items[index];
+    final int offset = index * PROPERTY_COUNT;
+    from[offset + TRANSLATION_X] = m.getTranslationX();
+    from[offset + TRANSLATION_Y] = m.getTranslationY();
+    from[offset + ROTATION] = m.getRotation();
+    from[offset + SCALE] = m.getScaleX();
+    from[offset + ALPHA] = m.getAlpha();
+    to[offset + TRANSLATION_X] = translationX;
+    to[offset + TRANSLATION_Y] = translationY;
+    to[offset + ROTATION] = rotation;
+    to[offset + SCALE] = scale;
+    to[offset + ALPHA] = alpha;
+  }
+
+  /**
+   * @param startPosition how far the items are between closed (0) and open (1), the duration is
+   * scaled to the distance left to cover
+   */
+  private void startGraph(ActionType actionType, float startPosition, Interpolator interpolator,
+      Animator.AnimatorListener transitionListener) {
+    this.actionType = actionType;
+    this.startPosition = startPosition;
+    this.transitionListener = transitionListener;
+    final float distance = actionType == ActionType.OPENING ? 1 - startPosition : startPosition;
+    animator.setDuration(Math.max(1, (long) (DURATION * distance)));
+    animator.setInterpolator(interpolator);
+    for (int i = 0; i < items.length; i++) {
+      if (active[i] && !layered[i]) {
+        layerTypes[i] = promoteToHardwareLayer(items[i]);
+        layered[i] = true;
+      }
+    }
+    animator.start();
+  }
+
+  private void finishActiveItems() {
+    for (int i = 0; i < items.length; i++) {
+      if (active[i]) {
+        finishItem(i);
+      }
+    }
+  }
+
+  private void finishItem(int index) {
+    restoreSubActionViewAfterAnimation(items[index], actionType);
+    if (layered[index]) {
+      restoreLayerType(items[index], layerTypes[index]);
+      layered[index] = false;
+    }
+  }
+
+  /**
+   * Applies the animated fraction to every active item, and restores them when the transition
+   * is over.
+   */
+  private class GraphListener extends AnimatorListenerAdapter
+      implements ValueAnimator.AnimatorUpdateListener {
+
+    @Override public void onAnimationUpdate(ValueAnimator animation) {
+      final float fraction = animation.getAnimatedFraction();
+      for (int i = 0; i < items.length; i++) {
+        if (!active[i]) {
+          continue;
+        }
+        final PeacockMenu m = items[i];
+        final int offset = i * PROPERTY_COUNT;
+        m.setTranslationX(lerp(offset + TRANSLATION_X, fraction));
+        m.setTranslationY(lerp(offset + TRANSLATION_Y, fraction));
+        m.setRotation(lerp(offset + ROTATION, fraction));
+        final float scale = lerp(offset + SCALE, fraction);
+        m.setScaleX(scale);
+        m.setScaleY(scale);
+        m.setAlpha(lerp(offset + ALPHA, fraction));
+      }
+    }
+
+    @Override public void onAnimationStart(Animator animation) {
+      if (transitionListener != null) {
+        transitionListener.onAnimationStart(animation);
+      }
     }
 
     @Override public void onAnimationCancel(Animator animation) {
-      restoreSubActionViewAfterAnimation(subActionItem, actionType);
+      if (!interrupting && transitionListener != null) {
+        transitionListener.onAnimationCancel(animation);
+      }
+    }
+
+    @Override public void onAnimationEnd(Animator animation) {
+      // Also called after a cancellation
+      if (interrupting) {
+        // The items carry on from where they are in the next transition
+        return;
+      }
+      finishActiveItems();
+      if (transitionListener != null) {
+        transitionListener.onAnimationEnd(animation);
+      }
     }
 
-    @Override public void onAnimationRepeat(Animator animation) {
+    private float lerp(int index, float fraction) {
+      return from[index] + (to[index] - from[index]) * fraction;
     }
   }
 }
@@ -2,8 +2,7 @@ package com.xfdsj.peacock.animation;
 
 import android.animation.Animator;
 import android.graphics.Point;
-import android.view.ViewGroup;
-import android.widget.FrameLayout;
+import android.view.View;
 import com.xfdsj.peacock.PeacockMenu;
 
 /**
@@ -18,12 +17,24 @@ public abstract class MenuAnimationHandler {
 
   protected final PeacockMenu menu;
 
+  /** Receives the center of the menu when sub menus are restored */
+  private final Point restoreCenter = new Point();
+
   private AnimationEndListener animationEndListener;
 
   public MenuAnimationHandler(PeacockMenu menu) {
     this.menu = menu;
   }
 
+  /**
+   * Whether a transition can be started while another one is running.
+   * An interruptible handler takes over from the current state of the sub menus, so the menu can
+   * be reversed at any time. Otherwise the menu ignores openings and closings while it is playing.
+   */
+  public boolean isInterruptible() {
+    return false;
+  }
+
   /**
    * Starts the opening animation
    * Should be overriden by children
@@ -63,23 +74,44 @@ public abstract class MenuAnimationHandler {
    */
   protected void restoreSubActionViewAfterAnimation(PeacockMenu subActionItem,
       ActionType actionType) {
-    ViewGroup.LayoutParams params = subActionItem.getLayoutParams();
-    subActionItem.setTranslationX(0);
-    subActionItem.setTranslationY(0);
     subActionItem.setRotation(0);
     subActionItem.setScaleX(1);
     subActionItem.setScaleY(1);
     subActionItem.setAlpha(1);
     if (actionType == ActionType.OPENING) {
-      FrameLayout.LayoutParams lp = (FrameLayout.LayoutParams) params;
-      lp.setMargins(subActionItem.coordX, subActionItem.coordY, 0, 0);
-      subActionItem.setLayoutParams(lp);
+      subActionItem.setTranslationX(subActionItem.coordX);
+      subActionItem.setTranslationY(subActionItem.coordY);
     } else if (actionType == ActionType.CLOSING) {
-      Point center = menu.getActionViewCenter();
-      FrameLayout.LayoutParams lp = (FrameLayout.LayoutParams) params;
-      lp.setMargins(center.x - subActionItem.width / 2, center.y - subActionItem.height / 2, 0, 0);
-      subActionItem.setLayoutParams(lp);
-      menu.removeViewFromCurrentContainer(subActionItem);
+      // The center is cached by the menu, restoring every sub menu queries it only once
+      menu.getActionViewCenter(restoreCenter);
+      subActionItem.setTranslationX(restoreCenter.x - subActionItem.width / 2);
+      subActionItem.setTranslationY(restoreCenter.y - subActionItem.height / 2);
+      menu.hideViewInCurrentContainer(subActionItem);
+    }
+  }
+
+  /**
+   * Renders the view into a hardware layer while it animates, so that alpha, scale and rotation
+   * changes only recompose the layer instead of redrawing the view on every frame.
+   * Does nothing when the view is not hardware accelerated. Also used by the tree transitions of
+   * nested menus.
+   *
+   * @return the previous layer type, to give back to {@link #restoreLayerType(View, int)}
+   */
+  public static int promoteToHardwareLayer(View view) {
+    final int layerType = view.getLayerType();
+    if (layerType != View.LAYER_TYPE_HARDWARE && view.isHardwareAccelerated()) {
+      view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+    }
+    return layerType;
+  }
+
+  /**
+   * Gives the view back the layer type it had before the animation.
+   */
+  public static void restoreLayerType(View view, int layerType) {
+    if (view.getLayerType() != layerType) {
+      view.setLayerType(layerType, null);
     }
   }
 
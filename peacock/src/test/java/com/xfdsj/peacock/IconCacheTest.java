@@ -0,0 +1,73 @@
+package com.xfdsj.peacock;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.NinePatchDrawable;
+import android.util.DisplayMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Decoding of menu icons by {@link IconCache}, against the resources of the debug build.
+ */
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class IconCacheTest {
+
+  /** The size of the xxhdpi only icon, in its own pixels */
+  private static final int XXHDPI_SIZE = 144;
+
+  private Context context;
+
+  @Before public void setUp() {
+    context = RuntimeEnvironment.application;
+  }
+
+  /** An icon found only at a higher density is decoded at the size it is drawn at */
+  @Test public void higherDensityIconIsDecodedAtTheTargetDensity() {
+    final int targetDensity = context.getResources().getDisplayMetrics().densityDpi;
+    final int expectedSize = Math.round((float) XXHDPI_SIZE * targetDensity
+        / DisplayMetrics.DENSITY_XXHIGH);
+
+    final Drawable icon = IconCache.load(context, R.drawable.peacock_test_xxhdpi_icon);
+    assertTrue(icon instanceof BitmapDrawable);
+    final Bitmap bitmap = ((BitmapDrawable) icon).getBitmap();
+    assertEquals(expectedSize, bitmap.getWidth());
+    assertEquals(expectedSize, bitmap.getHeight());
+    assertEquals(targetDensity, bitmap.getDensity());
+    // Not scaled for the density a second time
+    assertEquals(expectedSize, icon.getIntrinsicWidth());
+  }
+
+  @Test public void iconsOfOneSizeShareTheirBitmap() {
+    final Drawable first = IconCache.load(context, R.drawable.peacock_test_xxhdpi_icon, 40, 40);
+    final Drawable second = IconCache.load(context, R.drawable.peacock_test_xxhdpi_icon, 40, 40);
+    assertNotSame(first, second);
+    assertSame(((BitmapDrawable) first).getBitmap(), ((BitmapDrawable) second).getBitmap());
+    assertEquals(40, ((BitmapDrawable) first).getBitmap().getWidth());
+  }
+
+  /** A nine-patch decoded as a plain bitmap would lose its patches */
+  @Test public void ninePatchIsLoadedByTheFramework() {
+    assertTrue(IconCache.load(context, R.drawable.peacock_test_patch) instanceof NinePatchDrawable);
+    assertTrue(IconCache.load(context, R.drawable.peacock_test_patch, 40, 40)
+        instanceof NinePatchDrawable);
+  }
+
+  @Test public void colorIsLoadedByTheFramework() {
+    assertTrue(IconCache.load(context, R.color.peacock_test_color) instanceof ColorDrawable);
+    assertTrue(IconCache.load(context, R.color.peacock_test_color, 40, 40)
+        instanceof ColorDrawable);
+  }
+}
@@ -0,0 +1,138 @@
+package com.xfdsj.peacock;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Table tests of the hit testing of {@link LayoutGeometry#findChildIndex}. Each row gives an arc,
+ * its child count, the angle of a finger around the center and the child expected under it.
+ */
+public class LayoutGeometryTest {
+
+  private static final float MIN_DISTANCE = 46;
+
+  private static final float MAX_DISTANCE = 150;
+
+  /** A distance from the center well inside the ring */
+  private static final float RING = 100;
+
+  /** The default arc of PeacockLayout, children at 270, 300, 330 and 360 degrees */
+  @Test public void defaultArc() {
+    final float[][] rows = {
+        // startAngle, endAngle, childCount, angle, expected index
+        { 270, 360, 4, 270, 0 },
+        { 270, 360, 4, 300, 1 },
+        { 270, 360, 4, 314, 1 },
+        { 270, 360, 4, 316, 2 },
+        { 270, 360, 4, 0, 3 },
+        // up to half the spacing past either end
+        { 270, 360, 4, 10, 3 },
+        { 270, 360, 4, 20, -1 },
+        { 270, 360, 4, 260, 0 },
+        { 270, 360, 4, 250, -1 },
+        // opposite the arc
+        { 270, 360, 4, 135, -1 },
+    };
+    assertRows(rows);
+  }
+
+  /** An arc that winds the other way, from 360 down to 270 degrees */
+  @Test public void reversedArc() {
+    final float[][] rows = {
+        { 360, 270, 4, 0, 0 },
+        { 360, 270, 4, 330, 1 },
+        { 360, 270, 4, 290, 2 },
+        { 360, 270, 4, 280, 3 },
+        { 360, 270, 4, 270, 3 },
+        { 360, 270, 4, 10, 0 },
+        { 360, 270, 4, 20, -1 },
+        { 360, 270, 4, 250, -1 },
+    };
+    assertRows(rows);
+  }
+
+  /** Arcs whose children lie on both sides of 0 degrees */
+  @Test public void arcCrossingZero() {
+    final float[][] rows = {
+        // children at 330, 0 and 30 degrees
+        { 330, 390, 3, 340, 0 },
+        { 330, 390, 3, 350, 1 },
+        { 330, 390, 3, 0, 1 },
+        { 330, 390, 3, 30, 2 },
+        { 330, 390, 3, 60, -1 },
+        { 330, 390, 3, 300, -1 },
+        // the same arc from a negative start angle
+        { -30, 30, 3, 340, 0 },
+        { -30, 30, 3, 10, 1 },
+        // and winding the other way, children at 30, 0 and 330 degrees
+        { 30, -30, 3, 30, 0 },
+        { 30, -30, 3, 350, 1 },
+        { 30, -30, 3, 330, 2 },
+        { 30, -30, 3, 320, 2 },
+        { 30, -30, 3, 310, -1 },
+    };
+    assertRows(rows);
+  }
+
+  @Test public void fullCircle() {
+    final float[][] rows = {
+        // five children 72 degrees apart, the gap between the last and the first is no wider
+        { 0, 288, 5, 0, 0 },
+        { 0, 288, 5, 72, 1 },
+        { 0, 288, 5, 320, 4 },
+        { 0, 288, 5, 330, 0 },
+        { 0, 288, 5, 144, 2 },
+        // the last child on top of the first, it is drawn last
+        { 0, 360, 5, 10, 0 },
+        { 0, 360, 5, 90, 1 },
+        { 0, 360, 5, 350, 4 },
+        { 0, 360, 5, 260, 3 },
+    };
+    assertRows(rows);
+  }
+
+  /** A single child has no spacing, it takes a fixed tolerance around its angle */
+  @Test public void singleChild() {
+    final float[][] rows = {
+        { 270, 360, 1, 270, 0 },
+        { 270, 360, 1, 310, 0 },
+        { 270, 360, 1, 230, 0 },
+        { 270, 360, 1, 320, -1 },
+        { 270, 360, 1, 90, -1 },
+        // its angle crossing 0 degrees
+        { 350, 350, 1, 30, 0 },
+        { 350, 350, 1, 310, 0 },
+        { 350, 350, 1, 300, -1 },
+    };
+    assertRows(rows);
+  }
+
+  @Test public void ringBounds() {
+    assertEquals(-1, findChildIndex(270, 360, 4, 300, 0));
+    assertEquals(-1, findChildIndex(270, 360, 4, 300, MIN_DISTANCE - 0.5f));
+    assertEquals(1, findChildIndex(270, 360, 4, 300, MIN_DISTANCE + 0.5f));
+    assertEquals(1, findChildIndex(270, 360, 4, 300, MAX_DISTANCE - 0.5f));
+    assertEquals(-1, findChildIndex(270, 360, 4, 300, MAX_DISTANCE + 0.5f));
+  }
+
+  @Test public void noChild() {
+    assertEquals(-1, findChildIndex(270, 360, 0, 300, RING));
+  }
+
+  private static void assertRows(float[][] rows) {
+    for (float[] row : rows) {
+      assertEquals("arc " + row[0] + " to " + row[1] + ", " + (int) row[2] + " children, at "
+              + row[3] + " degrees", (int) row[4],
+          findChildIndex(row[0], row[1], (int) row[2], row[3], RING));
+    }
+  }
+
+  private static int findChildIndex(float startAngle, float endAngle, int childCount, float angle,
+      float distance) {
+    final double radians = Math.toRadians(angle);
+    return LayoutGeometry.findChildIndex((float) (distance * Math.cos(radians)),
+        (float) (distance * Math.sin(radians)), startAngle, endAngle, childCount, MIN_DISTANCE,
+        MAX_DISTANCE);
+  }
+}
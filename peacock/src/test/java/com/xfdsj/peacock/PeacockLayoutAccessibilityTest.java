@@ -0,0 +1,100 @@
+package com.xfdsj.peacock;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityNodeProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The items drawn by a {@link PeacockLayout}, reported to accessibility services as virtual views.
+ */
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class PeacockLayoutAccessibilityTest {
+
+  private static final String SHARE = "Share";
+
+  private PeacockLayout layout;
+
+  private int clickedItem = -1;
+
+  @Before public void setUp() {
+    Activity activity = Robolectric.setupActivity(Activity.class);
+    layout = new PeacockLayout(activity, null);
+    layout.addItemDrawable(createIcon(activity));
+    layout.addItemDrawable(createIcon(activity), SHARE);
+    layout.setOnItemClickListener(new PeacockLayout.OnItemClickListener() {
+      @Override public void onItemClick(PeacockLayout layout, int index) {
+        clickedItem = index;
+      }
+    });
+    layout.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+    layout.layout(0, 0, layout.getMeasuredWidth(), layout.getMeasuredHeight());
+  }
+
+  @Test public void expandedItemsAreDescribedAtTheirFrames() {
+    layout.switchState(false);
+    final AccessibilityNodeProvider provider = layout.getAccessibilityNodeProvider();
+    assertNotNull(provider);
+
+    final AccessibilityNodeInfo unnamed = provider.createAccessibilityNodeInfo(0);
+    assertEquals(layout.getContext().getString(R.string.peacock_item, 1),
+        unnamed.getContentDescription().toString());
+    final AccessibilityNodeInfo share = provider.createAccessibilityNodeInfo(1);
+    assertEquals(SHARE, share.getContentDescription().toString());
+    assertTrue(share.isClickable());
+    final Rect bounds = new Rect();
+    share.getBoundsInParent(bounds);
+    assertFalse(bounds.isEmpty());
+  }
+
+  /** A click from an accessibility service goes to the item listener, as a touch would */
+  @Test public void clickingAnItemNodeClicksTheItem() {
+    layout.switchState(false);
+    assertTrue(layout.getAccessibilityNodeProvider()
+        .performAction(1, AccessibilityNodeInfo.ACTION_CLICK, null));
+    assertEquals(1, clickedItem);
+    assertFalse(layout.isExpanded());
+  }
+
+  /** The drawn menu is the layout itself to a click, so it toggles from a click on the host too */
+  @Test public void clickingTheLayoutTogglesTheMenu() {
+    assertTrue(layout.performClick());
+    assertTrue(layout.isExpanded());
+    assertTrue(layout.performClick());
+    assertFalse(layout.isExpanded());
+  }
+
+  @Test public void tappingTheMenuTogglesIt() {
+    final float x = layout.getWidth() / 2f;
+    final float y = layout.getHeight() / 2f;
+    final long downTime = SystemClock.uptimeMillis();
+    MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, y, 0);
+    MotionEvent up = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_UP, x, y, 0);
+    layout.dispatchTouchEvent(down);
+    layout.dispatchTouchEvent(up);
+    down.recycle();
+    up.recycle();
+    assertTrue(layout.isExpanded());
+  }
+
+  private static BitmapDrawable createIcon(Activity activity) {
+    Bitmap icon = Bitmap.createBitmap(48, 48, Bitmap.Config.ARGB_8888);
+    return new BitmapDrawable(activity.getResources(), icon);
+  }
+}
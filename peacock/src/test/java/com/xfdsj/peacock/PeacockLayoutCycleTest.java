@@ -0,0 +1,80 @@
+package com.xfdsj.peacock;
+
+import android.app.Activity;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import com.xfdsj.testing.CycleProbe;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Performance regression guard for the expansion and shrinkage cycles of {@link PeacockLayout}.
+ */
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class PeacockLayoutCycleTest {
+
+  private static final int ITEM_COUNT = 6;
+
+  private static final int WARM_UP_CYCLES = 3;
+
+  private static final int CYCLES = 10;
+
+  /** Allowed over an idle looper, about 350 bytes per frame of a cycle */
+  private static final long MAX_ALLOCATED_BYTES_OVER_IDLE = 64 * 1024;
+
+  private PeacockLayout layout;
+
+  private CycleProbe probe;
+
+  @Before public void setUp() {
+    Activity activity = Robolectric.setupActivity(Activity.class);
+    layout = new PeacockLayout(activity, null);
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      ImageView item = new ImageView(activity);
+      item.setImageResource(R.drawable.peacock_bg);
+      layout.addView(item);
+    }
+    FrameLayout content = new FrameLayout(activity);
+    content.addView(layout, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+        ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.CENTER));
+    activity.setContentView(content);
+    probe = new CycleProbe(activity);
+  }
+
+  /** Items are moved through their properties, no layout pass is needed */
+  @Test public void propertyAnimationCycle() throws Exception {
+    layout.setPropertyAnimationEnabled(true);
+    final View menu = layout.getChildAt(layout.getChildCount() - 1);
+    Runnable click = new Runnable() {
+      @Override public void run() {
+        menu.performClick();
+      }
+    };
+    List<CycleProbe.Cycle> cycles = probe.repeat(WARM_UP_CYCLES, CYCLES, click, click);
+    probe.assertWithinBudget(cycles, MAX_ALLOCATED_BYTES_OVER_IDLE, 0);
+    assertFalse(layout.isExpanded());
+  }
+
+  /** Without animation, the legacy mode lays the items out again on every switch */
+  @Test public void legacySwitchCycle() throws Exception {
+    Runnable switchState = new Runnable() {
+      @Override public void run() {
+        layout.switchState(false);
+      }
+    };
+    List<CycleProbe.Cycle> cycles =
+        probe.repeat(WARM_UP_CYCLES, CYCLES, switchState, switchState);
+    probe.assertWithinBudget(cycles, MAX_ALLOCATED_BYTES_OVER_IDLE, 2);
+    assertFalse(layout.isExpanded());
+  }
+}
@@ -0,0 +1,109 @@
+package com.xfdsj.peacock;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import com.xfdsj.testing.CycleProbe;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Performance regression guard for the open and close cycles of {@link PeacockMenu}.
+ */
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class PeacockMenuCycleTest {
+
+  private static final int SUB_MENU_COUNT = 6;
+
+  private static final int WARM_UP_CYCLES = 3;
+
+  private static final int CYCLES = 10;
+
+  /** Sub menus stay attached to the host layer and move through translation */
+  private static final int MAX_LAYOUT_PASSES = 0;
+
+  /** Allowed over an idle looper, about 350 bytes per frame of a cycle */
+  private static final long MAX_ALLOCATED_BYTES_OVER_IDLE = 64 * 1024;
+
+  private Activity activity;
+
+  private PeacockMenu menu;
+
+  private CycleProbe probe;
+
+  @Before public void setUp() {
+    activity = Robolectric.setupActivity(Activity.class);
+    menu = createMenu();
+    for (int i = 0; i < SUB_MENU_COUNT; i++) {
+      menu.addView(createMenu());
+    }
+    FrameLayout content = new FrameLayout(activity);
+    content.addView(menu, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+        ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.CENTER));
+    activity.setContentView(content);
+    probe = new CycleProbe(activity);
+  }
+
+  @Test public void openCloseCycle() throws Exception {
+    List<CycleProbe.Cycle> cycles = probe.repeat(WARM_UP_CYCLES, CYCLES, new Runnable() {
+      @Override public void run() {
+        menu.openMenu();
+      }
+    }, new Runnable() {
+      @Override public void run() {
+        menu.closeMenu();
+      }
+    });
+    probe.assertWithinBudget(cycles, MAX_ALLOCATED_BYTES_OVER_IDLE, MAX_LAYOUT_PASSES);
+    assertHidden();
+  }
+
+  @Test public void toggleCycle() throws Exception {
+    Runnable toggle = new Runnable() {
+      @Override public void run() {
+        menu.toggle();
+      }
+    };
+    List<CycleProbe.Cycle> cycles = probe.repeat(WARM_UP_CYCLES, CYCLES, toggle, toggle);
+    probe.assertWithinBudget(cycles, MAX_ALLOCATED_BYTES_OVER_IDLE, MAX_LAYOUT_PASSES);
+    assertHidden();
+  }
+
+  /** Toggles again while the transition is running, which reverses it */
+  @Test public void reversedToggleCycle() throws Exception {
+    Runnable reversedToggle = new Runnable() {
+      @Override public void run() {
+        menu.toggle();
+        ShadowLooper.idleMainLooper(100);
+        menu.toggle();
+      }
+    };
+    List<CycleProbe.Cycle> cycles = probe.repeat(WARM_UP_CYCLES, CYCLES, reversedToggle);
+    probe.assertWithinBudget(cycles, MAX_ALLOCATED_BYTES_OVER_IDLE, MAX_LAYOUT_PASSES);
+    assertHidden();
+  }
+
+  private PeacockMenu createMenu() {
+    PeacockMenu menu = new PeacockMenu(activity, null);
+    Bitmap icon = Bitmap.createBitmap(48, 48, Bitmap.Config.ARGB_8888);
+    menu.setMenuIco(new BitmapDrawable(activity.getResources(), icon));
+    return menu;
+  }
+
+  private void assertHidden() {
+    for (PeacockMenu subMenu : menu.getSubMenus()) {
+      assertEquals(PeacockMenu.INVISIBLE, subMenu.getVisibility());
+    }
+  }
+}
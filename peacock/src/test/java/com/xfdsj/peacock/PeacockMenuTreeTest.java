@@ -0,0 +1,194 @@
+package com.xfdsj.peacock;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Opening and closing a whole tree of nested {@link PeacockMenu}s.
+ */
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class PeacockMenuTreeTest {
+
+  /** Levels of sub menus below the root */
+  private static final int DEPTH = 3;
+
+  private static final int BRANCHES = 2;
+
+  /** Time left to the last frame of a transition */
+  private static final long FRAME_SLACK_MILLIS = 50;
+
+  /** Virtual time a single menu is given to play its transition to the end */
+  private static final long SETTLE_MILLIS = 1500;
+
+  /** Any id, to check that it is given to the created menu */
+  private static final int BRANCH_ID = 42;
+
+  private static final long TREE_MILLIS =
+      TreeTransition.DURATION + TreeTransition.STAGGER * (DEPTH - 1);
+
+  private Activity activity;
+
+  private PeacockMenu root;
+
+  @Before public void setUp() {
+    activity = Robolectric.setupActivity(Activity.class);
+    root = createTree(DEPTH);
+    attach(root);
+  }
+
+  /** All the levels open in one timeline, a level only STAGGER after the one above it */
+  @Test public void openTreeOpensEveryLevelInOneTimeline() {
+    root.openTree();
+    assertStatus(root, PeacockMenu.Status.PLAYING);
+
+    // The deepest level is still moving at the end of the previous one
+    ShadowLooper.idleMainLooper(TreeTransition.DURATION);
+    assertEquals(PeacockMenu.Status.PLAYING, root.getStatus());
+
+    ShadowLooper.idleMainLooper(TREE_MILLIS - TreeTransition.DURATION + FRAME_SLACK_MILLIS);
+    assertStatus(root, PeacockMenu.Status.OPEN);
+    assertShownAtTheirPositions(root);
+  }
+
+  /** The menus of a running tree transition ignore their own openings and closings */
+  @Test public void treeTransitionIgnoresSingleMenus() {
+    root.openTree();
+    ShadowLooper.idleMainLooper(TreeTransition.STAGGER);
+    final PeacockMenu subMenu = root.getSubMenus().get(0);
+    subMenu.closeMenu();
+    root.closeMenu();
+    assertStatus(root, PeacockMenu.Status.PLAYING);
+
+    ShadowLooper.idleMainLooper(TREE_MILLIS + FRAME_SLACK_MILLIS);
+    assertStatus(root, PeacockMenu.Status.OPEN);
+    assertShownAtTheirPositions(root);
+  }
+
+  @Test public void closeTreeHidesEveryLevel() {
+    root.openTree();
+    ShadowLooper.idleMainLooper(TREE_MILLIS + FRAME_SLACK_MILLIS);
+
+    root.closeTree();
+    assertStatus(root, PeacockMenu.Status.PLAYING);
+    ShadowLooper.idleMainLooper(TREE_MILLIS + FRAME_SLACK_MILLIS);
+    assertStatus(root, PeacockMenu.Status.CLOSE);
+    assertHidden(root);
+  }
+
+  /** Described sub menus are created one level at a time, as each level opens */
+  @Test public void describedSubMenusAreCreatedWhenTheyOpen() {
+    final PeacockMenu lazy = createMenu();
+    lazy.addSubMenu(describeTree(DEPTH - 1).setId(BRANCH_ID));
+    lazy.addSubMenu(describeTree(0));
+    attach(lazy);
+    assertTrue(lazy.hasSubMenus());
+    assertTrue(lazy.getSubMenus().isEmpty());
+
+    lazy.openMenu();
+    assertEquals(2, lazy.getSubMenus().size());
+    final PeacockMenu branch = lazy.getSubMenus().get(0);
+    assertEquals(BRANCH_ID, branch.getId());
+    assertTrue(branch.hasSubMenus());
+    assertTrue(branch.getSubMenus().isEmpty());
+    assertFalse(lazy.getSubMenus().get(1).hasSubMenus());
+
+    ShadowLooper.idleMainLooper(SETTLE_MILLIS);
+    branch.openMenu();
+    assertEquals(BRANCHES, branch.getSubMenus().size());
+    assertTrue(branch.getSubMenus().get(0).getSubMenus().isEmpty());
+  }
+
+  /** Opening the whole tree creates every level up front */
+  @Test public void openTreeCreatesEveryDescribedLevel() {
+    final PeacockMenu lazy = createMenu();
+    lazy.addSubMenu(describeTree(DEPTH - 1));
+    attach(lazy);
+
+    lazy.openTree();
+    PeacockMenu level = lazy;
+    for (int depth = 0; depth < DEPTH; depth++) {
+      assertEquals(depth == 0 ? 1 : BRANCHES, level.getSubMenus().size());
+      level = level.getSubMenus().get(0);
+    }
+    ShadowLooper.idleMainLooper(TREE_MILLIS + FRAME_SLACK_MILLIS);
+    assertStatus(lazy, PeacockMenu.Status.OPEN);
+    assertShownAtTheirPositions(lazy);
+  }
+
+  private void attach(PeacockMenu menu) {
+    FrameLayout content = new FrameLayout(activity);
+    content.addView(menu, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+        ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.CENTER));
+    activity.setContentView(content);
+  }
+
+  private static SubMenuDescriptor describeTree(int depth) {
+    final SubMenuDescriptor descriptor = new SubMenuDescriptor(R.drawable.peacock_bg);
+    if (depth > 0) {
+      for (int i = 0; i < BRANCHES; i++) {
+        descriptor.addSubMenu(describeTree(depth - 1));
+      }
+    }
+    return descriptor;
+  }
+
+  private PeacockMenu createTree(int depth) {
+    final PeacockMenu menu = createMenu();
+    if (depth > 0) {
+      for (int i = 0; i < BRANCHES; i++) {
+        menu.addView(createTree(depth - 1));
+      }
+    }
+    return menu;
+  }
+
+  private PeacockMenu createMenu() {
+    PeacockMenu menu = new PeacockMenu(activity, null);
+    Bitmap icon = Bitmap.createBitmap(48, 48, Bitmap.Config.ARGB_8888);
+    menu.setMenuIco(new BitmapDrawable(activity.getResources(), icon));
+    return menu;
+  }
+
+  /** Checks the status of every menu of the tree that has sub menus */
+  private static void assertStatus(PeacockMenu menu, PeacockMenu.Status status) {
+    assertEquals(status, menu.getStatus());
+    for (PeacockMenu subMenu : menu.getSubMenus()) {
+      if (subMenu.hasSubMenus()) {
+        assertStatus(subMenu, status);
+      }
+    }
+  }
+
+  private static void assertShownAtTheirPositions(PeacockMenu menu) {
+    for (PeacockMenu subMenu : menu.getSubMenus()) {
+      assertEquals(View.VISIBLE, subMenu.getVisibility());
+      assertEquals(subMenu.coordX, subMenu.getTranslationX(), 0);
+      assertEquals(subMenu.coordY, subMenu.getTranslationY(), 0);
+      assertEquals(1, subMenu.getScaleX(), 0);
+      assertShownAtTheirPositions(subMenu);
+    }
+  }
+
+  private static void assertHidden(PeacockMenu menu) {
+    for (PeacockMenu subMenu : menu.getSubMenus()) {
+      assertEquals(View.INVISIBLE, subMenu.getVisibility());
+      assertHidden(subMenu);
+    }
+  }
+}
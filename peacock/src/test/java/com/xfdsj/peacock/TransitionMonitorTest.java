@@ -0,0 +1,104 @@
+package com.xfdsj.peacock;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks what {@link TransitionMonitor} reports, frames are fed to it by hand.
+ */
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class TransitionMonitorTest {
+
+  private static final long FRAME_NANOS = 16666667;
+
+  private final List<TransitionMetrics> reported = new ArrayList<>();
+
+  private boolean running;
+
+  private TransitionMonitor monitor;
+
+  @Before public void setUp() {
+    monitor = new TransitionMonitor(new TransitionMonitor.Callback() {
+      @Override public boolean isTransitionRunning() {
+        return running;
+      }
+
+      @Override public void onTransitionMeasured(TransitionMetrics metrics) {
+        reported.add(metrics);
+      }
+    }, 60);
+  }
+
+  @Test public void countsFramesAndFramesOverBudget() {
+    running = true;
+    monitor.begin(true);
+    final long start = System.nanoTime();
+    monitor.doFrame(start);
+    monitor.doFrame(start + FRAME_NANOS);
+    // a frame is dropped, the next one starts two intervals later
+    monitor.doFrame(start + 3 * FRAME_NANOS);
+    assertTrue(reported.isEmpty());
+
+    running = false;
+    monitor.doFrame(start + 4 * FRAME_NANOS);
+    assertEquals(1, reported.size());
+    final TransitionMetrics metrics = reported.get(0);
+    assertTrue(metrics.opening);
+    assertFalse(metrics.interrupted);
+    assertEquals(4, metrics.frames);
+    assertEquals(1, metrics.framesOverBudget);
+    assertTrue(metrics.firstFrameLatencyNanos >= 0);
+    assertTrue(metrics.durationNanos >= 4 * FRAME_NANOS);
+  }
+
+  @Test public void reportsATransitionTakenOverAsInterrupted() {
+    running = true;
+    monitor.begin(true);
+    monitor.begin(false);
+    assertEquals(1, reported.size());
+    assertTrue(reported.get(0).opening);
+    assertTrue(reported.get(0).interrupted);
+    // taken over before its first frame
+    assertEquals(-1, reported.get(0).firstFrameLatencyNanos);
+
+    running = false;
+    monitor.doFrame(System.nanoTime());
+    assertEquals(2, reported.size());
+    assertFalse(reported.get(1).opening);
+    assertFalse(reported.get(1).interrupted);
+  }
+
+  @Test public void countsViewsOnlyWhileMeasuring() {
+    monitor.onViewAttached();
+    running = true;
+    monitor.begin(false);
+    monitor.onViewAttached();
+    monitor.onViewDetached();
+    monitor.onViewDetached();
+    running = false;
+    monitor.doFrame(System.nanoTime());
+    monitor.onViewDetached();
+
+    assertEquals(1, reported.size());
+    assertEquals(1, reported.get(0).viewsAttached);
+    assertEquals(2, reported.get(0).viewsDetached);
+  }
+
+  @Test public void cancelReportsNothing() {
+    running = true;
+    monitor.begin(true);
+    monitor.cancel();
+    running = false;
+    monitor.doFrame(System.nanoTime());
+    assertTrue(reported.isEmpty());
+  }
+}
@@ -0,0 +1,201 @@
+package com.xfdsj.testing;
+
+import android.app.Activity;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Plays scripted menu transitions under Robolectric and records what each cycle costs: bytes
+ * allocated by the main thread, layout passes of the window and views attached under the content
+ * view. Allocations are compared with idle cycles, in which the looper runs for as long with
+ * nothing to animate, so a budget only covers what the menu itself allocates.
+ *
+ * The Robolectric tests of every library share this class through their test source sets.
+ */
+public class CycleProbe {
+
+  /** Virtual time every step is given to play its transition to the end */
+  public static final long SETTLE_MILLIS = 1500;
+
+  private static final long FRAME_MILLIS = 16;
+
+  /** Idle cycles measured after the warm up, the cheapest one is the baseline */
+  private static final int IDLE_CYCLES = 3;
+
+  private static final int WINDOW_WIDTH = 480;
+
+  private static final int WINDOW_HEIGHT = 800;
+
+  private final ViewGroup contentView;
+
+  private int layoutPasses;
+
+  /** Bytes allocated by an idle cycle, -1 if unknown */
+  private long idleAllocatedBytes = -1;
+
+  public CycleProbe(Activity activity) {
+    contentView = (ViewGroup) activity.findViewById(android.R.id.content);
+    // every layout pass of the window is counted here, whether a traversal or settle() ran it
+    contentView.getViewTreeObserver()
+        .addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
+          @Override public void onGlobalLayout() {
+            layoutPasses++;
+          }
+        });
+    settle(FRAME_MILLIS);
+  }
+
+  /**
+   * Runs the given steps as many times as asked, each followed by enough frames to finish its
+   * transition. The first cycles warm up caches and lazily attached views and are not returned;
+   * the idle baseline is measured right after them.
+   */
+  public List<Cycle> repeat(int warmUpCycles, int cycles, Runnable... steps) {
+    for (int i = 0; i < warmUpCycles; i++) {
+      run(steps);
+    }
+    final Runnable[] idleSteps = new Runnable[steps.length];
+    for (int i = 0; i < idleSteps.length; i++) {
+      idleSteps[i] = new Runnable() {
+        @Override public void run() {
+        }
+      };
+    }
+    idleAllocatedBytes = -1;
+    for (int i = 0; i < IDLE_CYCLES; i++) {
+      final long allocated = run(idleSteps).allocatedBytes;
+      if (allocated >= 0 && (idleAllocatedBytes < 0 || allocated < idleAllocatedBytes)) {
+        idleAllocatedBytes = allocated;
+      }
+    }
+    List<Cycle> results = new ArrayList<Cycle>(cycles);
+    for (int i = 0; i < cycles; i++) {
+      results.add(run(steps));
+    }
+    return results;
+  }
+
+  public Cycle run(Runnable... steps) {
+    layoutPasses = 0;
+    final long allocatedBefore = allocatedBytes();
+    for (Runnable step : steps) {
+      step.run();
+      settle(SETTLE_MILLIS);
+    }
+    final long allocatedAfter = allocatedBytes();
+    final long allocated = allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore;
+    return new Cycle(allocated, layoutPasses, countViews(contentView));
+  }
+
+  /**
+   * Advances the main looper frame by frame. A window without a view root to traverse it is laid
+   * out here whenever a view asked for it, and reports that pass as a traversal would.
+   */
+  public void settle(long millis) {
+    for (long elapsed = 0; elapsed < millis; elapsed += FRAME_MILLIS) {
+      ShadowLooper.idleMainLooper(FRAME_MILLIS);
+      layoutIfRequested();
+    }
+  }
+
+  private void layoutIfRequested() {
+    final View root = contentView.getRootView();
+    if (root.getParent() != null || !root.isLayoutRequested()) {
+      // a view root lays the window out in its own traversal, and counts it then
+      return;
+    }
+    root.measure(View.MeasureSpec.makeMeasureSpec(WINDOW_WIDTH, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(WINDOW_HEIGHT, View.MeasureSpec.EXACTLY));
+    root.layout(0, 0, root.getMeasuredWidth(), root.getMeasuredHeight());
+    root.getViewTreeObserver().dispatchOnGlobalLayout();
+  }
+
+  private static int countViews(View view) {
+    int count = 1;
+    if (view instanceof ViewGroup) {
+      final ViewGroup group = (ViewGroup) view;
+      for (int i = 0; i < group.getChildCount(); i++) {
+        count += countViews(group.getChildAt(i));
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return the bytes allocated so far by the current thread, -1 if the JVM cannot tell
+   */
+  private static long allocatedBytes() {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(
+          Thread.currentThread().getId());
+    }
+    return -1;
+  }
+
+  /**
+   * Presses and releases the view, as a finger would.
+   */
+  public static void tap(View view) {
+    MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 0, 0, 0);
+    view.dispatchTouchEvent(down);
+    down.recycle();
+    MotionEvent up = MotionEvent.obtain(0, 0, MotionEvent.ACTION_UP, 0, 0, 0);
+    view.dispatchTouchEvent(up);
+    up.recycle();
+  }
+
+  /**
+   * Fails if any cycle allocates more than the idle baseline plus the given margin, lays out more
+   * than allowed, or if the number of attached views drifts from one cycle to the next. Wall time
+   * is left out, it depends on the machine more than on the menu.
+   */
+  public void assertWithinBudget(List<Cycle> cycles, long maxBytesOverIdle, int maxLayoutPasses) {
+    final int attachedViews = cycles.get(0).attachedViews;
+    for (int i = 0; i < cycles.size(); i++) {
+      final Cycle cycle = cycles.get(i);
+      if (cycle.allocatedBytes >= 0 && idleAllocatedBytes >= 0) {
+        assertTrue("allocations regressed in cycle " + i + ": " + cycle + ", idle="
+            + idleAllocatedBytes + "B",
+            cycle.allocatedBytes - idleAllocatedBytes <= maxBytesOverIdle);
+      }
+      assertTrue("layout passes regressed in cycle " + i + ": " + cycle,
+          cycle.layoutPasses <= maxLayoutPasses);
+      assertEquals("attached views drifted in cycle " + i + ": " + cycle, attachedViews,
+          cycle.attachedViews);
+    }
+  }
+
+  /**
+   * What a single cycle cost.
+   */
+  public static class Cycle {
+    /** Bytes allocated by the main thread, -1 if unknown */
+    public final long allocatedBytes;
+    /** Measure and layout passes of the window */
+    public final int layoutPasses;
+    /** Views under the content view once the cycle is over */
+    public final int attachedViews;
+
+    Cycle(long allocatedBytes, int layoutPasses, int attachedViews) {
+      this.allocatedBytes = allocatedBytes;
+      this.layoutPasses = layoutPasses;
+      this.attachedViews = attachedViews;
+    }
+
+    @Override public String toString() {
+      return "allocated=" + allocatedBytes + "B, layoutPasses=" + layoutPasses
+          + ", attachedViews=" + attachedViews;
+    }
+  }
+}